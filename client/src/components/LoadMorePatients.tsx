@@ -0,0 +1,23 @@
+import { Button } from "@/components/ui/button";
+
+interface LoadMorePatientsProps {
+  hasNextPage: boolean;
+  isFetchingNextPage: boolean;
+  fetchNextPage: () => unknown;
+}
+
+/** Fetches the next page of a patient picker's list; renders nothing on the last page. */
+export function LoadMorePatients({ hasNextPage, isFetchingNextPage, fetchNextPage }: LoadMorePatientsProps) {
+  if (!hasNextPage) return null;
+  return (
+    <Button
+      type="button"
+      variant="link"
+      size="sm"
+      onClick={() => fetchNextPage()}
+      disabled={isFetchingNextPage}
+    >
+      {isFetchingNextPage ? "Loading..." : "Load more patients"}
+    </Button>
+  );
+}
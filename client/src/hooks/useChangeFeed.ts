@@ -0,0 +1,126 @@
+import { useEffect } from "react";
+import { useQueryClient, type InfiniteData, type QueryClient, type QueryKey } from "@tanstack/react-query";
+import { format } from "date-fns";
+import { FeedAPI, type CursorPage } from "@/lib/api";
+
+// The body of every feed event; data is the row as written, null on delete
+// and for prescriptions and documents, which carry only ids.
+interface FeedChange {
+  action: "CREATED" | "UPDATED" | "DELETED";
+  id: number;
+  patientId?: number;
+  data: Record<string, any> | null;
+}
+
+type Row = { id: number } & Record<string, any>;
+type Cached = Row[] | InfiniteData<CursorPage<Row>>;
+
+// Query key prefixes of lists each event is applied to, and of views that can
+// only be refetched: those computed on the server, and lists whose events
+// carry no row.
+const LISTS: Record<string, string[]> = {
+  patient: ["patients", "patients.search"],
+  appointment: ["appointments", "appointments.today", "appointments.byDate"],
+};
+const DERIVED: Record<string, string[]> = {
+  patient: ["reports.daily", "patients.chart"],
+  appointment: ["reports.daily", "patients.chart"],
+  prescription: ["prescriptions.byPatient", "patients.chart"],
+  document: ["documents.byPatient", "patients.chart"],
+};
+
+/**
+ * Subscribes to server change events for the given topics and applies each
+ * event's row to the cached lists it belongs in, so a change costs no
+ * refetch. Subscribe to the narrowest topics a page shows, such as
+ * `patient:<id>` or `appointments:<date>`. EventSource reconnects on its own
+ * and resumes from the last event id it saw; a resync, sent when events were
+ * dropped, refetches what the page shows.
+ */
+export function useChangeFeed(topics: string[]) {
+  const queryClient = useQueryClient();
+  const key = topics.join(",");
+
+  useEffect(() => {
+    if (!key || typeof EventSource === "undefined") return;
+    const source = new EventSource(FeedAPI.url(key.split(",")), { withCredentials: true });
+
+    new Set([...Object.keys(LISTS), ...Object.keys(DERIVED)]).forEach((name) =>
+      source.addEventListener(name, (e) => {
+        const change = JSON.parse((e as MessageEvent).data) as FeedChange;
+        (LISTS[name] ?? []).forEach((prefix) => applyChange(queryClient, prefix, change));
+        (DERIVED[name] ?? []).forEach((p) => queryClient.invalidateQueries({ queryKey: [p] }));
+      })
+    );
+    source.addEventListener("resync", () =>
+      [...Object.values(LISTS), ...Object.values(DERIVED)]
+        .flat()
+        .forEach((p) => queryClient.invalidateQueries({ queryKey: [p] }))
+    );
+    return () => source.close();
+  }, [key, queryClient]);
+}
+
+function applyChange(queryClient: QueryClient, prefix: string, change: FeedChange) {
+  queryClient.getQueriesData<Cached>({ queryKey: [prefix] }).forEach(([queryKey, cached]) => {
+    const listed = belongs(prefix, queryKey, change);
+    if (Array.isArray(cached)) {
+      const next = update(cached, change, listed);
+      if (next !== cached) queryClient.setQueryData(queryKey, next);
+    } else if (cached?.pages) {
+      // Paged lists are newest first, so a row no page holds yet goes on the
+      // first; otherwise each page only updates or drops rows it holds.
+      const held = cached.pages.some((page) => page.items.some((r) => r.id === change.id));
+      let changed = false;
+      const pages = cached.pages.map((page, i) => {
+        const items = update(page.items, change, listed === false || (i === 0 && !held) ? listed : undefined);
+        if (items === page.items) return page;
+        changed = true;
+        return { ...page, items };
+      });
+      if (changed) queryClient.setQueryData(queryKey, { ...cached, pages });
+    }
+  });
+}
+
+/**
+ * Whether the changed row should be in the list under `queryKey`: true or
+ * false where the key says (a day, a patient), undefined where only rows
+ * already listed can be updated, as for search results.
+ */
+function belongs(prefix: string, queryKey: QueryKey, change: FeedChange): boolean | undefined {
+  if (!change.data) return false;
+  switch (prefix) {
+    case "patients":
+    case "appointments":
+      return true;
+    case "appointments.today":
+      return change.data.appointmentDate === format(new Date(), "yyyy-MM-dd");
+    case "appointments.byDate":
+      return change.data.appointmentDate === queryKey[1];
+    default:
+      return undefined;
+  }
+}
+
+function update(rows: Row[], change: FeedChange, listed: boolean | undefined): Row[] {
+  const i = rows.findIndex((r) => r.id === change.id);
+  if (listed === false) return i < 0 ? rows : rows.filter((_, j) => j !== i);
+  const row = change.data as Row;
+  if (i >= 0) {
+    const next = rows.slice();
+    next[i] = { ...rows[i], ...row };
+    return sortByTime(next);
+  }
+  return listed ? sortByTime([row, ...rows]) : rows;
+}
+
+// Day views are ordered by time; other lists keep the server's order.
+function sortByTime(rows: Row[]): Row[] {
+  if (!rows.every((r) => typeof r.appointmentTime === "string" && typeof r.appointmentDate === "string")) {
+    return rows;
+  }
+  const day = rows[0]?.appointmentDate;
+  if (!rows.every((r) => r.appointmentDate === day)) return rows;
+  return rows.slice().sort((a, b) => a.appointmentTime.localeCompare(b.appointmentTime));
+}
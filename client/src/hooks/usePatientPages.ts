@@ -0,0 +1,19 @@
+import { useInfiniteQuery } from "@tanstack/react-query";
+import { PatientsAPI } from "@/lib/api";
+import type { Patient } from "@shared/types";
+
+/**
+ * The patient list, one server page at a time, newest first. Cached under
+ * `patients` for every page that lists or picks patients; useChangeFeed
+ * patches the loaded pages in place.
+ */
+export function usePatientPages() {
+  const query = useInfiniteQuery({
+    queryKey: ["patients"],
+    queryFn: ({ pageParam }) => PatientsAPI.page(pageParam),
+    initialPageParam: null as string | null,
+    getNextPageParam: (last) => last.nextCursor,
+  });
+  const patients: Patient[] = query.data?.pages.flatMap((p) => p.items) ?? [];
+  return { ...query, patients };
+}
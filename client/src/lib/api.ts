@@ -10,10 +10,33 @@ export const api = axios.create({
   timeout: AXIOS_TIMEOUT_MS,
 });
 
+// One page of a keyset-paginated list, newest first; nextCursor is null on
+// the last page.
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor: string | null;
+}
+
+// A patient with their most recent appointments, prescriptions and
+// documents, loaded in one request; the server caps each section.
+export interface PatientChart {
+  patient: Patient;
+  appointments: Appointment[];
+  prescriptions: any[];
+  documents: Document[];
+}
+
 export const PatientsAPI = {
-  list: async (): Promise<Patient[]> => {
-    const r = await api.get("/patients");
-    return r.data as Patient[];
+  page: async (cursor?: string | null): Promise<CursorPage<Patient>> => {
+    const r = await api.get("/patients/page", { params: { cursor: cursor ?? undefined } });
+    return r.data as CursorPage<Patient>;
+  },
+  chart: async (
+    id: number,
+    limits?: { appointments?: number; prescriptions?: number; documents?: number }
+  ): Promise<PatientChart> => {
+    const r = await api.get(`/patients/${id}/chart`, { params: limits });
+    return r.data as PatientChart;
   },
   search: async (query: string): Promise<Patient[]> => {
     const r = await api.get("/patients/search", { params: { query } });
@@ -42,10 +65,6 @@ export const PatientsAPI = {
 };
 
 export const AppointmentsAPI = {
-  list: async (): Promise<Appointment[]> => {
-    const r = await api.get("/appointments");
-    return r.data as Appointment[];
-  },
   getByDate: async (date: string): Promise<Appointment[]> => {
     const r = await api.get("/appointments/date", { params: { date } });
     return r.data as Appointment[];
@@ -54,6 +73,16 @@ export const AppointmentsAPI = {
     const r = await api.get("/appointments/today");
     return r.data as Appointment[];
   },
+  availability: async (
+    doctorId: number,
+    date: string,
+    duration?: number
+  ): Promise<{ start: string; end: string }[]> => {
+    const r = await api.get("/appointments/availability", {
+      params: { doctorId, date, duration },
+    });
+    return r.data as { start: string; end: string }[];
+  },
   create: async (input: any): Promise<Appointment> => {
     const time =
       String(input.appointmentTime).split(":").length === 2
@@ -79,6 +108,17 @@ export const AppointmentsAPI = {
   },
 };
 
+export const ReportsAPI = {
+  daily: async (date: string) => {
+    const r = await api.get("/reports/daily", { params: { date } });
+    return r.data;
+  },
+  monthly: async (month: string) => {
+    const r = await api.get("/reports/monthly", { params: { month } });
+    return r.data;
+  },
+};
+
 export const PrescriptionsAPI = {
   listByPatient: async (patientId: number) => {
     const r = await api.get(`/prescriptions/patient/${patientId}`);
@@ -121,8 +161,32 @@ export const DocumentsAPI = {
     const r = await api.post("/documents", input);
     return r.data as Document;
   },
+  upload: async (
+    input: { patientId: number; documentType: string; documentName: string; description?: string; file: File },
+    onProgress?: (percent: number) => void
+  ): Promise<Document> => {
+    const form = new FormData();
+    form.append("patientId", String(input.patientId));
+    form.append("documentType", input.documentType);
+    form.append("documentName", input.documentName);
+    if (input.description) form.append("description", input.description);
+    form.append("file", input.file);
+    const r = await api.post("/documents/upload", form, {
+      timeout: 0,
+      onUploadProgress: (e) => {
+        if (onProgress && e.total) onProgress(Math.round((e.loaded * 100) / e.total));
+      },
+    });
+    return r.data as Document;
+  },
+  contentUrl: (id: number): string => `${API_BASE}/documents/${id}/content`,
   remove: async (id: number): Promise<void> => {
     const r = await api.delete(`/documents/${id}`);
     return r.data as void;
   },
 };
+
+export const FeedAPI = {
+  url: (topics: string[]): string =>
+    `${API_BASE}/feed?${topics.map((t) => `topic=${encodeURIComponent(t)}`).join("&")}`,
+};
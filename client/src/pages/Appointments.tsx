@@ -1,6 +1,6 @@
 import { useQuery, useMutation } from "@tanstack/react-query";
-import { AppointmentsAPI, PatientsAPI } from "@/lib/api";
-import type { Appointment, Patient } from "@shared/types";
+import { AppointmentsAPI } from "@/lib/api";
+import type { Appointment } from "@shared/types";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Card } from "@/components/ui/card";
@@ -8,10 +8,14 @@ import { useState } from "react";
 import { Calendar, Plus, Clock, MapPin, User } from "lucide-react";
 import { toast } from "sonner";
 import { format } from "date-fns";
+import { useChangeFeed } from "@/hooks/useChangeFeed";
+import { usePatientPages } from "@/hooks/usePatientPages";
+import { LoadMorePatients } from "@/components/LoadMorePatients";
 
 export default function Appointments() {
-  const [showForm, setShowForm] = useState(false);
   const [selectedDate, setSelectedDate] = useState(new Date().toISOString().split('T')[0]);
+  useChangeFeed([`appointments:${selectedDate}`, "patients"]);
+  const [showForm, setShowForm] = useState(false);
   const [formData, setFormData] = useState({
     patientId: "",
     appointmentDate: new Date().toISOString().split('T')[0],
@@ -19,18 +23,11 @@ export default function Appointments() {
     reason: "",
   });
 
-  const { data: appointments = [], isLoading, refetch } = useQuery<Appointment[]>({
-    queryKey: ["appointments"],
-    queryFn: AppointmentsAPI.list,
-  });
-  const { data: todayAppointments = [] } = useQuery<Appointment[]>({
+  const { data: todayAppointments = [], isLoading, refetch } = useQuery<Appointment[]>({
     queryKey: ["appointments.byDate", selectedDate],
     queryFn: () => AppointmentsAPI.getByDate(selectedDate),
   });
-  const { data: patients = [] } = useQuery<Patient[]>({
-    queryKey: ["patients"],
-    queryFn: PatientsAPI.list,
-  });
+  const { patients, ...patientPages } = usePatientPages();
 
   const createAppointmentMutation = useMutation({
     mutationFn: AppointmentsAPI.create,
@@ -130,6 +127,7 @@ export default function Appointments() {
                     </option>
                   ))}
                 </select>
+                <LoadMorePatients {...patientPages} />
               </div>
               <div>
                 <label className="block text-sm font-medium text-foreground mb-2">
@@ -1,5 +1,5 @@
 import { useQuery } from "@tanstack/react-query";
-import { AppointmentsAPI, PatientsAPI } from "@/lib/api";
+import { AppointmentsAPI, ReportsAPI } from "@/lib/api";
 import { Card } from "@/components/ui/card";
 import { Button } from "@/components/ui/button";
 import { 
@@ -13,24 +13,27 @@ import {
   AlertCircle
 } from "lucide-react";
 import { useLocation } from "wouter";
-import type { Appointment, Patient } from "@shared/types";
+import type { Appointment } from "@shared/types";
 import { format } from "date-fns";
+import { useChangeFeed } from "@/hooks/useChangeFeed";
 
 export default function Dashboard() {
+  useChangeFeed(["appointments:today", "patients"]);
   const [, setLocation] = useLocation();
   
   // Fetch today's appointments
   const { data: todayAppointments = [], isLoading: appointmentsLoading } = 
     useQuery<Appointment[]>({ queryKey: ["appointments.today"], queryFn: AppointmentsAPI.today });
 
-  // Fetch all patients count
-  const { data: allPatients = [], isLoading: patientsLoading } = 
-    useQuery<Patient[]>({ queryKey: ["patients"], queryFn: PatientsAPI.list });
+  // Fetch patient totals from the daily rollup
+  const today = format(new Date(), "yyyy-MM-dd");
+  const { data: dailySummary } =
+    useQuery<any>({ queryKey: ["reports.daily", today], queryFn: () => ReportsAPI.daily(today) });
 
   const stats = [
     {
       label: "Total Patients",
-      value: allPatients.length,
+      value: dailySummary?.totalPatients ?? "—",
       icon: Users,
       color: "bg-blue-100 text-blue-700",
       action: () => setLocation("/patients"),
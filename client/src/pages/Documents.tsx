@@ -1,6 +1,6 @@
 import { useQuery, useMutation } from "@tanstack/react-query";
-import { PatientsAPI, DocumentsAPI } from "@/lib/api";
-import type { Patient, Document } from "@shared/types";
+import { DocumentsAPI } from "@/lib/api";
+import type { Document } from "@shared/types";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Card } from "@/components/ui/card";
@@ -8,6 +8,9 @@ import { useState, useRef } from "react";
 import { FileText, Plus, Download, Trash2, Eye, Upload, Filter, File } from "lucide-react";
 import { toast } from "sonner";
 import { format, parseISO } from "date-fns";
+import { useChangeFeed } from "@/hooks/useChangeFeed";
+import { usePatientPages } from "@/hooks/usePatientPages";
+import { LoadMorePatients } from "@/components/LoadMorePatients";
 
 const DOCUMENT_TYPES = [
   { value: "lab_report", label: "Lab Report" },
@@ -25,6 +28,7 @@ const DOCUMENT_TYPES = [
 export default function Documents() {
   const [showForm, setShowForm] = useState(false);
   const [selectedPatient, setSelectedPatient] = useState("");
+  useChangeFeed(selectedPatient ? ["patients", `patient:${selectedPatient}`] : ["patients"]);
   const [filterType, setFilterType] = useState("");
   const [uploadProgress, setUploadProgress] = useState(0);
   const fileInputRef = useRef<HTMLInputElement>(null);
@@ -35,10 +39,7 @@ export default function Documents() {
     description: "",
   });
 
-  const { data: patients = [] } = useQuery<Patient[]>({
-    queryKey: ["patients"],
-    queryFn: PatientsAPI.list,
-  });
+  const { patients, ...patientPages } = usePatientPages();
   const { data: documents = [], isLoading, refetch } = useQuery<Document[]>({
     queryKey: ["documents.byPatient", selectedPatient],
     queryFn: () => DocumentsAPI.listByPatient(parseInt(selectedPatient)),
@@ -46,7 +47,8 @@ export default function Documents() {
   });
 
   const createDocumentMutation = useMutation({
-    mutationFn: DocumentsAPI.create,
+    mutationFn: (vars: Parameters<typeof DocumentsAPI.upload>[0]) =>
+      DocumentsAPI.upload(vars, setUploadProgress),
     onSuccess: () => {
       toast.success("Document uploaded successfully");
       setFormData({
@@ -85,41 +87,27 @@ export default function Documents() {
       return;
     }
 
-    // Simulate file upload to S3
-    setUploadProgress(30);
-    
-    try {
-      // In a real application, you would upload to S3 here
-      // For now, we'll create a mock URL
-      const fileUrl = URL.createObjectURL(file);
-      const fileKey = `patients/${selectedPatient}/documents/${Date.now()}-${file.name}`;
-
-      setUploadProgress(70);
+    setUploadProgress(1);
 
-      await new Promise(resolve => setTimeout(resolve, 500));
-
-      createDocumentMutation.mutate({
+    try {
+      await createDocumentMutation.mutateAsync({
         patientId: parseInt(selectedPatient),
         documentType: formData.documentType,
         documentName: formData.documentName,
         description: formData.description,
-        fileUrl,
-        fileKey,
-        mimeType: file.type,
-        fileSize: file.size,
+        file,
       });
 
       setUploadProgress(100);
       setTimeout(() => setUploadProgress(0), 1000);
     } catch (error) {
-      toast.error("Failed to upload file");
       setUploadProgress(0);
     }
   };
 
   const handleDownload = (doc: any) => {
     const link = document.createElement("a");
-    link.href = doc.fileUrl;
+    link.href = DocumentsAPI.contentUrl(doc.id);
     link.download = doc.documentName;
     document.body.appendChild(link);
     link.click();
@@ -183,6 +171,7 @@ export default function Documents() {
                     </option>
                   ))}
                 </select>
+                <LoadMorePatients {...patientPages} />
               </div>
               <div>
                 <label className="block text-sm font-medium text-foreground mb-2">
@@ -304,6 +293,7 @@ export default function Documents() {
               </option>
             ))}
           </select>
+          <LoadMorePatients {...patientPages} />
         </div>
         <div>
           <label className="block text-sm font-medium text-foreground mb-2">
@@ -397,7 +387,7 @@ export default function Documents() {
                     <Button
                       variant="outline"
                       size="sm"
-                      onClick={() => window.open(document.fileUrl, "_blank")}
+                      onClick={() => window.open(DocumentsAPI.contentUrl(document.id), "_blank")}
                       className="gap-2"
                     >
                       <Eye className="h-4 w-4" />
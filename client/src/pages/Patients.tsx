@@ -7,6 +7,8 @@ import { useState } from "react";
 import { Users, Plus, Search, Mail, Phone, Calendar, Edit2, Trash2, X } from "lucide-react";
 import { toast } from "sonner";
 import { format } from "date-fns";
+import { useChangeFeed } from "@/hooks/useChangeFeed";
+import { usePatientPages } from "@/hooks/usePatientPages";
 
 interface PatientFormData {
   firstName: string;
@@ -25,9 +27,12 @@ interface PatientFormData {
 }
 
 export default function Patients() {
+  const [openId, setOpenId] = useState<number | null>(null);
+  useChangeFeed(openId ? ["patients", `patient:${openId}`] : ["patients"]);
   const [searchQuery, setSearchQuery] = useState("");
   const [showForm, setShowForm] = useState(false);
   const [editingId, setEditingId] = useState<number | null>(null);
+  const [editingVersion, setEditingVersion] = useState<number | undefined>(undefined);
   const [showDeleteConfirm, setShowDeleteConfirm] = useState<number | null>(null);
   const [formData, setFormData] = useState<PatientFormData>({
     firstName: "",
@@ -45,15 +50,17 @@ export default function Patients() {
     bloodType: "",
   });
 
-  const { data: patients = [], isLoading, refetch } = useQuery({
-    queryKey: ["patients"],
-    queryFn: PatientsAPI.list,
-  });
+  const { patients, isLoading, refetch, hasNextPage, fetchNextPage, isFetchingNextPage } = usePatientPages();
   const { data: searchResults = [] } = useQuery({
     queryKey: ["patients.search", searchQuery],
     queryFn: () => PatientsAPI.search(searchQuery),
     enabled: searchQuery.length > 0,
   });
+  const { data: chart, isLoading: chartLoading } = useQuery({
+    queryKey: ["patients.chart", openId],
+    queryFn: () => PatientsAPI.chart(openId!),
+    enabled: openId !== null,
+  });
 
   const createPatientMutation = useMutation({
     mutationFn: PatientsAPI.create,
@@ -75,7 +82,9 @@ export default function Patients() {
       refetch();
     },
     onError: (error: any) => {
-      toast.error(error?.message || "Failed to update patient");
+      toast.error(error?.response?.status === 409
+        ? "This patient was changed by someone else. Reload and try again."
+        : error?.message || "Failed to update patient");
     },
   });
 
@@ -113,6 +122,7 @@ export default function Patients() {
 
   const handleEdit = (patient: any) => {
     setEditingId(patient.id);
+    setEditingVersion(patient.version);
     setFormData({
       firstName: patient.firstName,
       lastName: patient.lastName,
@@ -139,7 +149,7 @@ export default function Patients() {
     }
 
     if (editingId) {
-      const payload: any = { id: editingId, ...formData };
+      const payload: any = { id: editingId, version: editingVersion, ...formData };
       const dob = formData.dateOfBirth?.trim();
       if (!dob) {
         delete payload.dateOfBirth;
@@ -459,7 +469,9 @@ export default function Patients() {
                 return (
                   <tr key={patient.id} className="hover:bg-muted/50 transition-colors">
                     <td className="px-6 py-4 text-sm font-medium text-foreground">
-                      {patient.firstName} {patient.lastName}
+                      <button onClick={() => setOpenId(patient.id)} className="hover:underline">
+                        {patient.firstName} {patient.lastName}
+                      </button>
                     </td>
                     <td className="px-6 py-4 text-sm text-muted-foreground">{patient.patientId}</td>
                     <td className="px-6 py-4 text-sm text-muted-foreground">
@@ -509,6 +521,86 @@ export default function Patients() {
           </tbody>
         </table>
       </div>
+      {!searchQuery && hasNextPage && (
+        <div className="flex justify-center">
+          <Button variant="outline" onClick={() => fetchNextPage()} disabled={isFetchingNextPage}>
+            {isFetchingNextPage ? "Loading..." : "Load more patients"}
+          </Button>
+        </div>
+      )}
+
+      {/* Patient Chart */}
+      {openId !== null && (
+        <div className="fixed inset-0 z-50 flex items-center justify-center bg-black/50">
+          <div className="card-elegant w-full max-w-2xl max-h-[80vh] overflow-y-auto">
+            <div className="mb-4 flex items-center justify-between">
+              <h3 className="text-lg font-bold text-foreground">
+                {chart ? `${chart.patient.firstName} ${chart.patient.lastName}` : "Patient"}
+              </h3>
+              <button
+                onClick={() => setOpenId(null)}
+                className="text-muted-foreground hover:text-foreground"
+              >
+                <X className="h-5 w-5" />
+              </button>
+            </div>
+            {chartLoading || !chart ? (
+              <p className="text-muted-foreground">Loading patient...</p>
+            ) : (
+              <div className="space-y-6 text-sm">
+                <div className="text-muted-foreground">
+                  {chart.patient.patientId} · {chart.patient.phone}
+                  {chart.patient.email ? ` · ${chart.patient.email}` : ""}
+                </div>
+                <div>
+                  <h4 className="mb-2 font-semibold text-foreground">Recent Appointments</h4>
+                  {chart.appointments.length === 0 ? (
+                    <p className="text-muted-foreground">No appointments</p>
+                  ) : (
+                    <ul className="space-y-1 text-muted-foreground">
+                      {chart.appointments.map((a) => (
+                        <li key={a.id} className="flex items-center gap-2">
+                          <Calendar className="h-4 w-4" />
+                          {a.appointmentDate} {a.appointmentTime} · {a.status}
+                          {a.reason ? ` · ${a.reason}` : ""}
+                        </li>
+                      ))}
+                    </ul>
+                  )}
+                </div>
+                <div>
+                  <h4 className="mb-2 font-semibold text-foreground">Recent Prescriptions</h4>
+                  {chart.prescriptions.length === 0 ? (
+                    <p className="text-muted-foreground">No prescriptions</p>
+                  ) : (
+                    <ul className="space-y-1 text-muted-foreground">
+                      {chart.prescriptions.map((p: any) => (
+                        <li key={p.id}>
+                          {p.medicationName} {p.dosage} · {p.frequency} · {p.status}
+                        </li>
+                      ))}
+                    </ul>
+                  )}
+                </div>
+                <div>
+                  <h4 className="mb-2 font-semibold text-foreground">Recent Documents</h4>
+                  {chart.documents.length === 0 ? (
+                    <p className="text-muted-foreground">No documents</p>
+                  ) : (
+                    <ul className="space-y-1 text-muted-foreground">
+                      {chart.documents.map((d) => (
+                        <li key={d.id}>
+                          {d.documentName} · {d.documentType}
+                        </li>
+                      ))}
+                    </ul>
+                  )}
+                </div>
+              </div>
+            )}
+          </div>
+        </div>
+      )}
 
       {/* Delete Confirmation Dialog */}
       {showDeleteConfirm !== null && (
@@ -1,5 +1,5 @@
 import { useQuery, useMutation } from "@tanstack/react-query";
-import { PatientsAPI, PrescriptionsAPI } from "@/lib/api";
+import { PrescriptionsAPI } from "@/lib/api";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Card } from "@/components/ui/card";
@@ -7,6 +7,9 @@ import { useState } from "react";
 import { Pill, Plus, Printer, Trash2, X, Eye, Download, Edit2 } from "lucide-react";
 import { toast } from "sonner";
 import { format } from "date-fns";
+import { useChangeFeed } from "@/hooks/useChangeFeed";
+import { usePatientPages } from "@/hooks/usePatientPages";
+import { LoadMorePatients } from "@/components/LoadMorePatients";
 
 interface Medicine {
   id: string;
@@ -22,8 +25,10 @@ interface Medicine {
 export default function Prescriptions() {
   const [showForm, setShowForm] = useState(false);
   const [selectedPatient, setSelectedPatient] = useState("");
+  useChangeFeed(selectedPatient ? ["patients", `patient:${selectedPatient}`] : ["patients"]);
   const [medicines, setMedicines] = useState<Medicine[]>([]);
   const [editingId, setEditingId] = useState<number | null>(null);
+  const [editingVersion, setEditingVersion] = useState<number | undefined>(undefined);
   const [currentMedicine, setCurrentMedicine] = useState<Medicine>({
     id: "",
     medicationName: "",
@@ -42,10 +47,7 @@ export default function Prescriptions() {
     generalInstructions: "",
   });
 
-  const { data: patients = [] } = useQuery({
-    queryKey: ["patients"],
-    queryFn: PatientsAPI.list,
-  });
+  const { patients, ...patientPages } = usePatientPages();
   const { data: prescriptions = [], isLoading, refetch } = useQuery({
     queryKey: ["prescriptions.byPatient", selectedPatient],
     queryFn: () => PrescriptionsAPI.listByPatient(parseInt(selectedPatient)),
@@ -131,7 +133,7 @@ export default function Prescriptions() {
     };
 
     if (editingId) {
-      PrescriptionsAPI.update(editingId, payload)
+      PrescriptionsAPI.update(editingId, { ...payload, version: editingVersion })
         .then(() => {
           toast.success("Prescription updated successfully");
           setEditingId(null);
@@ -146,7 +148,9 @@ export default function Prescriptions() {
           refetch();
         })
         .catch((error: any) => {
-          toast.error(error?.message || "Failed to update prescription");
+          toast.error(error?.response?.status === 409
+            ? "This prescription was changed by someone else. Reload and try again."
+            : error?.message || "Failed to update prescription");
         });
     } else {
       createPrescriptionMutation.mutate(payload);
@@ -342,6 +346,7 @@ export default function Prescriptions() {
 
   const handleEdit = (prescription: any) => {
     setEditingId(prescription.id);
+    setEditingVersion(prescription.version);
     setShowForm(true);
     setPrescriptionData({
       patientId: String(prescription.patientId),
@@ -423,6 +428,7 @@ export default function Prescriptions() {
                   </option>
                 ))}
               </select>
+              <LoadMorePatients {...patientPages} />
             </div>
             <div>
               <label className="block text-sm font-medium text-foreground mb-2">
@@ -641,6 +647,7 @@ export default function Prescriptions() {
             </option>
           ))}
         </select>
+        <LoadMorePatients {...patientPages} />
       </div>
 
       {/* Prescriptions Table */}
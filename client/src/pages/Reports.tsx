@@ -6,7 +6,7 @@ import { useState } from "react";
 import { BarChart3, Download, Calendar, TrendingUp } from "lucide-react";
 import { toast } from "sonner";
 import { format } from "date-fns";
-import { AppointmentsAPI, PatientsAPI } from "@/lib/api";
+import { ReportsAPI } from "@/lib/api";
 
 export default function Reports() {
   const [reportType, setReportType] = useState<"daily" | "monthly">("daily");
@@ -19,24 +19,9 @@ export default function Reports() {
 
   const handleGenerateDaily = () => {
     setDailyLoading(true);
-    Promise.all([
-      AppointmentsAPI.getByDate(selectedDate),
-      PatientsAPI.list(),
-    ])
-      .then(([appointments, patients]) => {
-        const completed = appointments.filter((a: any) => a.status === "completed").length;
-        const cancelled = appointments.filter((a: any) => a.status === "cancelled").length;
-        const report = {
-          reportId: `daily-${selectedDate}`,
-          reportType: "daily",
-          reportDate: selectedDate,
-          totalAppointments: appointments.length,
-          completedAppointments: completed,
-          cancelledAppointments: cancelled,
-          totalPatients: patients.length,
-          newPatients: 0,
-          reportData: JSON.stringify({ appointments }),
-        };
+    ReportsAPI.daily(selectedDate)
+      .then((summary: any) => {
+        const report = { ...summary, reportData: JSON.stringify({ days: summary.days }) };
         setDailyReport(report);
         toast.success("Daily report generated successfully");
       })
@@ -48,28 +33,9 @@ export default function Reports() {
 
   const handleGenerateMonthly = () => {
     setMonthlyLoading(true);
-    Promise.all([AppointmentsAPI.list(), PatientsAPI.list()])
-      .then(([appointments, patients]) => {
-        const [yearStr, monthStr] = selectedMonth.split("-");
-        const year = parseInt(yearStr);
-        const month = parseInt(monthStr);
-        const filtered = appointments.filter((a: any) => {
-          const d = new Date(a.appointmentDate);
-          return d.getFullYear() === year && d.getMonth() + 1 === month;
-        });
-        const completed = filtered.filter((a: any) => a.status === "completed").length;
-        const cancelled = filtered.filter((a: any) => a.status === "cancelled").length;
-        const report = {
-          reportId: `monthly-${selectedMonth}`,
-          reportType: "monthly",
-          reportDate: `${selectedMonth}-01`,
-          totalAppointments: filtered.length,
-          completedAppointments: completed,
-          cancelledAppointments: cancelled,
-          totalPatients: patients.length,
-          newPatients: 0,
-          reportData: JSON.stringify({ appointments: filtered }),
-        };
+    ReportsAPI.monthly(selectedMonth)
+      .then((summary: any) => {
+        const report = { ...summary, reportData: JSON.stringify({ days: summary.days }) };
         setMonthlyReport(report);
         toast.success("Monthly report generated successfully");
       })
@@ -23,6 +23,7 @@ export interface Patient {
   zipCode?: string;
   emergencyContact?: string;
   emergencyPhone?: string;
+  version?: number;
 }
 
 export type AppointmentStatus = "scheduled" | "completed" | "cancelled";
@@ -0,0 +1,69 @@
+package com.pmsmanus.bench;
+
+import com.pmsmanus.controller.PatientController;
+import com.pmsmanus.controller.PrescriptionController;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The PUT handlers of {@code PatientController} and {@code PrescriptionController}:
+ * load, field-by-field merge, save and change event, on rows spread over the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PartialUpdateBenchmark {
+    private static final int ROWS = 5000;
+
+    private BackendContext backend;
+    private PatientController patients;
+    private PrescriptionController prescriptions;
+    private final Patient patientChanges = new Patient();
+    private final Prescription prescriptionChanges = new Prescription();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = BackendContext.start("update");
+        SyntheticData.insertPatients(backend.jdbc(), SyntheticData.patients(ROWS));
+        SyntheticData.insertPrescriptions(backend.jdbc(), SyntheticData.prescriptions(ROWS, ROWS));
+        patients = backend.bean(PatientController.class);
+        prescriptions = backend.bean(PrescriptionController.class);
+        patientChanges.setPhone("555-000-0000");
+        patientChanges.setCity("Shelbyville");
+        prescriptionChanges.setDosage("20mg");
+        prescriptionChanges.setStatus("active");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<Patient> patientUpdate() {
+        return patients.update(nextId(), patientChanges);
+    }
+
+    @Benchmark
+    public ResponseEntity<Prescription> prescriptionUpdate() {
+        return prescriptions.update(nextId(), prescriptionChanges);
+    }
+
+    private int nextId() {
+        next = next % ROWS + 1;
+        return next;
+    }
+}
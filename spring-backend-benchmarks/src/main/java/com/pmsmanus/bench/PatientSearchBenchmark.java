@@ -0,0 +1,62 @@
+package com.pmsmanus.bench;
+
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.search.PatientSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PatientRepository.search} (the LIKE fallback used while the search
+ * index builds) against the in-memory index, by table size and query shape:
+ * a common name fragment, a phone fragment and a miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PatientSearchBenchmark {
+    @Param({"1000", "10000", "50000"})
+    int patients;
+
+    @Param({"mar", "555-01", "zzq"})
+    String query;
+
+    private BackendContext backend;
+    private PatientRepository repository;
+    private PatientSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = BackendContext.start("search" + patients);
+        SyntheticData.insertPatients(backend.jdbc(), SyntheticData.patients(patients));
+        repository = backend.bean(PatientRepository.class);
+        index = backend.bean(PatientSearchIndex.class);
+        index.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public List<PatientSummary> repositorySearch() {
+        return repository.search(query);
+    }
+
+    @Benchmark
+    public List<Integer> indexSearch() {
+        return index.search(query, 50);
+    }
+}
@@ -0,0 +1,104 @@
+package com.pmsmanus.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.json.EntityJson;
+import com.pmsmanus.json.JsonOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List endpoint bodies, written with the application's configured ObjectMapper
+ * and with the hand-written {@link EntityJson} writers that now serve them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    private BackendContext backend;
+    private ObjectMapper mapper;
+    private List<Patient> patients;
+    private List<Appointment> appointments;
+    private List<Prescription> prescriptions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = BackendContext.start("serialization" + size);
+        mapper = backend.bean(ObjectMapper.class);
+        patients = SyntheticData.patients(size);
+        appointments = SyntheticData.appointments(size, size);
+        prescriptions = SyntheticData.prescriptions(size, size);
+        same(patients, Patient.class);
+        same(appointments, Appointment.class);
+        same(prescriptions, Prescription.class);
+    }
+
+    /** A faster writer is only worth measuring if it writes the same bytes. */
+    private <T> void same(List<T> rows, Class<T> type) {
+        try {
+            if (!Arrays.equals(mapper.writeValueAsBytes(rows), entityWriters(rows, type))) {
+                throw new IllegalStateException(type.getSimpleName() + " JSON differs from the ObjectMapper's");
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> byte[] entityWriters(List<T> rows, Class<T> type) {
+        EntityJson.Writer<T> writer = EntityJson.writerFor(type);
+        return JsonOutput.toBytes(out -> EntityJson.array(rows, writer, out));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        backend.close();
+    }
+
+    @Benchmark
+    public byte[] patients() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(patients);
+    }
+
+    @Benchmark
+    public byte[] appointments() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public byte[] prescriptions() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(prescriptions);
+    }
+
+    @Benchmark
+    public byte[] patientsEntityWriters() {
+        return entityWriters(patients, Patient.class);
+    }
+
+    @Benchmark
+    public byte[] appointmentsEntityWriters() {
+        return entityWriters(appointments, Appointment.class);
+    }
+
+    @Benchmark
+    public byte[] prescriptionsEntityWriters() {
+        return entityWriters(prescriptions, Prescription.class);
+    }
+}
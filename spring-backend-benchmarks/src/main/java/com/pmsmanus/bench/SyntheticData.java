@@ -0,0 +1,134 @@
+package com.pmsmanus.bench;
+
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Deterministic fake rows, so results stay comparable across commits. */
+final class SyntheticData {
+    private static final String[] FIRST = {"Maria", "James", "Anna", "Mohammed", "Wei", "Olga", "Carlos", "Priya",
+            "John", "Fatima", "Lucas", "Marta", "Kenji", "Amara", "Noah", "Sofia"};
+    private static final String[] LAST = {"Garcia", "Smith", "Kowalski", "Khan", "Chen", "Ivanova", "Silva", "Patel",
+            "Brown", "Haddad", "Martin", "Novak", "Tanaka", "Okafor", "Miller", "Rossi"};
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private SyntheticData() {
+    }
+
+    static List<Patient> patients(int count) {
+        Random random = new Random(42);
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Patient p = new Patient();
+            p.setId(i + 1);
+            p.setPatientId("P-" + (i + 1));
+            p.setFirstName(FIRST[random.nextInt(FIRST.length)]);
+            p.setLastName(LAST[random.nextInt(LAST.length)]);
+            p.setEmail(p.getFirstName().toLowerCase() + "." + p.getLastName().toLowerCase() + i + "@example.com");
+            p.setPhone(String.format("555-%03d-%04d", random.nextInt(1000), random.nextInt(10000)));
+            p.setDateOfBirth(LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30000)));
+            p.setGender(random.nextBoolean() ? "female" : "male");
+            p.setAddress((100 + random.nextInt(900)) + " Main Street");
+            p.setCity("Springfield");
+            p.setState("IL");
+            p.setZipCode(String.format("%05d", random.nextInt(100000)));
+            p.setMedicalHistory("Hypertension, controlled. Annual checkup due.");
+            p.setAllergies(random.nextInt(4) == 0 ? "Penicillin" : null);
+            p.setBloodType("O+");
+            p.setCreatedAt(EPOCH.plusMinutes(i * 13L));
+            p.setUpdatedAt(p.getCreatedAt());
+            patients.add(p);
+        }
+        return patients;
+    }
+
+    static List<Appointment> appointments(int count, int patients) {
+        Random random = new Random(7);
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Appointment a = new Appointment();
+            a.setId(i + 1);
+            a.setAppointmentId("A-" + (i + 1));
+            a.setPatientId(1 + random.nextInt(patients));
+            a.setDoctorId(1 + random.nextInt(12));
+            a.setAppointmentDate(EPOCH.toLocalDate().plusDays(i / 40));
+            a.setAppointmentTime(LocalTime.of(8 + random.nextInt(10), random.nextInt(4) * 15));
+            a.setDuration(30);
+            a.setStatus(random.nextInt(5) == 0 ? "completed" : "scheduled");
+            a.setReason("Follow-up visit");
+            a.setCreatedAt(EPOCH.plusMinutes(i));
+            a.setUpdatedAt(a.getCreatedAt());
+            appointments.add(a);
+        }
+        return appointments;
+    }
+
+    static List<Prescription> prescriptions(int count, int patients) {
+        Random random = new Random(11);
+        List<Prescription> prescriptions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Prescription p = new Prescription();
+            p.setPrescriptionId("RX-" + (i + 1));
+            p.setVisitId(i + 1);
+            p.setPatientId(1 + random.nextInt(patients));
+            p.setMedicationName("Lisinopril");
+            p.setDosage("10mg");
+            p.setFrequency("daily");
+            p.setStartDate(EPOCH.toLocalDate().plusDays(i % 365));
+            p.setStatus("active");
+            p.setCreatedAt(EPOCH.plusMinutes(i));
+            p.setUpdatedAt(p.getCreatedAt());
+            prescriptions.add(p);
+        }
+        return prescriptions;
+    }
+
+    static void insertPatients(JdbcTemplate jdbc, List<Patient> patients) {
+        jdbc.batchUpdate("INSERT INTO patients (patient_id, first_name, last_name, email, phone, date_of_birth, gender, "
+                        + "address, city, state, zip_code, medical_history, allergies, blood_type, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                patients, 1000, (ps, p) -> {
+                    ps.setString(1, p.getPatientId());
+                    ps.setString(2, p.getFirstName());
+                    ps.setString(3, p.getLastName());
+                    ps.setString(4, p.getEmail());
+                    ps.setString(5, p.getPhone());
+                    ps.setObject(6, p.getDateOfBirth());
+                    ps.setString(7, p.getGender());
+                    ps.setString(8, p.getAddress());
+                    ps.setString(9, p.getCity());
+                    ps.setString(10, p.getState());
+                    ps.setString(11, p.getZipCode());
+                    ps.setString(12, p.getMedicalHistory());
+                    ps.setString(13, p.getAllergies());
+                    ps.setString(14, p.getBloodType());
+                    ps.setObject(15, p.getCreatedAt());
+                    ps.setObject(16, p.getUpdatedAt());
+                });
+    }
+
+    static void insertPrescriptions(JdbcTemplate jdbc, List<Prescription> prescriptions) {
+        jdbc.batchUpdate("INSERT INTO prescriptions (prescription_id, visit_id, patient_id, medication_name, dosage, "
+                        + "frequency, start_date, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                prescriptions, 1000, (ps, p) -> {
+                    ps.setString(1, p.getPrescriptionId());
+                    ps.setInt(2, p.getVisitId());
+                    ps.setInt(3, p.getPatientId());
+                    ps.setString(4, p.getMedicationName());
+                    ps.setString(5, p.getDosage());
+                    ps.setString(6, p.getFrequency());
+                    ps.setObject(7, p.getStartDate());
+                    ps.setString(8, p.getStatus());
+                    ps.setObject(9, p.getCreatedAt());
+                    ps.setObject(10, p.getUpdatedAt());
+                });
+    }
+}
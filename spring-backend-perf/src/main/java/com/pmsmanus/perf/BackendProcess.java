@@ -0,0 +1,90 @@
+package com.pmsmanus.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Runs the packaged backend in a child JVM against an in-memory H2 database. */
+final class BackendProcess implements AutoCloseable {
+    private final Process process;
+    private final String baseUrl;
+
+    private BackendProcess(Process process, String baseUrl) {
+        this.process = process;
+        this.baseUrl = baseUrl;
+    }
+
+    static BackendProcess start(Path jar, int port, String name, Map<String, String> extraEnv, List<String> args)
+            throws IOException, InterruptedException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Backend jar not found at " + jar
+                    + "; run mvn -f ../spring-backend/pom.xml -DskipTests package first");
+        }
+        Path dir = Files.createDirectories(Path.of("target", "runs", name));
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java));
+        String jvmArgs = System.getProperty("pms.perf.backend-jvm-args", "").trim();
+        if (!jvmArgs.isEmpty()) command.addAll(List.of(jvmArgs.split("\\s+")));
+        command.addAll(List.of("-jar", jar.toString()));
+        command.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        command.addAll(args);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("backend.log").toFile());
+        Map<String, String> env = builder.environment();
+        env.put("SERVER_PORT", String.valueOf(port));
+        env.put("SPRING_DATASOURCE_URL",
+                "jdbc:h2:mem:pms;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE");
+        env.put("SPRING_DATASOURCE_DRIVER_CLASS_NAME", "org.h2.Driver");
+        env.put("SPRING_DATASOURCE_USERNAME", "sa");
+        env.put("SPRING_DATASOURCE_PASSWORD", "");
+        env.put("PMS_STORAGE_ROOT", dir.resolve("blobs").toAbsolutePath().toString());
+        env.putAll(extraEnv);
+
+        BackendProcess backend = new BackendProcess(builder.start(), "http://localhost:" + port);
+        backend.awaitHealthy(Duration.ofMinutes(2));
+        return backend;
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    private void awaitHealthy(Duration timeout) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Backend exited with " + process.exitValue() + "; see backend.log");
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        close();
+        throw new IllegalStateException("Backend did not become healthy within " + timeout);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(20, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
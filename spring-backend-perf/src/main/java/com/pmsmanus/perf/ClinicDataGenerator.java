@@ -0,0 +1,135 @@
+package com.pmsmanus.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+
+/**
+ * Seeds patients and appointments through the NDJSON import endpoint. Lines are
+ * generated while the request body is being sent, so millions of rows never
+ * sit in memory. Appointments take three of every four 15 minute slots from
+ * 08:00 in each doctor's day, on consecutive days centred on today, so they
+ * never overlap and every day still has free slots to book.
+ */
+final class ClinicDataGenerator {
+    static final String[] FIRST_NAMES = {"Maria", "James", "Anna", "Mohammed", "Wei", "Olga", "Carlos", "Priya",
+            "John", "Fatima", "Lucas", "Marta", "Kenji", "Amara", "Noah", "Sofia", "Daniel", "Elena", "Omar", "Grace"};
+    static final String[] LAST_NAMES = {"Garcia", "Smith", "Kowalski", "Khan", "Chen", "Ivanova", "Silva", "Patel",
+            "Brown", "Haddad", "Martin", "Novak", "Tanaka", "Okafor", "Miller", "Rossi", "Jensen", "Costa"};
+    static final int SLOTS_PER_DAY = 40;
+    static final int BOOKED_PER_DAY = SLOTS_PER_DAY * 3 / 4;
+    static final int SLOT_MINUTES = 15;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int doctors;
+
+    ClinicDataGenerator(HttpClient client, String baseUrl, int doctors) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.doctors = doctors;
+    }
+
+    /** Days covered by {@code appointments}; the first one is {@link #firstDay}. */
+    int days(int appointments) {
+        return Math.max(1, (appointments + doctors * BOOKED_PER_DAY - 1) / (doctors * BOOKED_PER_DAY));
+    }
+
+    LocalDate firstDay(int appointments) {
+        return LocalDate.now().minusDays(days(appointments) / 2);
+    }
+
+    void seed(int patients, int appointments) throws IOException, InterruptedException {
+        if (patients > 0) post("patients", patients, this::patient);
+        if (appointments > 0) {
+            LocalDate first = firstDay(appointments);
+            LocalDate today = LocalDate.now();
+            post("appointments", appointments, i -> appointment(i, patients, first, today));
+        }
+    }
+
+    private String patient(int i) {
+        String first = FIRST_NAMES[i % FIRST_NAMES.length];
+        String last = LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+        return String.format("{\"patientId\":\"CD%08d\",\"firstName\":\"%s\",\"lastName\":\"%s\","
+                        + "\"email\":\"%s.%s%d@example.com\",\"phone\":\"555-%03d-%04d\",\"city\":\"Springfield\"}%n",
+                i + 1, first, last, first.toLowerCase(), last.toLowerCase(), i, i % 1000, i / 1000 % 10000);
+    }
+
+    private String appointment(int i, int patients, LocalDate first, LocalDate today) {
+        int perDay = doctors * BOOKED_PER_DAY;
+        LocalDate date = first.plusDays(i / perDay);
+        int booked = i % perDay / doctors;
+        int slot = booked + booked / 3;
+        int minute = 8 * 60 + slot * SLOT_MINUTES;
+        String status = !date.isBefore(today) ? "scheduled" : i % 10 == 0 ? "cancelled" : "completed";
+        return String.format("{\"appointmentId\":\"CDA%09d\",\"patientId\":%d,\"doctorId\":%d,"
+                        + "\"appointmentDate\":\"%s\",\"appointmentTime\":\"%02d:%02d:00\",\"duration\":%d,"
+                        + "\"status\":\"%s\",\"reason\":\"Follow-up\"}%n",
+                i + 1, 1 + i % Math.max(patients, 1), 1 + i % doctors, date, minute / 60, minute % 60,
+                SLOT_MINUTES, status);
+    }
+
+    private void post(String kind, int count, IntFunction<String> line) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/import/" + kind + "?importId=clinic-day-" + kind))
+                .timeout(Duration.ofHours(2))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new LineStream(count, line)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding " + kind + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        System.out.printf("seeded %,d %s in %.1f s%n", count, kind, (System.nanoTime() - started) / 1e9);
+    }
+
+    /** Renders lines on demand as the HTTP client reads the body. */
+    private static final class LineStream extends InputStream {
+        private final int count;
+        private final IntFunction<String> line;
+        private byte[] current = new byte[0];
+        private int position;
+        private int next;
+
+        LineStream(int count, IntFunction<String> line) {
+            this.count = count;
+            this.line = line;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) return -1;
+            return current[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            int read = 0;
+            while (read < len && fill()) {
+                int n = Math.min(len - read, current.length - position);
+                System.arraycopy(current, position, b, off + read, n);
+                position += n;
+                read += n;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        private boolean fill() {
+            while (position == current.length) {
+                if (next == count) return false;
+                current = line.apply(next++).getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.pmsmanus.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives the REST API with a model of a clinic day: front-desk search bursts
+ * while typing a name, chart views, the today board, booking into a free slot,
+ * status changes and report views. Each simulated user picks actions from a
+ * weighted mix in a closed loop; latencies are reported per endpoint.
+ */
+public final class ClinicDayLoadTest {
+    private static final Pattern FIRST_START = Pattern.compile("\"start\"\\s*:\\s*\"([0-9:]+)\"");
+    private static final Map<String, Integer> DEFAULT_MIX = Map.of(
+            "search", 35, "chart", 20, "today", 10, "book", 10, "status", 15, "report", 10);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final int users = Integer.getInteger("pms.perf.users", 32);
+    private final int seconds = Integer.getInteger("pms.perf.seconds", 60);
+    private final int warmupSeconds = Integer.getInteger("pms.perf.warmup-seconds", 10);
+    private final int thinkMillis = Integer.getInteger("pms.perf.think-ms", 0);
+    private final int patients = Integer.getInteger("pms.perf.patients", 20_000);
+    private final int appointments = Integer.getInteger("pms.perf.appointments", 50_000);
+    private final int doctors = Integer.getInteger("pms.perf.doctors", 20);
+    private final int port = Integer.getInteger("pms.perf.port", 3950);
+    private final String externalUrl = System.getProperty("pms.perf.base-url", "");
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger bookings = new AtomicInteger();
+    private final String[] actions;
+    private final int[] cumulativeWeights;
+
+    private ClinicDayLoadTest() {
+        Map<String, Integer> mix = parseMix(System.getProperty("pms.perf.mix", ""));
+        actions = mix.keySet().toArray(new String[0]);
+        cumulativeWeights = new int[actions.length];
+        int total = 0;
+        for (int i = 0; i < actions.length; i++) {
+            total += mix.get(actions[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(System.getProperty("pms.perf.jar",
+                "../spring-backend/target/spring-backend-0.0.1-SNAPSHOT.jar"));
+        new ClinicDayLoadTest().run(jar);
+    }
+
+    private void run(Path jar) throws Exception {
+        if (!externalUrl.isEmpty()) {
+            drive(externalUrl);
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        String tomcatThreads = System.getProperty("pms.perf.tomcat-threads");
+        if (tomcatThreads != null) args.add("--server.tomcat.threads.max=" + tomcatThreads);
+        try (BackendProcess backend = BackendProcess.start(jar, port, "clinic-day", Map.of(), args)) {
+            new ClinicDataGenerator(client, backend.baseUrl(), doctors).seed(patients, appointments);
+            drive(backend.baseUrl());
+        }
+    }
+
+    private void drive(String baseUrl) throws Exception {
+        if (warmupSeconds > 0) {
+            System.out.printf("warming up for %d s%n", warmupSeconds);
+            load(baseUrl, Duration.ofSeconds(warmupSeconds));
+        }
+        System.out.printf("running %d users for %d s%n", users, seconds);
+        Map<String, LatencyRecorder.Summary> results = load(baseUrl, Duration.ofSeconds(seconds));
+        report(results);
+    }
+
+    private Map<String, LatencyRecorder.Summary> load(String baseUrl, Duration duration) throws Exception {
+        List<Map<String, LatencyRecorder>> perUser = new ArrayList<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                Map<String, LatencyRecorder> recorders = new TreeMap<>();
+                perUser.add(recorders);
+                tasks.add(threads.submit(() -> user(baseUrl, deadline, recorders)));
+            }
+            for (Future<?> task : tasks) task.get();
+        }
+        Map<String, List<LatencyRecorder>> byEndpoint = new TreeMap<>();
+        for (Map<String, LatencyRecorder> recorders : perUser) {
+            recorders.forEach((endpoint, r) -> byEndpoint.computeIfAbsent(endpoint, k -> new ArrayList<>()).add(r));
+        }
+        double elapsed = duration.toNanos() / 1e9;
+        Map<String, LatencyRecorder.Summary> summaries = new LinkedHashMap<>();
+        byEndpoint.forEach((endpoint, recorders) -> summaries.put(endpoint, LatencyRecorder.summarize(recorders, elapsed)));
+        List<LatencyRecorder> all = new ArrayList<>();
+        byEndpoint.values().forEach(all::addAll);
+        summaries.put("all", LatencyRecorder.summarize(all, elapsed));
+        return summaries;
+    }
+
+    private void user(String baseUrl, long deadline, Map<String, LatencyRecorder> recorders) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Session session = new Session(baseUrl, recorders);
+        try {
+            while (System.nanoTime() < deadline) {
+                switch (pick(random)) {
+                    case "search" -> searchBurst(session, random);
+                    case "chart" -> session.call("GET /api/patients/{id}/chart",
+                            get(baseUrl + "/api/patients/" + patientId(random) + "/chart"), 200);
+                    case "today" -> session.call("GET /api/appointments/today",
+                            get(baseUrl + "/api/appointments/today"), 200);
+                    case "book" -> book(session, random);
+                    case "status" -> session.call("PUT /api/appointments/{id}/status",
+                            put(baseUrl + "/api/appointments/" + (1 + random.nextInt(Math.max(appointments, 1))) + "/status",
+                                    "{\"status\":\"" + (random.nextBoolean() ? "completed" : "scheduled") + "\"}"),
+                            200, 409);
+                    case "report" -> {
+                        if (random.nextInt(4) == 0) {
+                            session.call("GET /api/reports/monthly", get(baseUrl + "/api/reports/monthly"), 200);
+                        } else {
+                            LocalDate day = LocalDate.now().minusDays(random.nextInt(30));
+                            session.call("GET /api/reports/daily", get(baseUrl + "/api/reports/daily?date=" + day), 200);
+                        }
+                    }
+                    default -> throw new IllegalStateException();
+                }
+                if (thinkMillis > 0) Thread.sleep(random.nextInt(thinkMillis * 2 + 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** The search box fires on each keystroke after the second character. */
+    private void searchBurst(Session session, ThreadLocalRandom random) throws InterruptedException {
+        String name = random.nextBoolean()
+                ? ClinicDataGenerator.FIRST_NAMES[random.nextInt(ClinicDataGenerator.FIRST_NAMES.length)]
+                : ClinicDataGenerator.LAST_NAMES[random.nextInt(ClinicDataGenerator.LAST_NAMES.length)];
+        name = name.toLowerCase();
+        for (int length = 2; length <= Math.min(name.length(), 5); length++) {
+            session.call("GET /api/patients/search",
+                    get(session.baseUrl + "/api/patients/search?limit=20&query=" + name.substring(0, length)), 200);
+        }
+    }
+
+    /** Looks up free slots for a doctor in the coming days and books the first one. */
+    private void book(Session session, ThreadLocalRandom random) throws InterruptedException {
+        int doctor = 1 + random.nextInt(doctors);
+        LocalDate date = LocalDate.now().plusDays(1 + random.nextInt(14));
+        String body = session.call("GET /api/appointments/availability",
+                get(session.baseUrl + "/api/appointments/availability?doctorId=" + doctor + "&date=" + date
+                        + "&duration=" + ClinicDataGenerator.SLOT_MINUTES), 200);
+        if (body == null) return;
+        Matcher start = FIRST_START.matcher(body);
+        if (!start.find()) return;
+        String json = String.format("{\"appointmentId\":\"LD-%s-%d\",\"patientId\":%d,\"doctorId\":%d,"
+                        + "\"appointmentDate\":\"%s\",\"appointmentTime\":\"%s\",\"duration\":%d,\"status\":\"scheduled\"}",
+                runId, bookings.incrementAndGet(), patientId(random), doctor,
+                date, start.group(1), ClinicDataGenerator.SLOT_MINUTES);
+        session.call("POST /api/appointments", post(session.baseUrl + "/api/appointments", json), 200, 409);
+    }
+
+    private int patientId(ThreadLocalRandom random) {
+        return 1 + random.nextInt(Math.max(patients, 1));
+    }
+
+    private String pick(ThreadLocalRandom random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) return actions[i];
+        }
+        return actions[actions.length - 1];
+    }
+
+    private void report(Map<String, LatencyRecorder.Summary> results) throws IOException {
+        System.out.printf("%nusers=%d duration=%ds think=%dms patients=%d appointments=%d cpus=%d%n",
+                users, seconds, thinkMillis, patients, appointments, Runtime.getRuntime().availableProcessors());
+        String header = String.format("%-36s %8s %7s %9s %9s %9s %9s %9s",
+                "endpoint", "ok", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        System.out.println(header);
+        StringBuilder csv = new StringBuilder("endpoint,ok,errors,throughput,p50_ms,p95_ms,p99_ms,max_ms\n");
+        results.forEach((endpoint, s) -> {
+            System.out.printf("%-36s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", endpoint, s.ok(), s.errors(),
+                    s.throughput(), s.p50Millis(), s.p95Millis(), s.p99Millis(), s.maxMillis());
+            csv.append(String.format("%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n", endpoint, s.ok(), s.errors(),
+                    s.throughput(), s.p50Millis(), s.p95Millis(), s.p99Millis(), s.maxMillis()));
+        });
+        Path out = Path.of("target", "runs", "clinic-day", "summary.csv");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, csv);
+        System.out.println("\nwritten to " + out);
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        if (spec.isBlank()) return new TreeMap<>(DEFAULT_MIX);
+        Map<String, Integer> mix = new TreeMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (!DEFAULT_MIX.containsKey(kv[0])) throw new IllegalArgumentException("Unknown action in mix: " + kv[0]);
+            int weight = Integer.parseInt(kv[1]);
+            if (weight > 0) mix.put(kv[0], weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("pms.perf.mix has no positive weights");
+        return mix;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10)).build();
+    }
+
+    private static HttpRequest put(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    /** One user's client side: sends a call and files its latency under the endpoint name. */
+    private final class Session {
+        final String baseUrl;
+        private final Map<String, LatencyRecorder> recorders;
+
+        Session(String baseUrl, Map<String, LatencyRecorder> recorders) {
+            this.baseUrl = baseUrl;
+            this.recorders = recorders;
+        }
+
+        /** Returns the body when the status is one of {@code accepted}, otherwise null. */
+        String call(String endpoint, HttpRequest request, int... accepted) throws InterruptedException {
+            LatencyRecorder recorder = recorders.computeIfAbsent(endpoint, k -> new LatencyRecorder());
+            long started = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                for (int status : accepted) {
+                    if (response.statusCode() == status) {
+                        recorder.record(System.nanoTime() - started);
+                        return response.body();
+                    }
+                }
+            } catch (IOException e) {
+                // counted below
+            }
+            recorder.error();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.pmsmanus.perf;
+
+import java.util.Arrays;
+
+/** Per-thread latency samples in nanoseconds; merge after the run, not during it. */
+final class LatencyRecorder {
+    private long[] samples = new long[4096];
+    private int size;
+    private int errors;
+
+    void record(long nanos) {
+        if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+        samples[size++] = nanos;
+    }
+
+    void error() {
+        errors++;
+    }
+
+    static Summary summarize(Iterable<LatencyRecorder> recorders, double seconds) {
+        int total = 0;
+        int errors = 0;
+        for (LatencyRecorder r : recorders) {
+            total += r.size;
+            errors += r.errors;
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (LatencyRecorder r : recorders) {
+            System.arraycopy(r.samples, 0, all, at, r.size);
+            at += r.size;
+        }
+        Arrays.sort(all);
+        return new Summary(total, errors, total / seconds,
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    record Summary(int ok, int errors, double throughput, double p50Millis, double p95Millis, double p99Millis,
+                   double maxMillis) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.pmsmanus.perf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for Google's sign-in endpoints. {@code /token} answers after a fixed
+ * delay with an RS256 ID token signed by a key generated at startup, and
+ * {@code /certs} publishes that key, so the backend verifies tokens exactly as
+ * it does Google's. Handlers run on platform threads so the stub does not
+ * compete with the load generator's virtual threads for carriers.
+ */
+final class StubUpstream implements AutoCloseable {
+    static final String CLIENT_ID = "load-test";
+    private static final String KEY_ID = "stub-1";
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final HttpServer server;
+    private final KeyPair keys;
+    private final AtomicLong subjects = new AtomicLong();
+    private final AtomicLong certFetches = new AtomicLong();
+
+    StubUpstream(int port, long delayMillis) throws IOException {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            keys = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/token", exchange -> reply(exchange, delayMillis,
+                "{\"id_token\":\"" + idToken() + "\",\"token_type\":\"Bearer\"}"));
+        server.createContext("/certs", exchange -> {
+            certFetches.incrementAndGet();
+            reply(exchange, 0, jwks());
+        });
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /** The issuer the stub signs into its tokens; the backend must accept it. */
+    String issuer() {
+        return baseUrl();
+    }
+
+    long certFetches() {
+        return certFetches.get();
+    }
+
+    private String idToken() {
+        long now = System.currentTimeMillis() / 1000;
+        long sub = subjects.incrementAndGet();
+        String header = "{\"alg\":\"RS256\",\"kid\":\"" + KEY_ID + "\",\"typ\":\"JWT\"}";
+        String claims = "{\"iss\":\"" + issuer() + "\",\"aud\":\"" + CLIENT_ID + "\",\"sub\":\"" + sub + "\","
+                + "\"email\":\"load" + sub + "@example.com\",\"email_verified\":true,\"name\":\"Load Test\","
+                + "\"iat\":" + now + ",\"exp\":" + (now + 3600) + "}";
+        String signingInput = encode(header) + "." + encode(claims);
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(keys.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + BASE64URL.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String jwks() {
+        RSAPublicKey key = (RSAPublicKey) keys.getPublic();
+        return "{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"" + KEY_ID + "\","
+                + "\"n\":\"" + unsigned(key.getModulus()) + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}]}";
+    }
+
+    private static String encode(String json) {
+        return BASE64URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int skip = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        return BASE64URL.encodeToString(Arrays.copyOfRange(bytes, skip, bytes.length));
+    }
+
+    private static void reply(HttpExchange exchange, long delayMillis, String json) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            if (delayMillis > 0) Thread.sleep(delayMillis);
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,204 @@
+package com.pmsmanus.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares platform-thread and virtual-thread request handling. Each mode runs
+ * a read-only workload alone, then again alongside Google sign-in callbacks
+ * whose token exchange goes to a stub upstream with a fixed delay; those
+ * callbacks are what hold request threads at peak check-in.
+ */
+public final class VirtualThreadLoadTest {
+    private static final Pattern STATE = Pattern.compile("[?&]state=([^&\"]+)");
+    private static final Pattern LOGIN = Pattern.compile("pms_login=([^;]+)");
+    private static final int PATIENTS = 2000;
+    private static final int APPOINTMENTS_TODAY = 300;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final int workers = Integer.getInteger("pms.perf.workers", 16);
+    private final int oauthClients = Integer.getInteger("pms.perf.oauth-clients", 300);
+    private final int upstreamDelay = Integer.getInteger("pms.perf.upstream-delay-ms", 200);
+    private final int seconds = Integer.getInteger("pms.perf.seconds", 15);
+    private final int tomcatThreads = Integer.getInteger("pms.perf.tomcat-threads", 200);
+    private final int port = Integer.getInteger("pms.perf.port", 3950);
+    private final List<String> modes = List.of(System.getProperty("pms.perf.modes", "platform,virtual").split(","));
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(System.getProperty("pms.perf.jar",
+                "../spring-backend/target/spring-backend-0.0.1-SNAPSHOT.jar"));
+        new VirtualThreadLoadTest().run(jar);
+    }
+
+    private void run(Path jar) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (StubUpstream upstream = new StubUpstream(port + 1, upstreamDelay)) {
+            Map<String, String> env = Map.of(
+                    "GOOGLE_CLIENT_ID", StubUpstream.CLIENT_ID,
+                    "GOOGLE_CLIENT_SECRET", "load-test",
+                    "GOOGLE_TOKEN_URI", upstream.baseUrl() + "/token",
+                    "GOOGLE_JWKS_URI", upstream.baseUrl() + "/certs",
+                    "GOOGLE_ISSUERS", upstream.issuer(),
+                    "PMS_AUTH_STORE", "token",
+                    "PMS_AUTH_SECRETS", "load-test");
+            for (String mode : modes) {
+                boolean virtual = mode.equals("virtual");
+                List<String> args = List.of(
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--server.tomcat.threads.max=" + tomcatThreads);
+                try (BackendProcess backend = BackendProcess.start(jar, port, mode, env, args)) {
+                    String baseUrl = backend.baseUrl();
+                    seed(baseUrl);
+                    load(baseUrl, 0, Duration.ofSeconds(3));
+                    List<LatencyRecorder.Summary> alone = load(baseUrl, 0, Duration.ofSeconds(seconds));
+                    rows.add(row(mode, "reads", "reads", alone.get(0)));
+                    List<LatencyRecorder.Summary> mixed = load(baseUrl, oauthClients, Duration.ofSeconds(seconds));
+                    rows.add(row(mode, "reads+oauth", "reads", mixed.get(0)));
+                    rows.add(row(mode, "reads+oauth", "oauth", mixed.get(1)));
+                }
+            }
+            System.out.printf("%nsigning key fetches across all runs: %d%n", upstream.certFetches());
+        }
+        System.out.printf("%nworkers=%d oauth-clients=%d upstream-delay=%dms duration=%ds tomcat-threads=%d cpus=%d%n",
+                workers, oauthClients, upstreamDelay, seconds, tomcatThreads, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-9s %-12s %-6s %9s %7s %9s %9s %9s %9s%n",
+                "mode", "scenario", "calls", "ok", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        rows.forEach(System.out::println);
+    }
+
+    private static String row(String mode, String scenario, String calls, LatencyRecorder.Summary s) {
+        return String.format("%-9s %-12s %-6s %9d %7d %9.1f %9.1f %9.1f %9.1f",
+                mode, scenario, calls, s.ok(), s.errors(), s.throughput(), s.p50Millis(), s.p99Millis(), s.maxMillis());
+    }
+
+    private void seed(String baseUrl) throws IOException, InterruptedException {
+        StringBuilder patients = new StringBuilder();
+        for (int i = 1; i <= PATIENTS; i++) {
+            patients.append(String.format(
+                    "{\"patientId\":\"LT%05d\",\"firstName\":\"Load%d\",\"lastName\":\"Test\",\"phone\":\"555%07d\"}%n",
+                    i, i, i));
+        }
+        post(baseUrl + "/api/import/patients?importId=lt-patients", patients.toString());
+        StringBuilder appointments = new StringBuilder();
+        String today = LocalDate.now().toString();
+        for (int i = 1; i <= APPOINTMENTS_TODAY; i++) {
+            appointments.append(String.format(
+                    "{\"appointmentId\":\"LTA%05d\",\"patientId\":%d,\"appointmentDate\":\"%s\",\"appointmentTime\":\"%02d:%02d:00\"}%n",
+                    i, i, today, 8 + i / 60 % 10, i % 60));
+        }
+        post(baseUrl + "/api/import/appointments?importId=lt-appointments", appointments.toString());
+    }
+
+    private void post(String url, String ndjson) throws IOException, InterruptedException {
+        HttpResponse<String> r = client.send(HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson)).build(), HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 200) throw new IllegalStateException("Seeding failed: " + r.body());
+    }
+
+    /** Runs read workers and {@code oauth} sign-in clients together; returns [reads, oauth]. */
+    private List<LatencyRecorder.Summary> load(String baseUrl, int oauth, Duration duration) throws Exception {
+        List<LatencyRecorder> reads = new ArrayList<>();
+        List<LatencyRecorder> signIns = new ArrayList<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < oauth; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                signIns.add(recorder);
+                tasks.add(threads.submit(() -> signIn(baseUrl, deadline, recorder)));
+            }
+            for (int i = 0; i < workers; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                reads.add(recorder);
+                tasks.add(threads.submit(() -> read(baseUrl, deadline, recorder)));
+            }
+            for (Future<?> task : tasks) task.get();
+        }
+        double elapsed = duration.toNanos() / 1e9;
+        return List.of(LatencyRecorder.summarize(reads, elapsed), LatencyRecorder.summarize(signIns, elapsed));
+    }
+
+    private void read(String baseUrl, long deadline, LatencyRecorder recorder) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String path = switch (random.nextInt(3)) {
+                case 0 -> "/api/patients/page?limit=20";
+                case 1 -> "/api/appointments/today";
+                default -> "/api/patients/" + (1 + random.nextInt(PATIENTS));
+            };
+            long started = System.nanoTime();
+            try {
+                int status = client.send(get(baseUrl + path, null), HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    recorder.record(System.nanoTime() - started);
+                } else {
+                    recorder.error();
+                }
+            } catch (IOException e) {
+                recorder.error();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /** Starts a sign-in to obtain the login cookie and state, then completes the callback. */
+    private void signIn(String baseUrl, long deadline, LatencyRecorder recorder) {
+        while (System.nanoTime() < deadline) {
+            long started = System.nanoTime();
+            try {
+                HttpResponse<String> login = client.send(
+                        get(baseUrl + "/api/oauth/google/login?json=1", null), HttpResponse.BodyHandlers.ofString());
+                Matcher state = STATE.matcher(login.body());
+                Matcher pending = LOGIN.matcher(login.headers().firstValue("Set-Cookie").orElse(""));
+                if (login.statusCode() != 200 || !state.find() || !pending.find()) {
+                    recorder.error();
+                    continue;
+                }
+                HttpResponse<Void> callback = client.send(
+                        get(baseUrl + "/api/oauth/google/callback?code=load&state=" + state.group(1),
+                                "pms_login=" + pending.group(1)),
+                        HttpResponse.BodyHandlers.discarding());
+                boolean signedIn = callback.headers().allValues("Set-Cookie").stream()
+                        .anyMatch(c -> c.startsWith("pms_auth="));
+                if (callback.statusCode() == 302 && signedIn) {
+                    recorder.record(System.nanoTime() - started);
+                } else {
+                    recorder.error();
+                }
+            } catch (IOException e) {
+                recorder.error();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static HttpRequest get(String url, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5));
+        if (cookie != null) builder.header("Cookie", cookie);
+        return builder.build();
+    }
+}
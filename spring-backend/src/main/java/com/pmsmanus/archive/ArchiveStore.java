@@ -0,0 +1,223 @@
+package com.pmsmanus.archive;
+
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Prescription;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads the cold tier that {@link Archiver} fills. Hot-path queries stay on
+ * {@code appointments} and {@code prescriptions}; the lookups that must see a
+ * patient's whole history, a past date or an old id add what is found here.
+ * The newest archived appointment date and prescription creation time are
+ * kept so that queries whose answer is already complete without the archive
+ * never touch it; they are re-read periodically to pick up moves made by other
+ * nodes.
+ */
+@Component
+public class ArchiveStore {
+    private static final String APPOINTMENT_COLUMNS = "id, appointment_id, patient_id, doctor_id, appointment_date, "
+            + "appointment_time, duration, status, reason, created_at, updated_at";
+    private static final Comparator<AppointmentSummary> NEWEST_FIRST = Comparator
+            .comparing(AppointmentSummary::appointmentDate, Comparator.reverseOrder())
+            .thenComparing(AppointmentSummary::appointmentTime, Comparator.reverseOrder());
+    private static final Comparator<Prescription> NEWEST_CREATED_FIRST = Comparator
+            .comparing(Prescription::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate named;
+    private volatile LocalDate newestAppointmentDate;
+    private volatile LocalDateTime newestPrescriptionCreatedAt;
+
+    public ArchiveStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.named = new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pms.archive.bounds-refresh:1m}", initialDelayString = "${pms.archive.bounds-refresh:1m}")
+    public void refreshBounds() {
+        newestAppointmentDate = jdbc.queryForObject("select max(appointment_date) from appointments_archive",
+                LocalDate.class);
+        newestPrescriptionCreatedAt = jdbc.queryForObject("select max(created_at) from prescriptions_archive",
+                LocalDateTime.class);
+    }
+
+    /** A patient's appointments from both tiers, newest first. */
+    public List<AppointmentSummary> appointmentsForPatient(Integer patientId, List<AppointmentSummary> hot) {
+        if (newestAppointmentDate == null) return hot;
+        List<AppointmentSummary> all = new ArrayList<>(hot);
+        all.addAll(jdbc.query("select " + APPOINTMENT_COLUMNS + " from appointments_archive where patient_id = ? "
+                + "order by appointment_date desc, appointment_time desc", ArchiveStore::summary, patientId));
+        all.sort(NEWEST_FIRST);
+        return all;
+    }
+
+    /** The newest {@code limit} appointments of a patient, given that many from the hot table. */
+    public List<AppointmentSummary> appointmentsForPatient(Integer patientId, List<AppointmentSummary> hot, int limit) {
+        LocalDate newest = newestAppointmentDate;
+        if (newest == null || limit == 0) return hot;
+        if (hot.size() >= limit && hot.get(hot.size() - 1).appointmentDate().isAfter(newest)) return hot;
+        List<AppointmentSummary> all = new ArrayList<>(hot);
+        all.addAll(jdbc.query("select " + APPOINTMENT_COLUMNS + " from appointments_archive where patient_id = ? "
+                        + "order by appointment_date desc, appointment_time desc limit ?",
+                ArchiveStore::summary, patientId, limit));
+        all.sort(NEWEST_FIRST);
+        return all.size() > limit ? all.subList(0, limit) : all;
+    }
+
+    /** All appointments on {@code date}, by time, given those in the hot table. */
+    public List<AppointmentSummary> appointmentsOn(LocalDate date, List<AppointmentSummary> hot) {
+        LocalDate newest = newestAppointmentDate;
+        if (newest == null || date.isAfter(newest)) return hot;
+        List<AppointmentSummary> all = new ArrayList<>(hot);
+        all.addAll(jdbc.query("select " + APPOINTMENT_COLUMNS + " from appointments_archive where appointment_date = ? "
+                + "order by appointment_time", ArchiveStore::summary, Date.valueOf(date)));
+        all.sort(Comparator.comparing(AppointmentSummary::appointmentTime));
+        return all;
+    }
+
+    public Optional<Appointment> appointment(Integer id) {
+        if (newestAppointmentDate == null) return Optional.empty();
+        return jdbc.query("select " + APPOINTMENT_COLUMNS + ", notes from appointments_archive where id = ?",
+                ArchiveStore::appointment, id).stream().findFirst();
+    }
+
+    public List<String> existingAppointmentIds(Collection<String> appointmentIds) {
+        if (appointmentIds.isEmpty() || newestAppointmentDate == null) return List.of();
+        return named.queryForList("select appointment_id from appointments_archive where appointment_id in (:ids)",
+                Map.of("ids", appointmentIds), String.class);
+    }
+
+    public LocalDate oldestAppointmentDate() {
+        return jdbc.queryForObject("select min(appointment_date) from appointments_archive", LocalDate.class);
+    }
+
+    /**
+     * Archived appointments per day, doctor and status between {@code from}
+     * and {@code to} inclusive, for rebuilding stat rollups. Read directly
+     * rather than through the cached bounds, which may not be loaded yet.
+     */
+    public List<DayCount> appointmentCounts(LocalDate from, LocalDate to) {
+        return jdbc.query("select appointment_date, doctor_id, status, count(*) from appointments_archive "
+                        + "where appointment_date between ? and ? group by appointment_date, doctor_id, status",
+                (rs, i) -> new DayCount(rs.getDate(1).toLocalDate(), rs.getObject(2, Integer.class),
+                        rs.getString(3), rs.getLong(4)),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /** A patient's prescriptions from both tiers, newest first. */
+    public List<Prescription> prescriptionsForPatient(Integer patientId, List<Prescription> hot) {
+        if (newestPrescriptionCreatedAt == null) return hot;
+        List<Prescription> all = new ArrayList<>(hot);
+        all.addAll(jdbc.query("select * from prescriptions_archive where patient_id = ? order by created_at desc",
+                ArchiveStore::prescription, patientId));
+        all.sort(NEWEST_CREATED_FIRST);
+        return all;
+    }
+
+    /** The newest {@code limit} prescriptions of a patient, given that many from the hot table. */
+    public List<Prescription> prescriptionsForPatient(Integer patientId, List<Prescription> hot, int limit) {
+        LocalDateTime newest = newestPrescriptionCreatedAt;
+        if (newest == null || limit == 0) return hot;
+        LocalDateTime oldestHot = hot.isEmpty() ? null : hot.get(hot.size() - 1).getCreatedAt();
+        if (hot.size() >= limit && oldestHot != null && oldestHot.isAfter(newest)) return hot;
+        List<Prescription> all = new ArrayList<>(hot);
+        all.addAll(jdbc.query("select * from prescriptions_archive where patient_id = ? order by created_at desc limit ?",
+                ArchiveStore::prescription, patientId, limit));
+        all.sort(NEWEST_CREATED_FIRST);
+        return all.size() > limit ? all.subList(0, limit) : all;
+    }
+
+    void archivedAppointmentsUpTo(LocalDate date) {
+        if (date != null && (newestAppointmentDate == null || date.isAfter(newestAppointmentDate))) {
+            newestAppointmentDate = date;
+        }
+    }
+
+    void archivedPrescriptionsUpTo(LocalDateTime createdAt) {
+        if (createdAt != null && (newestPrescriptionCreatedAt == null || createdAt.isAfter(newestPrescriptionCreatedAt))) {
+            newestPrescriptionCreatedAt = createdAt;
+        }
+    }
+
+    private static AppointmentSummary summary(ResultSet rs, int row) throws SQLException {
+        return new AppointmentSummary(rs.getInt("id"), rs.getString("appointment_id"), rs.getInt("patient_id"),
+                rs.getObject("doctor_id", Integer.class), rs.getObject("appointment_date", LocalDate.class),
+                time(rs.getTime("appointment_time")), rs.getObject("duration", Integer.class), rs.getString("status"),
+                rs.getString("reason"), timestamp(rs.getTimestamp("created_at")),
+                timestamp(rs.getTimestamp("updated_at")));
+    }
+
+    private static Appointment appointment(ResultSet rs, int row) throws SQLException {
+        Appointment a = new Appointment();
+        a.setId(rs.getInt("id"));
+        a.setAppointmentId(rs.getString("appointment_id"));
+        a.setPatientId(rs.getInt("patient_id"));
+        a.setDoctorId(rs.getObject("doctor_id", Integer.class));
+        a.setAppointmentDate(rs.getObject("appointment_date", LocalDate.class));
+        a.setAppointmentTime(time(rs.getTime("appointment_time")));
+        a.setDuration(rs.getObject("duration", Integer.class));
+        a.setStatus(rs.getString("status"));
+        a.setReason(rs.getString("reason"));
+        a.setNotes(rs.getString("notes"));
+        a.setCreatedAt(timestamp(rs.getTimestamp("created_at")));
+        a.setUpdatedAt(timestamp(rs.getTimestamp("updated_at")));
+        return a;
+    }
+
+    private static Prescription prescription(ResultSet rs, int row) throws SQLException {
+        Prescription p = new Prescription();
+        p.setId(rs.getInt("id"));
+        p.setPrescriptionId(rs.getString("prescription_id"));
+        p.setVisitId(rs.getInt("visit_id"));
+        p.setPatientId(rs.getInt("patient_id"));
+        p.setDoctorId(rs.getObject("doctor_id", Integer.class));
+        p.setMedicationName(rs.getString("medication_name"));
+        p.setDosage(rs.getString("dosage"));
+        p.setFrequency(rs.getString("frequency"));
+        p.setDuration(rs.getString("duration"));
+        p.setRoute(rs.getString("route"));
+        p.setQuantity(rs.getObject("quantity", Integer.class));
+        p.setRefills(rs.getObject("refills", Integer.class));
+        p.setInstructions(rs.getString("instructions"));
+        p.setStartDate(rs.getObject("start_date", LocalDate.class));
+        p.setEndDate(rs.getObject("end_date", LocalDate.class));
+        p.setStatus(rs.getString("status"));
+        p.setCreatedAt(timestamp(rs.getTimestamp("created_at")));
+        p.setUpdatedAt(timestamp(rs.getTimestamp("updated_at")));
+        p.setVersion(rs.getLong("version"));
+        return p;
+    }
+
+    private static LocalTime time(Time t) {
+        return t == null ? null : t.toLocalTime();
+    }
+
+    private static LocalDateTime timestamp(Timestamp t) {
+        return t == null ? null : t.toLocalDateTime();
+    }
+
+    public record DayCount(LocalDate day, Integer doctorId, String status, long total) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.pmsmanus.archive;
+
+import com.pmsmanus.cluster.ChangeLog;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.repo.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Moves finished appointments and prescriptions older than
+ * {@code pms.archive.horizon-days} into the {@code *_archive} tables, so the
+ * hot tables keep only what today's screens and bookings touch. Appointments
+ * go one calendar month at a time, oldest first, along the date index;
+ * prescriptions, whose end date is often unset, by id. Each batch is copied
+ * and deleted in one transaction, so a failed run leaves every row in exactly
+ * one tier and the next run continues where it stopped.
+ *
+ * <p>The horizon is never shorter than the stat rollup reconciliation window,
+ * which recounts appointments from the hot table.
+ */
+@Component
+public class Archiver {
+    private static final Logger log = LoggerFactory.getLogger(Archiver.class);
+    private static final String APPOINTMENT_COLUMNS = "id, appointment_id, patient_id, doctor_id, appointment_date, "
+            + "appointment_time, duration, status, reason, notes, created_at, updated_at";
+    private static final String PRESCRIPTION_COLUMNS = "id, prescription_id, visit_id, patient_id, doctor_id, "
+            + "medication_name, dosage, frequency, duration, route, quantity, refills, instructions, start_date, "
+            + "end_date, status, created_at, updated_at, version";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchiveStore store;
+    private final ChangeTracker changes;
+    private final ChangeLog changeLog;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int batchSize;
+    private final List<String> appointmentStatuses;
+    private final List<String> prescriptionStatuses;
+
+    public Archiver(NamedParameterJdbcTemplate jdbc,
+                    PlatformTransactionManager transactionManager,
+                    AppointmentRepository appointmentRepository,
+                    ArchiveStore store,
+                    ChangeTracker changes,
+                    ChangeLog changeLog,
+                    @Value("${pms.archive.enabled:false}") boolean enabled,
+                    @Value("${pms.archive.horizon-days:365}") int horizonDays,
+                    @Value("${pms.archive.batch-size:1000}") int batchSize,
+                    @Value("${pms.archive.appointment-statuses:completed,cancelled}") List<String> appointmentStatuses,
+                    @Value("${pms.archive.prescription-statuses:completed,cancelled,discontinued}") List<String> prescriptionStatuses,
+                    @Value("${pms.rollup.reconcile-past-days:35}") int reconcilePastDays) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.appointmentRepository = appointmentRepository;
+        this.store = store;
+        this.changes = changes;
+        this.changeLog = changeLog;
+        this.enabled = enabled;
+        if (horizonDays <= reconcilePastDays) {
+            log.warn("pms.archive.horizon-days {} is within the rollup reconciliation window; using {}",
+                    horizonDays, reconcilePastDays + 1);
+        }
+        this.horizonDays = Math.max(horizonDays, reconcilePastDays + 1);
+        this.batchSize = Math.max(1, batchSize);
+        this.appointmentStatuses = lower(appointmentStatuses);
+        this.prescriptionStatuses = lower(prescriptionStatuses);
+    }
+
+    @Scheduled(cron = "${pms.archive.cron:0 40 2 * * *}")
+    public void archiveScheduled() {
+        if (!enabled) return;
+        try {
+            archive();
+        } catch (DataAccessException e) {
+            log.warn("Archiving stopped early, the next run continues from there", e);
+        }
+    }
+
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(horizonDays);
+        long started = System.nanoTime();
+        long appointments = archiveAppointments(cutoff);
+        long prescriptions = archivePrescriptions(cutoff);
+        if (appointments > 0) {
+            changes.touch(ChangeTracker.Kind.APPOINTMENTS);
+            changeLog.appendBulk(ChangeTracker.Kind.APPOINTMENTS, List.of(), Set.of("appointments"));
+        }
+        if (prescriptions > 0) {
+            changes.touch(ChangeTracker.Kind.PRESCRIPTIONS);
+            changeLog.appendBulk(ChangeTracker.Kind.PRESCRIPTIONS, List.of(), Set.of("prescriptions"));
+        }
+        log.info("Archived {} appointments and {} prescriptions before {} in {} ms",
+                appointments, prescriptions, cutoff, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private long archiveAppointments(LocalDate cutoff) {
+        LocalDate first = appointmentRepository.findFirstAppointmentDate();
+        if (first == null || !first.isBefore(cutoff)) return 0;
+        long total = 0;
+        for (YearMonth month = YearMonth.from(first); month.atDay(1).isBefore(cutoff); month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1).isBefore(cutoff) ? month.plusMonths(1).atDay(1) : cutoff;
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("from", Date.valueOf(from))
+                    .addValue("to", Date.valueOf(to))
+                    .addValue("statuses", appointmentStatuses)
+                    .addValue("limit", batchSize);
+            long moved = 0;
+            int batch;
+            do {
+                batch = move("appointments", APPOINTMENT_COLUMNS,
+                        "select id from appointments where appointment_date >= :from and appointment_date < :to "
+                                + "and lower(status) in (:statuses) order by appointment_date, id limit :limit for update",
+                        params).size();
+                moved += batch;
+            } while (batch == batchSize);
+            if (moved > 0) {
+                store.archivedAppointmentsUpTo(to.minusDays(1));
+                log.info("Archived {} appointments from {}", moved, month);
+            }
+            total += moved;
+        }
+        return total;
+    }
+
+    private long archivePrescriptions(LocalDate cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", Date.valueOf(cutoff))
+                .addValue("statuses", prescriptionStatuses)
+                .addValue("limit", batchSize)
+                .addValue("after", 0);
+        long total = 0;
+        while (true) {
+            List<Integer> ids = move("prescriptions", PRESCRIPTION_COLUMNS, "select id from prescriptions "
+                    + "where id > :after and coalesce(end_date, start_date) < :cutoff and lower(status) in (:statuses) "
+                    + "order by id limit :limit for update", params);
+            if (ids.isEmpty()) break;
+            total += ids.size();
+            store.archivedPrescriptionsUpTo(jdbc.queryForObject("select max(created_at) from prescriptions_archive "
+                    + "where id in (:ids)", new MapSqlParameterSource("ids", ids), LocalDateTime.class));
+            if (ids.size() < batchSize) break;
+            params.addValue("after", ids.get(ids.size() - 1));
+        }
+        return total;
+    }
+
+    /**
+     * Copies the rows {@code select} picks into the archive and deletes them,
+     * in one transaction. The rows are locked as they are picked, so archivers
+     * running on several nodes take turns instead of moving a row twice.
+     */
+    private List<Integer> move(String table, String columns, String select, MapSqlParameterSource params) {
+        List<Integer> moved = tx.execute(status -> {
+            List<Integer> ids = jdbc.queryForList(select, params, Integer.class);
+            if (ids.isEmpty()) return ids;
+            MapSqlParameterSource batch = new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+            jdbc.update("insert into " + table + "_archive (" + columns + ", archived_at) select " + columns
+                    + ", :now from " + table + " where id in (:ids)", batch);
+            jdbc.update("delete from " + table + " where id in (:ids)", batch);
+            return ids;
+        });
+        return moved == null ? List.of() : moved;
+    }
+
+    private static List<String> lower(List<String> values) {
+        return values.stream().map(v -> v.trim().toLowerCase(Locale.ROOT)).filter(v -> !v.isEmpty()).toList();
+    }
+}
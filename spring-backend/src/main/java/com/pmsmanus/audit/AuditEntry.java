@@ -0,0 +1,17 @@
+package com.pmsmanus.audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the audit trail. {@code changes} is JSON: the full record for a
+ * create or delete, {@code {"field": [before, after]}} for an update.
+ */
+public record AuditEntry(
+        Long id,
+        LocalDateTime occurredAt,
+        String actor,
+        String action,
+        String entityType,
+        Integer entityId,
+        String changes) {
+}
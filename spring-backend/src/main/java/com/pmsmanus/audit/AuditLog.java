@@ -0,0 +1,341 @@
+package com.pmsmanus.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pmsmanus.auth.AuthStore;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.event.EntityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind audit trail of committed entity changes and the signed-in user
+ * who made them. The request thread only drops the change into a bounded
+ * lock-free ring; a single writer thread turns batches of them into rows of
+ * the append-only {@code audit_log} table, one transaction per batch, when
+ * {@code pms.audit.batch-size} records are waiting or the oldest has waited
+ * {@code pms.audit.flush-interval}.
+ *
+ * <p>When the ring is full the request waits up to
+ * {@code pms.audit.offer-timeout} for the writer to make room and then gives
+ * the record to the application log instead. On shutdown the writer stops
+ * after the web server, flushes everything still queued and only then lets
+ * the data source close. Entities are not modified after their change event
+ * is published, so the diff is computed on the writer thread.
+ */
+@Component
+public class AuditLog implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final String INSERT = "INSERT INTO audit_log "
+            + "(occurred_at, actor, action, entity_type, entity_id, changes) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT id, occurred_at, actor, action, entity_type, entity_id, changes "
+            + "FROM audit_log ";
+    private static final Set<String> UNAUDITED = Set.of("updatedAt", "version");
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final AuthStore authStore;
+    private final AuditRing<Pending> ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Counter written;
+    private final Counter dropped;
+    private final Timer flushTimer;
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public AuditLog(JdbcTemplate jdbcTemplate,
+                    PlatformTransactionManager transactionManager,
+                    ObjectMapper objectMapper,
+                    MeterRegistry registry,
+                    AuthStore authStore,
+                    @Value("${pms.audit.buffer-size:8192}") int bufferSize,
+                    @Value("${pms.audit.batch-size:200}") int batchSize,
+                    @Value("${pms.audit.flush-interval:500ms}") Duration flushInterval,
+                    @Value("${pms.audit.offer-timeout:100ms}") Duration offerTimeout,
+                    @Value("${pms.audit.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.authStore = authStore;
+        this.ring = new AuditRing<>(bufferSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.written = Counter.builder("pms.audit.written")
+                .description("Audit records persisted")
+                .register(registry);
+        this.dropped = Counter.builder("pms.audit.dropped")
+                .description("Audit records logged instead of persisted because the buffer stayed full")
+                .register(registry);
+        this.flushTimer = Timer.builder("pms.audit.flush")
+                .description("Time to write one batch of audit records")
+                .register(registry);
+        Gauge.builder("pms.audit.pending", ring, AuditRing::size)
+                .description("Audit records waiting for the writer")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        String type = typeOf(event.current());
+        if (type == null) return;
+        Pending pending = new Pending(LocalDateTime.now(), currentUser(), event, type);
+        if (!running) {
+            // Before start or after stop there is no writer to hand over to.
+            if (!write(List.of(pending))) unpersisted(pending);
+            return;
+        }
+        if (ring.offer(pending)) {
+            if (ring.size() >= batchSize) LockSupport.unpark(writer);
+            return;
+        }
+        LockSupport.unpark(writer);
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(100_000);
+            if (ring.offer(pending)) return;
+        }
+        dropped.increment();
+        unpersisted(pending);
+    }
+
+    /**
+     * Writes CREATED rows for entities that a bulk import inserted, in the
+     * caller's transaction, so they commit or roll back with the chunk. Bulk
+     * inserts publish no change events, so they never reach the ring.
+     */
+    public void recordImported(List<?> entities) {
+        if (entities.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        String actor = currentUser();
+        List<Object[]> rows = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            String type = typeOf(entity);
+            if (type == null) continue;
+            EntityChangedEvent event = EntityChangedEvent.created(entity);
+            rows.add(new Object[]{Timestamp.valueOf(now), actor, event.action().name(), type, idOf(event),
+                    changes(event)});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+        written.increment(rows.size());
+    }
+
+    public List<AuditEntry> forEntity(String entityType, Integer entityId, Long before, int limit) {
+        if (before == null) {
+            return jdbcTemplate.query(SELECT + "WHERE entity_type = ? AND entity_id = ? ORDER BY id DESC LIMIT ?",
+                    AuditLog::entry, entityType, entityId, limit);
+        }
+        return jdbcTemplate.query(SELECT + "WHERE entity_type = ? AND entity_id = ? AND id < ? ORDER BY id DESC LIMIT ?",
+                AuditLog::entry, entityType, entityId, before, limit);
+    }
+
+    public List<AuditEntry> byActor(String actor, Long before, int limit) {
+        if (before == null) {
+            return jdbcTemplate.query(SELECT + "WHERE actor = ? ORDER BY id DESC LIMIT ?",
+                    AuditLog::entry, actor, limit);
+        }
+        return jdbcTemplate.query(SELECT + "WHERE actor = ? AND id < ? ORDER BY id DESC LIMIT ?",
+                AuditLog::entry, actor, before, limit);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::drain, "audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread == null) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.error("Audit writer did not finish within {}, {} records not persisted", shutdownTimeout, ring.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stops after the web server, so no request can record a change once the final flush has begun. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        long oldest = 0;
+        int failures = 0;
+        while (true) {
+            boolean stopping = !running;
+            Pending next;
+            while (batch.size() < batchSize && (next = ring.poll()) != null) {
+                if (batch.isEmpty()) oldest = System.nanoTime();
+                batch.add(next);
+            }
+            long waited = System.nanoTime() - oldest;
+            if (!batch.isEmpty() && (stopping || batch.size() >= batchSize || waited >= flushIntervalNanos)) {
+                if (write(batch)) {
+                    batch.clear();
+                    failures = 0;
+                } else if (stopping && ++failures >= SHUTDOWN_ATTEMPTS) {
+                    batch.forEach(this::unpersisted);
+                    batch.clear();
+                } else {
+                    LockSupport.parkNanos(this, RETRY_NANOS);
+                }
+                continue;
+            }
+            if (stopping) {
+                if (batch.isEmpty() && ring.isEmpty()) return;
+                continue;
+            }
+            LockSupport.parkNanos(this, batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - waited);
+        }
+    }
+
+    private boolean write(List<Pending> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            rows.add(new Object[]{Timestamp.valueOf(p.at()), p.actor(), p.event().action().name(), p.type(),
+                    idOf(p.event()), changes(p.event())});
+        }
+        long started = System.nanoTime();
+        try {
+            tx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, rows));
+        } catch (RuntimeException e) {
+            // Anything thrown here would end the writer thread; the batch is retried instead.
+            log.warn("Failed to write {} audit records", batch.size(), e);
+            return false;
+        }
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        written.increment(batch.size());
+        return true;
+    }
+
+    /** Keeps a record that could not reach the table in the application log. */
+    private void unpersisted(Pending p) {
+        log.error("Audit record not persisted: {} {} {} by {} at {}: {}", p.event().action(), p.type(),
+                idOf(p.event()), p.actor(), p.at(), changes(p.event()));
+    }
+
+    /** The changed fields as JSON, or null if the entity could not be converted; never throws. */
+    private String changes(EntityChangedEvent event) {
+        try {
+            return diff(event);
+        } catch (RuntimeException e) {
+            log.warn("Could not compute audit changes for {} {}", typeOf(event.current()), idOf(event), e);
+            return null;
+        }
+    }
+
+    private String diff(EntityChangedEvent event) {
+        JsonNode after = event.entity() == null ? null : objectMapper.valueToTree(event.entity());
+        JsonNode before = event.previous() == null ? null : objectMapper.valueToTree(event.previous());
+        ObjectNode changes = objectMapper.createObjectNode();
+        if (after != null && before != null) {
+            for (Map.Entry<String, JsonNode> field : after.properties()) {
+                JsonNode old = before.path(field.getKey());
+                if (UNAUDITED.contains(field.getKey()) || old.equals(field.getValue())) continue;
+                ArrayNode pair = changes.putArray(field.getKey());
+                pair.add(old.isMissingNode() ? null : old);
+                pair.add(field.getValue());
+            }
+        } else {
+            JsonNode record = after != null ? after : before;
+            for (Map.Entry<String, JsonNode> field : record.properties()) {
+                if (!UNAUDITED.contains(field.getKey())) changes.set(field.getKey(), field.getValue());
+            }
+        }
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static Integer idOf(EntityChangedEvent event) {
+        Object current = event.current();
+        if (current instanceof Patient p) return p.getId();
+        if (current instanceof Appointment a) return a.getId();
+        if (current instanceof Prescription p) return p.getId();
+        if (current instanceof Document d) return d.getId();
+        return null;
+    }
+
+    private static String typeOf(Object entity) {
+        if (entity instanceof Patient) return "patient";
+        if (entity instanceof Appointment) return "appointment";
+        if (entity instanceof Prescription) return "prescription";
+        if (entity instanceof Document) return "document";
+        return null;
+    }
+
+    /** The signed-in user of the current request, or null outside a request. */
+    private String currentUser() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) return null;
+        return authStore.currentUser(attributes.getRequest())
+                .map(user -> user.email() != null ? user.email() : user.id())
+                .orElse(null);
+    }
+
+    private static AuditEntry entry(ResultSet rs, int row) throws SQLException {
+        Timestamp at = rs.getTimestamp("occurred_at");
+        return new AuditEntry(rs.getLong("id"), at == null ? null : at.toLocalDateTime(), rs.getString("actor"),
+                rs.getString("action"), rs.getString("entity_type"), rs.getObject("entity_id", Integer.class),
+                rs.getString("changes"));
+    }
+
+    private record Pending(LocalDateTime at, String actor, EntityChangedEvent event, String type) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.pmsmanus.auth;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Optional;
+
+/**
+ * Where sign-in state lives between requests, chosen with {@code pms.auth.store}:
+ * {@code session} (default) keeps it in the servlet session, which needs
+ * sticky routing or an external session store once there is more than one
+ * node; {@code token} keeps it in signed cookies so a sign-in is valid on every
+ * node, and needs {@code pms.auth.secrets} set to the same value on each.
+ */
+public interface AuthStore {
+
+    void beginLogin(HttpServletRequest request, HttpServletResponse response, LoginAttempt attempt);
+
+    /** Returns and forgets the pending login, if any. */
+    Optional<LoginAttempt> finishLogin(HttpServletRequest request, HttpServletResponse response);
+
+    void signIn(HttpServletRequest request, HttpServletResponse response, AuthUser user);
+
+    Optional<AuthUser> currentUser(HttpServletRequest request);
+
+    /** Extends the sign-in of an active user, as servlet sessions do on access. */
+    default void renew(HttpServletRequest request, HttpServletResponse response, AuthUser user) {
+    }
+
+    void signOut(HttpServletRequest request, HttpServletResponse response);
+}
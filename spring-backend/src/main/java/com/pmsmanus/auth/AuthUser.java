@@ -0,0 +1,7 @@
+package com.pmsmanus.auth;
+
+import java.io.Serializable;
+
+/** The signed-in user as {@code /api/auth/me} returns it. */
+public record AuthUser(String id, String email, String name, String picture) implements Serializable {
+}
@@ -0,0 +1,5 @@
+package com.pmsmanus.auth;
+
+/** The CSRF state and post-login redirect remembered between login and callback. */
+public record LoginAttempt(String state, String redirect) {
+}
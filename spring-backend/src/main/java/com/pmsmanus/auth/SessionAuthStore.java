@@ -0,0 +1,68 @@
+package com.pmsmanus.auth;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "pms.auth.store", havingValue = "session", matchIfMissing = true)
+public class SessionAuthStore implements AuthStore {
+    private static final String USER = "user";
+    private static final String STATE = "oauth_state";
+    private static final String REDIRECT = "oauth_redirect";
+
+    private final int maxInactiveSeconds;
+
+    public SessionAuthStore(@Value("${pms.auth.ttl:1h}") Duration ttl) {
+        this.maxInactiveSeconds = (int) ttl.toSeconds();
+    }
+
+    @Override
+    public void beginLogin(HttpServletRequest request, HttpServletResponse response, LoginAttempt attempt) {
+        HttpSession session = request.getSession();
+        session.setAttribute(STATE, attempt.state());
+        session.setAttribute(REDIRECT, attempt.redirect());
+    }
+
+    @Override
+    public Optional<LoginAttempt> finishLogin(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute(STATE) == null) return Optional.empty();
+        LoginAttempt attempt = new LoginAttempt((String) session.getAttribute(STATE),
+                (String) session.getAttribute(REDIRECT));
+        session.removeAttribute(STATE);
+        session.removeAttribute(REDIRECT);
+        return Optional.of(attempt);
+    }
+
+    @Override
+    public void signIn(HttpServletRequest request, HttpServletResponse response, AuthUser user) {
+        if (request.getSession(false) != null) request.changeSessionId();
+        HttpSession session = request.getSession();
+        session.setAttribute(USER, user);
+        session.setMaxInactiveInterval(maxInactiveSeconds);
+    }
+
+    @Override
+    public Optional<AuthUser> currentUser(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) return Optional.empty();
+        try {
+            return session.getAttribute(USER) instanceof AuthUser user ? Optional.of(user) : Optional.empty();
+        } catch (IllegalStateException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void signOut(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session != null) session.invalidate();
+    }
+}
@@ -0,0 +1,211 @@
+package com.pmsmanus.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps sign-in state in HMAC-signed cookies instead of server memory, so
+ * every node can check a request without a shared store or a database lookup,
+ * and a restart logs nobody out. Chosen with {@code pms.auth.store=token}.
+ * Nodes must share {@code pms.auth.secrets}; the first secret signs and all of
+ * them verify, so a new secret can be rolled out before the old one is
+ * dropped. Without a secret startup fails, unless
+ * {@code pms.auth.allow-ephemeral-secret} asks for a per-process key, as for
+ * a single node in development. This covers sign-in only: the caches and
+ * indexes each node holds follow other nodes' writes through
+ * {@link com.pmsmanus.cluster.ChangeLog}, a poll interval behind.
+ *
+ * <p>Signing out clears the cookie in the browser; a copied token stays valid
+ * until it expires, which {@code pms.auth.ttl} keeps short. Active users are
+ * re-issued a fresh token once half of it has elapsed.
+ */
+@Component
+@ConditionalOnProperty(name = "pms.auth.store", havingValue = "token")
+public class TokenAuthStore implements AuthStore {
+    private static final Logger log = LoggerFactory.getLogger(TokenAuthStore.class);
+    private static final String USER_COOKIE = "pms_auth";
+    private static final String LOGIN_COOKIE = "pms_login";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final List<SecretKeySpec> keys;
+    private final long ttlSeconds;
+    private final long loginTtlSeconds;
+    private final boolean secure;
+    private final String sameSite;
+
+    public TokenAuthStore(ObjectMapper objectMapper,
+                          @Value("${pms.auth.secrets:}") List<String> secrets,
+                          @Value("${pms.auth.allow-ephemeral-secret:false}") boolean allowEphemeralSecret,
+                          @Value("${pms.auth.ttl:1h}") Duration ttl,
+                          @Value("${pms.auth.login-ttl:10m}") Duration loginTtl,
+                          @Value("${pms.auth.cookie.secure:true}") boolean secure,
+                          @Value("${pms.auth.cookie.same-site:None}") String sameSite) {
+        this.objectMapper = objectMapper;
+        List<SecretKeySpec> keys = new ArrayList<>();
+        for (String secret : secrets) {
+            if (!secret.isBlank()) keys.add(new SecretKeySpec(secret.trim().getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        }
+        if (keys.isEmpty()) {
+            if (!allowEphemeralSecret) {
+                throw new IllegalStateException("pms.auth.secrets is not set. Nodes must share it to accept each "
+                        + "other's sign-ins; set pms.auth.allow-ephemeral-secret=true to sign with a per-process key "
+                        + "on a single node");
+            }
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            keys.add(new SecretKeySpec(random, ALGORITHM));
+            log.warn("pms.auth.secrets is not set; sign-ins are signed with a per-process key and "
+                    + "end on restart and do not carry over to other nodes");
+        }
+        this.keys = List.copyOf(keys);
+        this.ttlSeconds = ttl.toSeconds();
+        this.loginTtlSeconds = loginTtl.toSeconds();
+        this.secure = secure;
+        this.sameSite = sameSite;
+    }
+
+    @Override
+    public void beginLogin(HttpServletRequest request, HttpServletResponse response, LoginAttempt attempt) {
+        ObjectNode claims = objectMapper.createObjectNode()
+                .put("state", attempt.state())
+                .put("redirect", attempt.redirect());
+        setCookie(response, LOGIN_COOKIE, sign("login", claims, loginTtlSeconds), loginTtlSeconds);
+    }
+
+    @Override
+    public Optional<LoginAttempt> finishLogin(HttpServletRequest request, HttpServletResponse response) {
+        Optional<JsonNode> claims = verified(request, LOGIN_COOKIE, "login");
+        if (claims.isEmpty()) return Optional.empty();
+        setCookie(response, LOGIN_COOKIE, "", 0);
+        return Optional.of(new LoginAttempt(claims.get().path("state").asText(null),
+                claims.get().path("redirect").asText(null)));
+    }
+
+    @Override
+    public void signIn(HttpServletRequest request, HttpServletResponse response, AuthUser user) {
+        ObjectNode claims = objectMapper.createObjectNode()
+                .put("sub", user.id())
+                .put("email", user.email())
+                .put("name", user.name())
+                .put("picture", user.picture());
+        setCookie(response, USER_COOKIE, sign("user", claims, ttlSeconds), ttlSeconds);
+    }
+
+    @Override
+    public Optional<AuthUser> currentUser(HttpServletRequest request) {
+        return verified(request, USER_COOKIE, "user").map(c -> new AuthUser(c.path("sub").asText(null),
+                c.path("email").asText(null), c.path("name").asText(""), c.path("picture").asText("")));
+    }
+
+    @Override
+    public void renew(HttpServletRequest request, HttpServletResponse response, AuthUser user) {
+        Optional<JsonNode> claims = verified(request, USER_COOKIE, "user");
+        long now = System.currentTimeMillis() / 1000;
+        if (claims.isPresent() && claims.get().path("exp").asLong() - now < ttlSeconds / 2) {
+            signIn(request, response, user);
+        }
+    }
+
+    @Override
+    public void signOut(HttpServletRequest request, HttpServletResponse response) {
+        setCookie(response, USER_COOKIE, "", 0);
+    }
+
+    private String sign(String type, ObjectNode claims, long ttl) {
+        claims.put("typ", type).put("exp", System.currentTimeMillis() / 1000 + ttl);
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return payload + "." + ENCODER.encodeToString(mac(keys.get(0), payload));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Optional<JsonNode> verified(HttpServletRequest request, String cookie, String type) {
+        String token = cookie(request, cookie);
+        if (token == null) return Optional.empty();
+        int dot = token.indexOf('.');
+        if (dot <= 0) return Optional.empty();
+        String payload = token.substring(0, dot);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        boolean valid = false;
+        for (SecretKeySpec key : keys) {
+            if (MessageDigest.isEqual(mac(key, payload), signature)) {
+                valid = true;
+                break;
+            }
+        }
+        if (!valid) return Optional.empty();
+        JsonNode claims;
+        try {
+            claims = objectMapper.readTree(DECODER.decode(payload));
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!type.equals(claims.path("typ").asText())) return Optional.empty();
+        if (claims.path("exp").asLong() < System.currentTimeMillis() / 1000) return Optional.empty();
+        return Optional.of(claims);
+    }
+
+    private static byte[] mac(SecretKeySpec key, String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String cookie(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return null;
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName())) return cookie.getValue();
+        }
+        return null;
+    }
+
+    private void setCookie(HttpServletResponse response, String name, String value, long maxAgeSeconds) {
+        ResponseCookie cookie = ResponseCookie.from(name, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secure)
+                .sameSite(sameSite)
+                .maxAge(maxAgeSeconds)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
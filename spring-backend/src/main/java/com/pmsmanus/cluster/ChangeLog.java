@@ -0,0 +1,228 @@
+package com.pmsmanus.cluster;
+
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.feed.ChangeFeed;
+import com.pmsmanus.feed.FeedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Shares changes between nodes through the {@code change_log} table. Every
+ * change is appended in the transaction that makes it, and every node,
+ * including the writer, polls the log in sequence order: each row goes to the
+ * change feed under its sequence number, and rows written by other nodes are
+ * raised as a {@link RemoteChangeEvent} for the caches and indexes to drop or
+ * reload what they hold. Another node's change is therefore seen within about
+ * {@code pms.cluster.poll-interval}.
+ *
+ * <p>Sequences are assigned at insert and become visible at commit, so a gap
+ * can be a transaction still committing. Polling stops at a gap until it fills
+ * or {@code pms.cluster.gap-timeout} passes, after which it is taken to be a
+ * rollback and skipped.
+ */
+@Component
+public class ChangeLog {
+    private static final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+    private static final String SELECT = "select seq, node, kind, entity_ids, name, topics, payload "
+            + "from change_log where seq > ? order by seq limit ?";
+    private static final String INSERT = "insert into change_log "
+            + "(node, kind, entity_ids, name, topics, payload, recorded_at) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate primary;
+    private final ChangeFeed feed;
+    private final ApplicationEventPublisher events;
+    private final String node;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final int batchSize;
+    private volatile boolean started;
+    private long last;
+    private long gapSince;
+
+    public ChangeLog(JdbcTemplate jdbc,
+                     PlatformTransactionManager transactionManager,
+                     ChangeFeed feed,
+                     ApplicationEventPublisher events,
+                     @Value("${pms.cluster.node-id:}") String node,
+                     @Value("${pms.cluster.gap-timeout:5s}") Duration gapTimeout,
+                     @Value("${pms.cluster.retention:1h}") Duration retention,
+                     @Value("${pms.cluster.batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.primary = new TransactionTemplate(transactionManager);
+        this.feed = feed;
+        this.events = events;
+        this.node = node == null || node.isBlank() ? UUID.randomUUID().toString() : node.trim();
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Starts after the newest entry: a node that just started has nothing cached to invalidate. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Long newest = primary.execute(status ->
+                jdbc.queryForObject("select coalesce(max(seq), 0) from change_log", Long.class));
+        last = newest == null ? 0 : newest;
+        feed.start(last);
+        started = true;
+    }
+
+    /**
+     * Appends the change before its transaction commits, so the change and its
+     * entry commit or roll back together.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object current = event.current();
+        ChangeTracker.Kind kind = ChangeTracker.kindOf(current);
+        Integer id = idOf(current);
+        if (kind == null || id == null) return;
+        FeedEvent described = feed.describe(event);
+        append(kind, List.of(id), described);
+    }
+
+    /**
+     * Appends a change written without entity events, such as an import chunk
+     * or an archive run. {@code ids} may be empty when the writer does not
+     * know the rows; subscribers of {@code topics} are told to resync.
+     */
+    public void appendBulk(ChangeTracker.Kind kind, Collection<Integer> ids, Set<String> topics) {
+        append(kind, ids, FeedEvent.resync(topics));
+    }
+
+    private void append(ChangeTracker.Kind kind, Collection<Integer> ids, FeedEvent event) {
+        String entityIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        primary.executeWithoutResult(status -> jdbc.update(INSERT, node, kind.name(), entityIds,
+                event == null ? null : event.name(),
+                event == null ? null : String.join(",", event.topics()),
+                event == null ? null : event.data(),
+                Timestamp.valueOf(LocalDateTime.now())));
+    }
+
+    @Scheduled(fixedDelayString = "${pms.cluster.poll-interval:250ms}")
+    public void poll() {
+        if (!started) return;
+        List<Entry> entries;
+        do {
+            entries = primary.execute(status -> jdbc.query(SELECT, ChangeLog::entry, last, batchSize));
+            for (Entry entry : entries) {
+                if (entry.seq() > last + 1 && !gapExpired()) return;
+                gapSince = 0;
+                last = entry.seq();
+                deliver(entry);
+            }
+        } while (entries.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${pms.cluster.prune-interval:10m}",
+            initialDelayString = "${pms.cluster.prune-interval:10m}")
+    public void prune() {
+        try {
+            int removed = jdbc.update("delete from change_log where recorded_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+            if (removed > 0) log.debug("Pruned {} change log entries", removed);
+        } catch (DataAccessException e) {
+            log.warn("Could not prune the change log", e);
+        }
+    }
+
+    private boolean gapExpired() {
+        long now = System.nanoTime();
+        if (gapSince == 0) {
+            gapSince = now;
+            return false;
+        }
+        return now - gapSince >= gapTimeout.toNanos();
+    }
+
+    private void deliver(Entry entry) {
+        try {
+            if (entry.name() != null) {
+                feed.publish(new FeedEvent(entry.seq(), entry.name(), entry.payload(), entry.topics()));
+            }
+            if (!node.equals(entry.node())) {
+                events.publishEvent(new RemoteChangeEvent(entry.kind(), entry.ids(),
+                        patientIds(entry.topics()), days(entry.topics())));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply change log entry {}", entry.seq(), e);
+        }
+    }
+
+    private static Integer idOf(Object entity) {
+        if (entity instanceof Patient p) return p.getId();
+        if (entity instanceof Appointment a) return a.getId();
+        if (entity instanceof Prescription p) return p.getId();
+        if (entity instanceof Document d) return d.getId();
+        return null;
+    }
+
+    private static Set<Integer> patientIds(Set<String> topics) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String topic : topics) {
+            if (topic.startsWith("patient:")) ids.add(Integer.valueOf(topic.substring("patient:".length())));
+        }
+        return ids;
+    }
+
+    private static Set<LocalDate> days(Set<String> topics) {
+        Set<LocalDate> days = new LinkedHashSet<>();
+        for (String topic : topics) {
+            if (!topic.startsWith("appointments:")) continue;
+            try {
+                days.add(LocalDate.parse(topic.substring("appointments:".length())));
+            } catch (DateTimeParseException e) {
+                // appointments:today, which always comes with its date
+            }
+        }
+        return days;
+    }
+
+    private static Entry entry(ResultSet rs, int row) throws SQLException {
+        String ids = rs.getString("entity_ids");
+        String topics = rs.getString("topics");
+        return new Entry(rs.getLong("seq"), rs.getString("node"), ChangeTracker.Kind.valueOf(rs.getString("kind")),
+                ids == null || ids.isEmpty() ? List.of() : Arrays.stream(ids.split(",")).map(Integer::valueOf).toList(),
+                rs.getString("name"),
+                topics == null || topics.isEmpty() ? Set.of() : new LinkedHashSet<>(Arrays.asList(topics.split(","))),
+                rs.getString("payload"));
+    }
+
+    private record Entry(long seq, String node, ChangeTracker.Kind kind, List<Integer> ids, String name,
+                         Set<String> topics, String payload) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.pmsmanus.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PATIENTS = "patients";
+    public static final String APPOINTMENTS = "appointments";
+    public static final String DOCUMENTS = "documents";
+    public static final String PRESCRIPTIONS_BY_PATIENT = "prescriptionsByPatient";
+}
@@ -0,0 +1,38 @@
+package com.pmsmanus.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+public class DataSourceGuardConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceGuard(@Value("${pms.datasource.max-waiting:200}") int maxWaiting) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (maxWaiting > 0 && bean instanceof DataSource ds && !wraps(ds, GuardedDataSource.class)) {
+                    return new GuardedDataSource(ds, maxWaiting);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Whether {@code ds} already has the wrapper somewhere in its chain, as the
+     * replica routing datasource does over pools that were wrapped one by one.
+     */
+    public static boolean wraps(DataSource ds, Class<? extends DataSource> wrapper) {
+        try {
+            return ds.isWrapperFor(wrapper);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pmsmanus.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds how many threads may wait on the pool for a connection at once. The
+ * pool already caps open connections; this caps the queue in front of it, so a
+ * burst of virtual threads fails fast instead of each parking for the full
+ * connection timeout.
+ */
+public class GuardedDataSource extends DelegatingDataSource {
+    private final int maxWaiting;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public GuardedDataSource(DataSource target, int maxWaiting) {
+        super(target);
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        enter();
+        try {
+            return super.getConnection();
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        enter();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    private void enter() throws SQLTransientConnectionException {
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new SQLTransientConnectionException(
+                    "Too many threads waiting for a database connection (limit " + maxWaiting + ")");
+        }
+    }
+}
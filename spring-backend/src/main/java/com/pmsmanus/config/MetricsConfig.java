@@ -0,0 +1,77 @@
+package com.pmsmanus.config;
+
+import com.pmsmanus.metrics.MeteredDataSource;
+import com.pmsmanus.replica.ReadReplicas;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor meteredDataSource(ObjectProvider<MeterRegistry> registry,
+                                                      @Value("${pms.metrics.jdbc.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource ds
+                        && !DataSourceGuardConfig.wraps(ds, MeteredDataSource.class)) {
+                    return new MeteredDataSource(ds, registry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Prometheus exports histogram buckets and leaves percentiles to the server,
+     * so it publishes no percentile meters of its own; this registry computes
+     * them in-process for {@code /actuator/metrics}.
+     */
+    @Bean
+    public SimpleMeterRegistry percentileMeterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    /** One gauge per pool: the application's datasource, or each replica set pool. */
+    @Bean
+    public MeterBinder connectionWaitMetrics(DataSource dataSource, ObjectProvider<ReadReplicas> replicas) {
+        return registry -> {
+            ReadReplicas readReplicas = replicas.getIfAvailable();
+            Map<String, DataSource> pools = readReplicas != null
+                    ? readReplicas.pools() : Map.of(poolName(dataSource), dataSource);
+            pools.forEach((name, pool) -> {
+                GuardedDataSource guarded;
+                try {
+                    guarded = pool.unwrap(GuardedDataSource.class);
+                } catch (SQLException e) {
+                    return;
+                }
+                Gauge.builder("pms.db.connections.waiting", guarded, GuardedDataSource::getWaiting)
+                        .tag("pool", name)
+                        .description("Threads queued for a pooled connection")
+                        .register(registry);
+            });
+        };
+    }
+
+    private static String poolName(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getPoolName();
+        } catch (SQLException e) {
+            return "default";
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.pmsmanus.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class OAuthClientConfig {
+
+    /**
+     * One client for all calls to the identity provider. The JDK client keeps
+     * connections alive and reuses them across logins, so a burst of sign-ins
+     * does not pay a TCP and TLS handshake each. Both timeouts are bounded so a
+     * slow provider fails a login instead of holding its request thread.
+     */
+    @Bean
+    public RestClient oauthRestClient(RestClient.Builder builder,
+                                      @Value("${pms.oauth.http.connect-timeout:2s}") Duration connectTimeout,
+                                      @Value("${pms.oauth.http.read-timeout:5s}") Duration readTimeout) {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(client);
+        requestFactory.setReadTimeout(readTimeout);
+        return builder.requestFactory(requestFactory).build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.pmsmanus.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+@Component
+public class PaginationProperties {
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public PaginationProperties(@Value("${pms.pagination.default-page-size:100}") int defaultPageSize,
+                                @Value("${pms.pagination.max-page-size:1000}") int maxPageSize) {
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public int pageSize(Integer requested) {
+        if (requested == null || requested < 1) return defaultPageSize;
+        return Math.min(requested, maxPageSize);
+    }
+
+    public static Integer parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return Integer.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.pmsmanus.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Answers 409 when a versioned row changed between being read and written in
+ * the same request, so the client reloads it instead of seeing a generic 500.
+ */
+@RestControllerAdvice
+public class StaleUpdateHandler {
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> staleUpdate(ObjectOptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "The record was changed by someone else, reload and try again"));
+    }
+}
@@ -0,0 +1,37 @@
+package com.pmsmanus.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.json.EntityJsonHttpMessageConverter;
+import com.pmsmanus.web.ConditionalGetInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final ConditionalGetInterceptor conditionalGet;
+    private final ObjectMapper objectMapper;
+    private final boolean entityWriters;
+
+    public WebConfig(ConditionalGetInterceptor conditionalGet,
+                     ObjectMapper objectMapper,
+                     @Value("${pms.json.entity-writers:true}") boolean entityWriters) {
+        this.conditionalGet = conditionalGet;
+        this.objectMapper = objectMapper;
+        this.entityWriters = entityWriters;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGet).addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (entityWriters) converters.add(0, new EntityJsonHttpMessageConverter(objectMapper));
+    }
+}
@@ -1,12 +1,33 @@
 package com.pmsmanus.controller;
 
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.config.PaginationProperties;
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.ConflictCheck;
+import com.pmsmanus.dto.CursorPage;
+import com.pmsmanus.dto.FreeSlot;
 import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
 import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.schedule.ScheduleIndex;
+import com.pmsmanus.schedule.TodayBoard;
+import com.pmsmanus.service.CachedLookupService;
+import com.pmsmanus.service.NdjsonStreamer;
+import com.pmsmanus.web.ConditionalGet;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,44 +35,119 @@ import java.util.Optional;
 @RequestMapping("/api/appointments")
 public class AppointmentController {
     private final AppointmentRepository appointmentRepository;
+    private final PaginationProperties pagination;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final ApplicationEventPublisher events;
+    private final CachedLookupService cachedLookup;
+    private final ScheduleIndex schedule;
+    private final ArchiveStore archive;
+    private final TodayBoard todayBoard;
 
-    public AppointmentController(AppointmentRepository appointmentRepository) {
+    public AppointmentController(AppointmentRepository appointmentRepository,
+                                 PaginationProperties pagination,
+                                 NdjsonStreamer ndjsonStreamer,
+                                 ApplicationEventPublisher events,
+                                 CachedLookupService cachedLookup,
+                                 ScheduleIndex schedule,
+                                 ArchiveStore archive,
+                                 TodayBoard todayBoard) {
         this.appointmentRepository = appointmentRepository;
+        this.pagination = pagination;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.events = events;
+        this.cachedLookup = cachedLookup;
+        this.schedule = schedule;
+        this.archive = archive;
+        this.todayBoard = todayBoard;
     }
 
     @GetMapping
-    public List<Appointment> list() {
-        return appointmentRepository.findAll();
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    @Transactional(readOnly = true)
+    public List<AppointmentSummary> list() {
+        return appointmentRepository.findAllBy(AppointmentSummary.class);
+    }
+
+    @GetMapping("/page")
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentSummary> page(@RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "limit", required = false) Integer limit) {
+        int size = pagination.pageSize(limit);
+        Integer before = PaginationProperties.parseCursor(cursor);
+        List<AppointmentSummary> rows = before == null
+                ? appointmentRepository.findAllByOrderByIdDesc(Limit.of(size + 1), AppointmentSummary.class)
+                : appointmentRepository.findByIdLessThanOrderByIdDesc(before, Limit.of(size + 1),
+                        AppointmentSummary.class);
+        return CursorPage.of(rows, size, AppointmentSummary::id);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamer.stream(appointmentRepository::streamAll));
     }
 
     @GetMapping("/date")
-    public List<Appointment> byDate(@RequestParam("date") String date) {
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    @Transactional(readOnly = true)
+    public List<AppointmentSummary> byDate(@RequestParam("date") String date) {
         LocalDate d = LocalDate.parse(date);
-        return appointmentRepository.findByAppointmentDateOrderByAppointmentTime(d);
+        return archive.appointmentsOn(d,
+                appointmentRepository.findByAppointmentDateOrderByAppointmentTime(d, AppointmentSummary.class));
     }
 
     @GetMapping("/today")
-    public List<Appointment> today() {
-        LocalDate d = LocalDate.now();
-        return appointmentRepository.findByAppointmentDateOrderByAppointmentTime(d);
+    @ConditionalGet(value = ChangeTracker.Kind.APPOINTMENTS, daily = true)
+    public ResponseEntity<byte[]> today() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(todayBoard.json());
+    }
+
+    @GetMapping("/availability")
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    public List<FreeSlot> availability(@RequestParam("doctorId") Integer doctorId,
+                                       @RequestParam("date") String date,
+                                       @RequestParam(value = "duration", required = false) Integer duration) {
+        return schedule.freeSlots(doctorId, LocalDate.parse(date), duration);
+    }
+
+    @GetMapping("/conflicts")
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    public ConflictCheck conflicts(@RequestParam("doctorId") Integer doctorId,
+                                   @RequestParam("date") String date,
+                                   @RequestParam("time") String time,
+                                   @RequestParam(value = "duration", required = false) Integer duration) {
+        return schedule.check(doctorId, LocalDate.parse(date), LocalTime.parse(time), duration);
     }
 
     @GetMapping("/patient/{patientId}")
-    public List<Appointment> forPatient(@PathVariable Integer patientId) {
-        return appointmentRepository.findByPatientIdOrderByAppointmentDateDesc(patientId);
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
+    @Transactional(readOnly = true)
+    public List<AppointmentSummary> forPatient(@PathVariable Integer patientId) {
+        return archive.appointmentsForPatient(patientId,
+                appointmentRepository.findByPatientIdOrderByAppointmentDateDesc(patientId, AppointmentSummary.class));
     }
 
     @GetMapping("/{id}")
+    @ConditionalGet(ChangeTracker.Kind.APPOINTMENTS)
     public ResponseEntity<Appointment> getById(@PathVariable Integer id) {
-        Optional<Appointment> a = appointmentRepository.findById(id);
+        Optional<Appointment> a = cachedLookup.appointment(id);
         return a.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public ResponseEntity<Appointment> create(@RequestBody Appointment appointment) {
+        if (appointment.getAppointmentId() != null
+                && !archive.existingAppointmentIds(List.of(appointment.getAppointmentId())).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Appointment " + appointment.getAppointmentId() + " already exists in the archive");
+        }
         appointment.setCreatedAt(LocalDateTime.now());
         appointment.setUpdatedAt(LocalDateTime.now());
-        Appointment saved = appointmentRepository.save(appointment);
+        Appointment saved = schedule.book(appointment, () -> appointmentRepository.save(appointment));
+        events.publishEvent(EntityChangedEvent.created(saved));
         return ResponseEntity.ok(saved);
     }
 
@@ -60,9 +156,11 @@ public class AppointmentController {
         Optional<Appointment> existing = appointmentRepository.findById(id);
         if (existing.isEmpty()) return ResponseEntity.notFound().build();
         Appointment a = existing.get();
+        Appointment before = EntityChangedEvent.snapshot(a);
         a.setStatus(payload.getStatus());
         a.setUpdatedAt(LocalDateTime.now());
-        Appointment saved = appointmentRepository.save(a);
+        Appointment saved = schedule.book(a, () -> appointmentRepository.save(a));
+        events.publishEvent(EntityChangedEvent.updated(saved, before));
         return ResponseEntity.ok(saved);
     }
 
@@ -0,0 +1,41 @@
+package com.pmsmanus.controller;
+
+import com.pmsmanus.audit.AuditEntry;
+import com.pmsmanus.audit.AuditLog;
+import com.pmsmanus.config.PaginationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+    private final AuditLog auditLog;
+    private final PaginationProperties pagination;
+
+    public AuditController(AuditLog auditLog, PaginationProperties pagination) {
+        this.auditLog = auditLog;
+        this.pagination = pagination;
+    }
+
+    /** Newest first; pass the smallest id received as {@code before} for the next page. */
+    @GetMapping
+    @Transactional(readOnly = true)
+    public List<AuditEntry> list(@RequestParam(value = "entityType", required = false) String entityType,
+                                 @RequestParam(value = "entityId", required = false) Integer entityId,
+                                 @RequestParam(value = "actor", required = false) String actor,
+                                 @RequestParam(value = "before", required = false) Long before,
+                                 @RequestParam(value = "limit", required = false) Integer limit) {
+        int size = pagination.pageSize(limit);
+        if (entityType != null && entityId != null) {
+            return auditLog.forEntity(entityType, entityId, before, size);
+        }
+        if (actor != null) {
+            return auditLog.byActor(actor, before, size);
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give entityType and entityId, or actor");
+    }
+}
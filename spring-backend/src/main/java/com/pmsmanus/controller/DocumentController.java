@@ -1,10 +1,24 @@
 package com.pmsmanus.controller;
 
+import com.pmsmanus.dto.UploadSession;
 import com.pmsmanus.entity.Document;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
 import com.pmsmanus.repo.DocumentRepository;
+import com.pmsmanus.service.CachedLookupService;
+import com.pmsmanus.service.DocumentStorageService;
+import com.pmsmanus.web.ConditionalGet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -13,36 +27,113 @@ import java.util.Optional;
 @RequestMapping("/api/documents")
 public class DocumentController {
     private final DocumentRepository repository;
+    private final CachedLookupService cachedLookup;
+    private final ApplicationEventPublisher events;
+    private final DocumentStorageService storage;
 
-    public DocumentController(DocumentRepository repository) {
+    public DocumentController(DocumentRepository repository,
+                              CachedLookupService cachedLookup,
+                              ApplicationEventPublisher events,
+                              DocumentStorageService storage) {
         this.repository = repository;
+        this.cachedLookup = cachedLookup;
+        this.events = events;
+        this.storage = storage;
     }
 
     @GetMapping("/patient/{patientId}")
+    @ConditionalGet(ChangeTracker.Kind.DOCUMENTS)
+    @Transactional(readOnly = true)
     public List<Document> byPatient(@PathVariable Integer patientId) {
         return repository.findByPatientIdOrderByCreatedAtDesc(patientId);
     }
 
     @GetMapping("/{id}")
+    @ConditionalGet(ChangeTracker.Kind.DOCUMENTS)
     public ResponseEntity<Document> getById(@PathVariable Integer id) {
-        Optional<Document> d = repository.findById(id);
+        Optional<Document> d = cachedLookup.document(id);
         return d.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/content")
+    public void content(@PathVariable Integer id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<Document> d = cachedLookup.document(id);
+        if (d.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        storage.writeContent(d.get(), request, response);
+    }
+
     @PostMapping
     public ResponseEntity<Document> create(@RequestBody Document document) {
         document.setCreatedAt(LocalDateTime.now());
         document.setUpdatedAt(LocalDateTime.now());
         Document saved = repository.save(document);
+        events.publishEvent(EntityChangedEvent.created(saved));
+        return ResponseEntity.ok(saved);
+    }
+
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Document> upload(@RequestParam("patientId") Integer patientId,
+                                           @RequestParam("documentType") String documentType,
+                                           @RequestParam(value = "documentName", required = false) String documentName,
+                                           @RequestParam(value = "description", required = false) String description,
+                                           @RequestPart("file") MultipartFile file) throws IOException {
+        Document document = new Document();
+        document.setPatientId(patientId);
+        document.setDocumentType(documentType);
+        document.setDocumentName(documentName != null && !documentName.isBlank()
+                ? documentName : file.getOriginalFilename());
+        document.setDescription(description);
+        Document saved;
+        try (InputStream in = file.getInputStream()) {
+            saved = storage.upload(document, in, file.getContentType());
+        }
+        events.publishEvent(EntityChangedEvent.created(saved));
         return ResponseEntity.ok(saved);
     }
 
+    @PostMapping("/uploads")
+    public UploadSession startUpload() throws IOException {
+        return storage.startUpload();
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public UploadSession uploadStatus(@PathVariable String uploadId) throws IOException {
+        return storage.uploadStatus(uploadId);
+    }
+
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public UploadSession appendChunk(@PathVariable String uploadId,
+                                     @RequestParam("offset") long offset,
+                                     HttpServletRequest request) throws IOException {
+        return storage.appendChunk(uploadId, offset, request.getInputStream());
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<Document> completeUpload(@PathVariable String uploadId,
+                                                   @RequestBody Document document) throws IOException {
+        Document saved = storage.completeUpload(uploadId, document);
+        events.publishEvent(EntityChangedEvent.created(saved));
+        return ResponseEntity.ok(saved);
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId) throws IOException {
+        storage.cancelUpload(uploadId);
+        return ResponseEntity.ok().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Integer id) {
-        if (!repository.existsById(id)) {
+        Optional<Document> existing = repository.findById(id);
+        if (existing.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        repository.deleteById(id);
+        storage.delete(existing.get());
+        events.publishEvent(EntityChangedEvent.deleted(existing.get()));
         return ResponseEntity.ok().build();
     }
 }
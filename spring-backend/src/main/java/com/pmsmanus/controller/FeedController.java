@@ -0,0 +1,34 @@
+package com.pmsmanus.controller;
+
+import com.pmsmanus.feed.ChangeFeed;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/feed")
+public class FeedController {
+    private final ChangeFeed feed;
+
+    public FeedController(ChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam("topic") List<String> topics,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long after = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                after = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID");
+            }
+        }
+        return feed.subscribe(topics, after);
+    }
+}
@@ -0,0 +1,57 @@
+package com.pmsmanus.controller;
+
+import com.pmsmanus.dto.ImportReport;
+import com.pmsmanus.entity.ImportJob;
+import com.pmsmanus.importer.ImportFormat;
+import com.pmsmanus.service.BulkImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+    private static final Set<String> KINDS = Set.of(BulkImportService.PATIENTS, BulkImportService.APPOINTMENTS);
+
+    private final BulkImportService importService;
+
+    public ImportController(BulkImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping("/{kind}")
+    public ResponseEntity<ImportReport> importRecords(@PathVariable String kind,
+                                                      @RequestParam(value = "importId", required = false) String importId,
+                                                      HttpServletRequest request) throws IOException {
+        if (!KINDS.contains(kind)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown import kind: " + kind);
+        }
+        ImportFormat format;
+        try {
+            format = ImportFormat.fromContentType(request.getContentType());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getMessage());
+        }
+        String key = importId == null || importId.isBlank() ? UUID.randomUUID().toString() : importId;
+        ImportReport report;
+        try {
+            report = importService.importRecords(kind, key, format, request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        HttpStatus status = "completed".equals(report.status()) ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(report);
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<ImportJob> status(@PathVariable String importId) {
+        ImportJob job = importService.job(importId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+}
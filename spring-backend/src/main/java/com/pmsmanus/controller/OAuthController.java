@@ -1,7 +1,13 @@
 package com.pmsmanus.controller;
 
+import com.pmsmanus.auth.AuthStore;
+import com.pmsmanus.auth.AuthUser;
+import com.pmsmanus.auth.LoginAttempt;
+import com.pmsmanus.oauth.GoogleIdTokenVerifier;
+import com.pmsmanus.oauth.IdTokenException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
@@ -10,37 +16,56 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletResponse;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
 public class OAuthController {
+    private final RestClient http;
+    private final GoogleIdTokenVerifier idTokenVerifier;
+    private final AuthStore authStore;
+    private final String authUri;
+    private final String tokenUri;
+
+    public OAuthController(@Qualifier("oauthRestClient") RestClient http,
+                           GoogleIdTokenVerifier idTokenVerifier,
+                           AuthStore authStore,
+                           @Value("${pms.oauth.google.auth-uri:https://accounts.google.com/o/oauth2/v2/auth}") String authUri,
+                           @Value("${pms.oauth.google.token-uri:https://oauth2.googleapis.com/token}") String tokenUri) {
+        this.http = http;
+        this.idTokenVerifier = idTokenVerifier;
+        this.authStore = authStore;
+        this.authUri = authUri;
+        this.tokenUri = tokenUri;
+    }
+
     @GetMapping("/auth/me")
-    public ResponseEntity<?> me(HttpSession session) {
-        Object user = session.getAttribute("user");
-        if (user == null) {
+    public ResponseEntity<?> me(HttpServletRequest request, HttpServletResponse response) {
+        Optional<AuthUser> user = authStore.currentUser(request);
+        if (user.isEmpty()) {
             return ResponseEntity.status(401).body(Map.of("message", "Please login (10001)"));
         }
-        return ResponseEntity.ok(user);
+        authStore.renew(request, response, user.get());
+        return ResponseEntity.ok(user.get());
     }
 
     @GetMapping("/auth/logout")
-    public ResponseEntity<?> logout(HttpSession session) {
-        session.invalidate();
+    public ResponseEntity<?> logout(HttpServletRequest request, HttpServletResponse response) {
+        authStore.signOut(request, response);
         return ResponseEntity.ok(Map.of("ok", true));
     }
 
     @GetMapping("/oauth/google/login")
     public ResponseEntity<?> googleLogin(
             HttpServletRequest request,
-            HttpSession session,
+            HttpServletResponse response,
             @RequestParam(value = "to", required = false) String toParam,
             @RequestParam(value = "state", required = false) String legacyStateParam,
             @RequestParam(value = "json", required = false) String jsonParam) {
@@ -82,14 +107,13 @@ public class OAuthController {
             }
         }
         String nonce = java.util.UUID.randomUUID().toString();
-        session.setAttribute("oauth_state", nonce);
-        session.setAttribute("oauth_redirect", desired);
+        authStore.beginLogin(request, response, new LoginAttempt(nonce, desired));
         String scope = "openid email profile";
         String responseType = "code";
         String accessType = "offline";
         String prompt = "consent";
         String state = nonce;
-        String url = "https://accounts.google.com/o/oauth2/v2/auth"
+        String url = authUri
                 + "?client_id=" + clientId
                 + "&redirect_uri=" + redirectUri
                 + "&response_type=" + responseType
@@ -112,11 +136,11 @@ public class OAuthController {
     @GetMapping("/oauth/google/callback")
     public ResponseEntity<?> googleCallback(
             HttpServletRequest request,
-            HttpSession session,
+            HttpServletResponse response,
             @RequestParam("code") String code,
             @RequestParam(value = "state", required = false) String stateParam) {
-        String expectedState = (String) session.getAttribute("oauth_state");
-        if (expectedState == null || !expectedState.equals(stateParam)) {
+        Optional<LoginAttempt> attempt = authStore.finishLogin(request, response);
+        if (attempt.isEmpty() || attempt.get().state() == null || !attempt.get().state().equals(stateParam)) {
             return ResponseEntity.status(400).body(Map.of("message", "Invalid OAuth state"));
         }
         String clientId = System.getenv("GOOGLE_CLIENT_ID");
@@ -131,8 +155,7 @@ public class OAuthController {
             return ResponseEntity.status(500).body(Map.of("message", "Google OAuth not configured"));
         }
 
-        RestTemplate http = new RestTemplate();
-        String tokenUrl = "https://oauth2.googleapis.com/token";
+        String tokenUrl = tokenUri;
         MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
         form.add("code", code);
         form.add("client_id", clientId);
@@ -140,12 +163,14 @@ public class OAuthController {
         form.add("redirect_uri", redirectUri);
         form.add("grant_type", "authorization_code");
 
-        HttpHeaders tokenHeaders = new HttpHeaders();
-        tokenHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(form, tokenHeaders);
         Map<?, ?> tokenResp;
         try {
-            tokenResp = http.postForObject(tokenUrl, entity, Map.class);
+            tokenResp = http.post()
+                    .uri(tokenUrl)
+                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                    .body(form)
+                    .retrieve()
+                    .body(Map.class);
         } catch (RestClientException e) {
             return ResponseEntity.status(500).body(Map.of("message", "Failed to exchange OAuth code: " + e.getMessage()));
         }
@@ -154,31 +179,23 @@ public class OAuthController {
         }
         String idToken = String.valueOf(tokenResp.get("id_token"));
 
-        String infoUrl = "https://oauth2.googleapis.com/tokeninfo?id_token=" + idToken;
-        Map<?, ?> info;
+        Map<String, Object> info;
         try {
-            info = http.getForObject(infoUrl, Map.class);
-        } catch (RestClientException e) {
+            info = idTokenVerifier.verify(idToken);
+        } catch (IdTokenException e) {
             return ResponseEntity.status(500).body(Map.of("message", "Failed to verify ID token: " + e.getMessage()));
         }
-        if (info == null || info.get("email") == null) {
+        if (info.get("email") == null) {
             return ResponseEntity.status(500).body(Map.of("message", "Failed to verify ID token"));
         }
 
-        Map<String, Object> user = new HashMap<>();
-        user.put("id", info.get("sub"));
-        user.put("email", info.get("email"));
         Object nameObj = info.get("name");
         Object picObj = info.get("picture");
-        user.put("name", nameObj == null ? "" : String.valueOf(nameObj));
-        user.put("picture", picObj == null ? "" : String.valueOf(picObj));
-        session.setAttribute("user", user);
-        session.setMaxInactiveInterval(3600);
+        authStore.signIn(request, response, new AuthUser(String.valueOf(info.get("sub")), String.valueOf(info.get("email")),
+                nameObj == null ? "" : String.valueOf(nameObj), picObj == null ? "" : String.valueOf(picObj)));
 
-        String desired = (String) session.getAttribute("oauth_redirect");
+        String desired = attempt.get().redirect();
         if (desired == null || desired.isBlank()) desired = "/";
-        session.removeAttribute("oauth_state");
-        session.removeAttribute("oauth_redirect");
         HttpHeaders headers = new HttpHeaders();
         headers.setLocation(URI.create(desired));
         return ResponseEntity.status(302).headers(headers).build();
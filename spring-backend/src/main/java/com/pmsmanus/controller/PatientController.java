@@ -1,80 +1,171 @@
 package com.pmsmanus.controller;
 
+import com.pmsmanus.config.PaginationProperties;
+import com.pmsmanus.dto.CursorPage;
+import com.pmsmanus.dto.MergePatch;
+import com.pmsmanus.dto.PatientChart;
+import com.pmsmanus.dto.PatientSummary;
 import com.pmsmanus.entity.Patient;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
 import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.service.NdjsonStreamer;
+import com.pmsmanus.search.PatientSearchIndex;
+import com.pmsmanus.service.CachedLookupService;
+import com.pmsmanus.service.PatientChartService;
+import com.pmsmanus.service.RecordUpdateService;
+import com.pmsmanus.web.ConditionalGet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/patients")
 public class PatientController {
     private final PatientRepository patientRepository;
+    private final PatientSearchIndex searchIndex;
+    private final PaginationProperties pagination;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final ApplicationEventPublisher events;
+    private final CachedLookupService cachedLookup;
+    private final PatientChartService chartService;
+    private final RecordUpdateService recordUpdates;
+    private final int searchDefaultLimit;
+    private final int searchMaxLimit;
 
 
-    public PatientController(PatientRepository patientRepository) {
+    public PatientController(PatientRepository patientRepository,
+                             PatientSearchIndex searchIndex,
+                             PaginationProperties pagination,
+                             NdjsonStreamer ndjsonStreamer,
+                             ApplicationEventPublisher events,
+                             CachedLookupService cachedLookup,
+                             PatientChartService chartService,
+                             RecordUpdateService recordUpdates,
+                             @Value("${pms.search.default-limit:50}") int searchDefaultLimit,
+                             @Value("${pms.search.max-limit:500}") int searchMaxLimit) {
         this.patientRepository = patientRepository;
+        this.searchIndex = searchIndex;
+        this.pagination = pagination;
+        this.ndjsonStreamer = ndjsonStreamer;
+        this.events = events;
+        this.cachedLookup = cachedLookup;
+        this.chartService = chartService;
+        this.recordUpdates = recordUpdates;
+        this.searchDefaultLimit = searchDefaultLimit;
+        this.searchMaxLimit = searchMaxLimit;
     }
     
     
     @GetMapping
-    public List<Patient> list() {
-        return patientRepository.findAll();
+    @ConditionalGet(ChangeTracker.Kind.PATIENTS)
+    @Transactional(readOnly = true)
+    public List<PatientSummary> list() {
+        return patientRepository.findAllBy(PatientSummary.class);
+    }
+
+    @GetMapping("/page")
+    @ConditionalGet(ChangeTracker.Kind.PATIENTS)
+    @Transactional(readOnly = true)
+    public CursorPage<PatientSummary> page(@RequestParam(value = "cursor", required = false) String cursor,
+                                           @RequestParam(value = "limit", required = false) Integer limit) {
+        int size = pagination.pageSize(limit);
+        Integer before = PaginationProperties.parseCursor(cursor);
+        List<PatientSummary> rows = before == null
+                ? patientRepository.findAllByOrderByIdDesc(Limit.of(size + 1), PatientSummary.class)
+                : patientRepository.findByIdLessThanOrderByIdDesc(before, Limit.of(size + 1), PatientSummary.class);
+        return CursorPage.of(rows, size, PatientSummary::id);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ConditionalGet(ChangeTracker.Kind.PATIENTS)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonStreamer.stream(patientRepository::streamAll));
     }
 
     @GetMapping("/search")
-    public List<Patient> search(@RequestParam("query") String query) {
-        return patientRepository.search(query);
+    @ConditionalGet(ChangeTracker.Kind.PATIENTS)
+    @Transactional(readOnly = true)
+    public List<PatientSummary> search(@RequestParam("query") String query,
+                                       @RequestParam(value = "limit", required = false) Integer limit) {
+        int max = Math.min(limit == null ? searchDefaultLimit : Math.max(limit, 1), searchMaxLimit);
+        if (!searchIndex.isReady()) {
+            List<PatientSummary> all = patientRepository.search(query);
+            return all.size() > max ? all.subList(0, max) : all;
+        }
+        List<Integer> ids = searchIndex.search(query, max);
+        if (ids.isEmpty()) return List.of();
+        Map<Integer, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) rank.put(ids.get(i), i);
+        List<PatientSummary> found = new ArrayList<>(patientRepository.findByIdIn(ids, PatientSummary.class));
+        found.sort(Comparator.comparing(p -> rank.get(p.id())));
+        return found;
     }
 
     @GetMapping("/{id}")
+    @ConditionalGet(ChangeTracker.Kind.PATIENTS)
     public ResponseEntity<Patient> getById(@PathVariable Integer id) {
-        Optional<Patient> p = patientRepository.findById(id);
+        Optional<Patient> p = cachedLookup.patient(id);
         return p.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/chart")
+    @ConditionalGet({ChangeTracker.Kind.PATIENTS, ChangeTracker.Kind.APPOINTMENTS,
+            ChangeTracker.Kind.PRESCRIPTIONS, ChangeTracker.Kind.DOCUMENTS})
+    public ResponseEntity<PatientChart> chart(@PathVariable Integer id,
+                                              @RequestParam(value = "appointments", required = false) Integer appointments,
+                                              @RequestParam(value = "prescriptions", required = false) Integer prescriptions,
+                                              @RequestParam(value = "documents", required = false) Integer documents) {
+        return chartService.load(id, appointments, prescriptions, documents)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     public ResponseEntity<Patient> create(@RequestBody Patient patient) {
+        patient.setVersion(null);
         patient.setCreatedAt(LocalDateTime.now());
         patient.setUpdatedAt(LocalDateTime.now());
         Patient saved = patientRepository.save(patient);
+        events.publishEvent(EntityChangedEvent.created(saved));
         return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Patient> update(@PathVariable Integer id, @RequestBody Patient updates) {
-        Optional<Patient> existing = patientRepository.findById(id);
-        if (existing.isEmpty()) return ResponseEntity.notFound().build();
-        Patient p = existing.get();
-        if (updates.getFirstName() != null) p.setFirstName(updates.getFirstName());
-        if (updates.getLastName() != null) p.setLastName(updates.getLastName());
-        if (updates.getEmail() != null) p.setEmail(updates.getEmail());
-        if (updates.getPhone() != null) p.setPhone(updates.getPhone());
-        if (updates.getDateOfBirth() != null) p.setDateOfBirth(updates.getDateOfBirth());
-        if (updates.getGender() != null) p.setGender(updates.getGender());
-        if (updates.getAddress() != null) p.setAddress(updates.getAddress());
-        if (updates.getCity() != null) p.setCity(updates.getCity());
-        if (updates.getState() != null) p.setState(updates.getState());
-        if (updates.getZipCode() != null) p.setZipCode(updates.getZipCode());
-        if (updates.getEmergencyContact() != null) p.setEmergencyContact(updates.getEmergencyContact());
-        if (updates.getEmergencyPhone() != null) p.setEmergencyPhone(updates.getEmergencyPhone());
-        if (updates.getMedicalHistory() != null) p.setMedicalHistory(updates.getMedicalHistory());
-        if (updates.getAllergies() != null) p.setAllergies(updates.getAllergies());
-        if (updates.getBloodType() != null) p.setBloodType(updates.getBloodType());
-        p.setUpdatedAt(LocalDateTime.now());
-        Patient saved = patientRepository.save(p);
-        return ResponseEntity.ok(saved);
+        return recordUpdates.updatePatient(id, updates)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping
+    public List<Patient> patch(@RequestBody List<MergePatch> patches) {
+        return recordUpdates.patchPatients(patches);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Integer id) {
-        if (!patientRepository.existsById(id)) {
+        Optional<Patient> existing = patientRepository.findById(id);
+        if (existing.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        patientRepository.deleteById(id);
+        patientRepository.delete(existing.get());
+        events.publishEvent(EntityChangedEvent.deleted(existing.get()));
         return ResponseEntity.ok().build();
     }
 }
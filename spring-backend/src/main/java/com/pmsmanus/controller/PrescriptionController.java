@@ -1,7 +1,14 @@
 package com.pmsmanus.controller;
 
+import com.pmsmanus.dto.MergePatch;
 import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
 import com.pmsmanus.repo.PrescriptionRepository;
+import com.pmsmanus.service.CachedLookupService;
+import com.pmsmanus.service.RecordUpdateService;
+import com.pmsmanus.web.ConditionalGet;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,44 +20,47 @@ import java.util.List;
 @RequestMapping("/api/prescriptions")
 public class PrescriptionController {
     private final PrescriptionRepository repository;
+    private final CachedLookupService cachedLookup;
+    private final ApplicationEventPublisher events;
+    private final RecordUpdateService recordUpdates;
 
-    public PrescriptionController(PrescriptionRepository repository) {
+    public PrescriptionController(PrescriptionRepository repository,
+                                  CachedLookupService cachedLookup,
+                                  ApplicationEventPublisher events,
+                                  RecordUpdateService recordUpdates) {
         this.repository = repository;
+        this.cachedLookup = cachedLookup;
+        this.events = events;
+        this.recordUpdates = recordUpdates;
     }
 
     @GetMapping("/patient/{patientId}")
+    @ConditionalGet(ChangeTracker.Kind.PRESCRIPTIONS)
     public List<Prescription> byPatient(@PathVariable Integer patientId) {
-        return repository.findByPatientIdOrderByCreatedAtDesc(patientId);
+        return cachedLookup.prescriptionsByPatient(patientId);
     }
 
     @PostMapping
     public ResponseEntity<Prescription> create(@RequestBody Prescription p) {
         if (p.getStatus() == null) p.setStatus("active");
         if (p.getStartDate() == null) p.setStartDate(LocalDate.now());
+        p.setVersion(null);
         p.setCreatedAt(LocalDateTime.now());
         p.setUpdatedAt(LocalDateTime.now());
         Prescription saved = repository.save(p);
+        events.publishEvent(EntityChangedEvent.created(saved));
         return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Prescription> update(@PathVariable Integer id, @RequestBody Prescription updates) {
-        return repository.findById(id)
-                .map(existing -> {
-                    if (updates.getMedicationName() != null) existing.setMedicationName(updates.getMedicationName());
-                    if (updates.getDosage() != null) existing.setDosage(updates.getDosage());
-                    if (updates.getFrequency() != null) existing.setFrequency(updates.getFrequency());
-                    if (updates.getDuration() != null) existing.setDuration(updates.getDuration());
-                    if (updates.getRoute() != null) existing.setRoute(updates.getRoute());
-                    if (updates.getQuantity() != null) existing.setQuantity(updates.getQuantity());
-                    if (updates.getInstructions() != null) existing.setInstructions(updates.getInstructions());
-                    if (updates.getStartDate() != null) existing.setStartDate(updates.getStartDate());
-                    if (updates.getEndDate() != null) existing.setEndDate(updates.getEndDate());
-                    if (updates.getStatus() != null) existing.setStatus(updates.getStatus());
-                    existing.setUpdatedAt(LocalDateTime.now());
-                    Prescription saved = repository.save(existing);
-                    return ResponseEntity.ok(saved);
-                })
+        return recordUpdates.updatePrescription(id, updates)
+                .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    @PatchMapping
+    public List<Prescription> patch(@RequestBody List<MergePatch> patches) {
+        return recordUpdates.patchPrescriptions(patches);
+    }
 }
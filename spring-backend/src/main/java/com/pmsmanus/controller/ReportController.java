@@ -0,0 +1,36 @@
+package com.pmsmanus.controller;
+
+import com.pmsmanus.dto.ReportSummary;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.service.ReportService;
+import com.pmsmanus.web.ConditionalGet;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+    private final ReportService reportService;
+
+    public ReportController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @GetMapping("/daily")
+    @ConditionalGet(value = {ChangeTracker.Kind.PATIENTS, ChangeTracker.Kind.APPOINTMENTS,
+            ChangeTracker.Kind.ROLLUPS}, daily = true)
+    public ReportSummary daily(@RequestParam(value = "date", required = false) String date) {
+        LocalDate d = date == null || date.isBlank() ? LocalDate.now() : LocalDate.parse(date);
+        return reportService.daily(d);
+    }
+
+    @GetMapping("/monthly")
+    @ConditionalGet(value = {ChangeTracker.Kind.PATIENTS, ChangeTracker.Kind.APPOINTMENTS,
+            ChangeTracker.Kind.ROLLUPS}, daily = true)
+    public ReportSummary monthly(@RequestParam(value = "month", required = false) String month) {
+        YearMonth m = month == null || month.isBlank() ? YearMonth.now() : YearMonth.parse(month);
+        return reportService.monthly(m);
+    }
+}
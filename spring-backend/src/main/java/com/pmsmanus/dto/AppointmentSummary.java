@@ -0,0 +1,28 @@
+package com.pmsmanus.dto;
+
+import com.pmsmanus.entity.Appointment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/** An appointment row for list views: every column except {@code notes}. */
+public record AppointmentSummary(
+        Integer id,
+        String appointmentId,
+        Integer patientId,
+        Integer doctorId,
+        LocalDate appointmentDate,
+        LocalTime appointmentTime,
+        Integer duration,
+        String status,
+        String reason,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+
+    public static AppointmentSummary of(Appointment a) {
+        return new AppointmentSummary(a.getId(), a.getAppointmentId(), a.getPatientId(), a.getDoctorId(),
+                a.getAppointmentDate(), a.getAppointmentTime(), a.getDuration(), a.getStatus(), a.getReason(),
+                a.getCreatedAt(), a.getUpdatedAt());
+    }
+}
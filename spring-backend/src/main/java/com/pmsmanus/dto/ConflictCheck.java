@@ -0,0 +1,7 @@
+package com.pmsmanus.dto;
+
+import java.util.List;
+
+/** Result of checking a proposed booking; {@code appointmentIds} are the bookings it would overlap. */
+public record ConflictCheck(boolean conflict, List<Integer> appointmentIds) {
+}
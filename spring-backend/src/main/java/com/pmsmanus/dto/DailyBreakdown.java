@@ -0,0 +1,12 @@
+package com.pmsmanus.dto;
+
+import java.time.LocalDate;
+
+public record DailyBreakdown(
+        LocalDate date,
+        long totalAppointments,
+        long completedAppointments,
+        long cancelledAppointments,
+        long scheduledAppointments,
+        long newPatients) {
+}
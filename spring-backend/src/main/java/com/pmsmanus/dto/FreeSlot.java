@@ -0,0 +1,6 @@
+package com.pmsmanus.dto;
+
+import java.time.LocalTime;
+
+public record FreeSlot(LocalTime start, LocalTime end) {
+}
@@ -0,0 +1,23 @@
+package com.pmsmanus.dto;
+
+import java.util.List;
+
+public record ImportReport(
+        String importId,
+        String kind,
+        String status,
+        long resumedAfter,
+        long recordsRead,
+        long imported,
+        long rejected,
+        long elapsedMillis,
+        List<Chunk> chunks,
+        List<RowError> errors,
+        String message) {
+
+    public record Chunk(int index, long firstRecord, long lastRecord, int imported, int rejected, long millis) {
+    }
+
+    public record RowError(long record, String message) {
+    }
+}
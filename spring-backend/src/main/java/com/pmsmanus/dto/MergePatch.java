@@ -0,0 +1,11 @@
+package com.pmsmanus.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One edit in a batch update: a JSON merge patch (RFC 7386) for the row with
+ * {@code id}, applied only if the row is still at {@code version} when given.
+ * A {@code null} member in the patch clears that field.
+ */
+public record MergePatch(Integer id, Long version, JsonNode patch) {
+}
@@ -0,0 +1,14 @@
+package com.pmsmanus.dto;
+
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+
+import java.util.List;
+
+public record PatientChart(
+        Patient patient,
+        List<AppointmentSummary> appointments,
+        List<Prescription> prescriptions,
+        List<Document> documents) {
+}
@@ -0,0 +1,39 @@
+package com.pmsmanus.dto;
+
+import com.pmsmanus.entity.Patient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A patient row for list and search views: every column except the
+ * {@code medicalHistory} and {@code allergies} texts, which only the detail
+ * endpoints return.
+ */
+public record PatientSummary(
+        Integer id,
+        String patientId,
+        String firstName,
+        String lastName,
+        String email,
+        String phone,
+        LocalDate dateOfBirth,
+        String gender,
+        String address,
+        String city,
+        String state,
+        String zipCode,
+        String emergencyContact,
+        String emergencyPhone,
+        String bloodType,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long version) {
+
+    public static PatientSummary of(Patient p) {
+        return new PatientSummary(p.getId(), p.getPatientId(), p.getFirstName(), p.getLastName(), p.getEmail(),
+                p.getPhone(), p.getDateOfBirth(), p.getGender(), p.getAddress(), p.getCity(), p.getState(),
+                p.getZipCode(), p.getEmergencyContact(), p.getEmergencyPhone(), p.getBloodType(),
+                p.getCreatedAt(), p.getUpdatedAt(), p.getVersion());
+    }
+}
@@ -0,0 +1,19 @@
+package com.pmsmanus.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record ReportSummary(
+        String reportId,
+        String reportType,
+        LocalDate reportDate,
+        LocalDate periodStart,
+        LocalDate periodEnd,
+        long totalAppointments,
+        long completedAppointments,
+        long cancelledAppointments,
+        long scheduledAppointments,
+        long totalPatients,
+        long newPatients,
+        List<DailyBreakdown> days) {
+}
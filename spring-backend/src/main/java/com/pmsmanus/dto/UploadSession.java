@@ -0,0 +1,5 @@
+package com.pmsmanus.dto;
+
+/** State of a chunked upload; {@code offset} is where the next chunk must start. */
+public record UploadSession(String uploadId, long offset) {
+}
@@ -6,13 +6,19 @@ import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_appointments_appointment_id", columnNames = "appointmentId"),
+        indexes = {
+        @Index(name = "idx_appointments_date_time", columnList = "appointmentDate, appointmentTime"),
+        @Index(name = "idx_appointments_patient_date", columnList = "patientId, appointmentDate, appointmentTime"),
+        @Index(name = "idx_appointments_doctor_date", columnList = "doctorId, appointmentDate, appointmentTime")
+})
 public class Appointment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(name = "appointmentId", nullable = false, unique = true, length = 50)
+    @Column(name = "appointmentId", nullable = false, length = 50)
     private String appointmentId;
 
     @Column(name = "patientId", nullable = false)
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_patient_created", columnList = "patientId, createdAt"),
+        @Index(name = "idx_documents_file_key", columnList = "fileKey")
+})
 public class Document {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,17 +1,24 @@
 package com.pmsmanus.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "patients")
+@DynamicUpdate
+@Table(name = "patients",
+        uniqueConstraints = @UniqueConstraint(name = "uk_patients_patient_id", columnNames = "patientId"),
+        indexes = {
+        @Index(name = "idx_patients_created", columnList = "createdAt")
+})
 public class Patient {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(name = "patientId", nullable = false, unique = true, length = 50)
+    @Column(name = "patientId", nullable = false, length = 50)
     private String patientId;
 
     @Column(name = "firstName", nullable = false, length = 100)
@@ -65,6 +72,10 @@ public class Patient {
     @Column(name = "updatedAt")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Integer getId() {
         return id;
     }
@@ -216,4 +227,12 @@ public class Patient {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -1,17 +1,24 @@
 package com.pmsmanus.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "prescriptions")
+@DynamicUpdate
+@Table(name = "prescriptions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_prescriptions_prescription_id", columnNames = "prescriptionId"),
+        indexes = {
+        @Index(name = "idx_prescriptions_patient_created", columnList = "patientId, createdAt")
+})
 public class Prescription {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @Column(name = "prescriptionId", nullable = false, unique = true, length = 50)
+    @Column(name = "prescriptionId", nullable = false, length = 50)
     private String prescriptionId;
 
     @Column(name = "visitId", nullable = false)
@@ -62,6 +69,10 @@ public class Prescription {
     @Column(name = "updatedAt")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Integer getId() { return id; }
     public void setId(Integer id) { this.id = id; }
     public String getPrescriptionId() { return prescriptionId; }
@@ -98,4 +109,6 @@ public class Prescription {
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,94 @@
+package com.pmsmanus.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "stat_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stat_rollups_key",
+                columnNames = {"statDate", "metric", "doctorId", "status"}),
+        indexes = @Index(name = "idx_stat_rollups_metric_date", columnList = "metric, statDate"))
+public class StatRollup {
+    public static final String APPOINTMENTS = "appointments";
+    public static final String NEW_PATIENTS = "new_patients";
+    public static final int NO_DOCTOR = 0;
+    public static final String NO_STATUS = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "statDate", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "metric", nullable = false, length = 30)
+    private String metric;
+
+    @Column(name = "doctorId", nullable = false)
+    private Integer doctorId;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "total", nullable = false)
+    private Long total;
+
+    public StatRollup() {
+    }
+
+    public StatRollup(LocalDate statDate, String metric, Integer doctorId, String status, Long total) {
+        this.statDate = statDate;
+        this.metric = metric;
+        this.doctorId = doctorId;
+        this.status = status;
+        this.total = total;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public void setStatDate(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public Integer getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Integer doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pmsmanus.event;
+
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A change counter and last-modified time per kind of data, for conditional
+ * GETs. Counters live in memory, so tags carry a per-boot epoch: a restart
+ * makes every client refetch once, and a tag from one node never matches on
+ * another. Changes made on other nodes advance the counters when they arrive
+ * through the change log, so a node can answer 304 for data another node
+ * changed for at most {@code pms.cluster.poll-interval}.
+ *
+ * <p>Caches, indexes and rollups are updated by other listeners of the same
+ * event. A change made during a request is therefore counted again when the
+ * request completes, after all of them have run. A client that fetched between
+ * the two counts holds a tag that is already out of date.
+ */
+@Component
+public class ChangeTracker {
+
+    public enum Kind { PATIENTS, APPOINTMENTS, PRESCRIPTIONS, DOCUMENTS, ROLLUPS }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(KINDS.length);
+    private final AtomicLongArray modified = new AtomicLongArray(KINDS.length);
+
+    public ChangeTracker() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < KINDS.length; i++) modified.set(i, now);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Kind kind = kindOf(event.current());
+        if (kind == null) return;
+        touch(kind);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.registerDestructionCallback(ChangeTracker.class.getName() + "." + kind,
+                    () -> touch(kind), RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        touch(event.kind());
+        // The writing node updated the rollups in the same step.
+        if (event.kind() == Kind.PATIENTS || event.kind() == Kind.APPOINTMENTS) touch(Kind.ROLLUPS);
+    }
+
+    public void touch(Kind kind) {
+        modified.accumulateAndGet(kind.ordinal(), System.currentTimeMillis(), Math::max);
+        versions.incrementAndGet(kind.ordinal());
+    }
+
+    /** A weak entity tag over the given kinds, read before the data it will describe. */
+    public String etag(Kind[] kinds, String suffix) {
+        StringBuilder sb = new StringBuilder("W/\"").append(epoch);
+        for (Kind kind : kinds) sb.append('-').append(versions.get(kind.ordinal()));
+        if (suffix != null) sb.append('-').append(suffix);
+        return sb.append('"').toString();
+    }
+
+    public long lastModified(Kind[] kinds) {
+        long latest = 0;
+        for (Kind kind : kinds) latest = Math.max(latest, modified.get(kind.ordinal()));
+        return latest;
+    }
+
+    public static Kind kindOf(Object entity) {
+        if (entity instanceof Patient) return Kind.PATIENTS;
+        if (entity instanceof Appointment) return Kind.APPOINTMENTS;
+        if (entity instanceof Prescription) return Kind.PRESCRIPTIONS;
+        if (entity instanceof Document) return Kind.DOCUMENTS;
+        return null;
+    }
+}
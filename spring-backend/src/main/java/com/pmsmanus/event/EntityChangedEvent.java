@@ -0,0 +1,35 @@
+package com.pmsmanus.event;
+
+import org.springframework.beans.BeanUtils;
+
+/**
+ * Published by the controllers after an entity has been written. {@code previous}
+ * is a detached copy of the state before an update or the removed row on delete.
+ */
+public record EntityChangedEvent(Action action, Object entity, Object previous) {
+
+    public enum Action { CREATED, UPDATED, DELETED }
+
+    public static EntityChangedEvent created(Object entity) {
+        return new EntityChangedEvent(Action.CREATED, entity, null);
+    }
+
+    public static EntityChangedEvent updated(Object entity, Object previous) {
+        return new EntityChangedEvent(Action.UPDATED, entity, previous);
+    }
+
+    public static EntityChangedEvent deleted(Object previous) {
+        return new EntityChangedEvent(Action.DELETED, null, previous);
+    }
+
+    public static <T> T snapshot(T entity) {
+        @SuppressWarnings("unchecked")
+        T copy = (T) BeanUtils.instantiateClass(entity.getClass());
+        BeanUtils.copyProperties(entity, copy);
+        return copy;
+    }
+
+    public Object current() {
+        return entity != null ? entity : previous;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pmsmanus.event;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Raised on every node but the writer for a change read from the change log.
+ * {@code ids} are the changed rows of {@code kind}, or empty when the writer
+ * only knew the kind, as after an archive run. {@code patientIds} and
+ * {@code days} are the patients and appointment days the change touched.
+ *
+ * <p>It carries no entity, so listeners reload what they need from the
+ * primary. Listeners that write, such as the rollups and the audit log, do not
+ * handle it: the writing node already did.
+ */
+public record RemoteChangeEvent(ChangeTracker.Kind kind, List<Integer> ids, Set<Integer> patientIds,
+                                Set<LocalDate> days) {
+}
@@ -0,0 +1,260 @@
+package com.pmsmanus.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.event.EntityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes entity changes to Server-Sent Event subscribers by topic:
+ * {@code patients}, {@code patient:<id>} (the patient and everything attached
+ * to them), {@code appointments}, {@code appointments:<date>},
+ * {@code appointments:today}, {@code prescriptions} and {@code documents}.
+ * Changes reach the feed through the change log, on the node that made them
+ * and on every other one, so event ids are log sequences and a client can
+ * resume from Last-Event-ID on any node. Recent events are kept for that; a
+ * client that fell further behind is told to resync.
+ */
+@Component
+public class ChangeFeed implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+    private static final String TODAY = "appointments:today";
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final long writeTimeoutNanos;
+    private final int bufferSize;
+    private final int replaySize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ArrayDeque<FeedEvent> recent = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter dropped;
+    /** The highest id published, and the highest id this node can no longer replay. */
+    private long sequence;
+    private long floor;
+
+    public ChangeFeed(ObjectMapper objectMapper,
+                      MeterRegistry registry,
+                      @Value("${pms.feed.buffer-size:256}") int bufferSize,
+                      @Value("${pms.feed.replay-size:1024}") int replaySize,
+                      @Value("${pms.feed.max-subscribers:2000}") int maxSubscribers,
+                      @Value("${pms.feed.timeout:30m}") Duration timeout,
+                      @Value("${pms.feed.drain-threads:64}") int drainThreads,
+                      @Value("${pms.feed.write-timeout:10s}") Duration writeTimeout) {
+        this.objectMapper = objectMapper;
+        this.executor = drainExecutor(drainThreads);
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.dropped = Counter.builder("pms.feed.dropped")
+                .description("Subscriber buffers emptied on overflow and replaced by a resync")
+                .register(registry);
+        Gauge.builder("pms.feed.subscribers", subscribers, Set::size)
+                .description("Open change feed streams")
+                .register(registry);
+    }
+
+    public SseEmitter subscribe(Collection<String> topics, Long lastEventId) {
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String topic : topics) {
+            String t = topic.trim();
+            if (!t.isEmpty()) wanted.add(t);
+        }
+        if (wanted.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one topic is required");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open change feeds");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber[] self = new Subscriber[1];
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(wanted), bufferSize, executor, writeTimeoutNanos,
+                () -> subscribers.remove(self[0]));
+        self[0] = subscriber;
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        // Registering and replaying under the publish lock means no event is
+        // both replayed and delivered live, or missed between the two.
+        lock.lock();
+        try {
+            subscribers.add(subscriber);
+            if (lastEventId != null) replay(subscriber, lastEventId);
+        } finally {
+            lock.unlock();
+        }
+        return emitter;
+    }
+
+    /** Resumes numbering after {@code lastId}, the newest change logged before this node started. */
+    public void start(long lastId) {
+        lock.lock();
+        try {
+            sequence = lastId;
+            floor = lastId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The event for a change, without an id, or null for entities the feed does not carry. */
+    public FeedEvent describe(EntityChangedEvent event) {
+        Object current = event.current();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("action", event.action());
+        Set<String> topics = new LinkedHashSet<>();
+        String name;
+        Object data = null;
+        if (current instanceof Patient p) {
+            name = "patient";
+            body.put("id", p.getId());
+            topics.add("patients");
+            topics.add("patient:" + p.getId());
+            if (event.entity() != null) data = PatientSummary.of(p);
+        } else if (current instanceof Appointment a) {
+            name = "appointment";
+            body.put("id", a.getId());
+            body.put("patientId", a.getPatientId());
+            topics.add("appointments");
+            topics.add("patient:" + a.getPatientId());
+            addDay(topics, a.getAppointmentDate());
+            if (event.previous() instanceof Appointment before) addDay(topics, before.getAppointmentDate());
+            if (event.entity() != null) data = AppointmentSummary.of(a);
+        } else if (current instanceof Prescription p) {
+            name = "prescription";
+            body.put("id", p.getId());
+            body.put("patientId", p.getPatientId());
+            topics.add("prescriptions");
+            topics.add("patient:" + p.getPatientId());
+            if (event.previous() instanceof Prescription before) topics.add("patient:" + before.getPatientId());
+            // Ids only: instructions are LONGTEXT and every event is also kept in change_log.
+        } else if (current instanceof Document d) {
+            name = "document";
+            body.put("id", d.getId());
+            body.put("patientId", d.getPatientId());
+            topics.add("documents");
+            topics.add("patient:" + d.getPatientId());
+            // Ids only, as for prescriptions: the description is LONGTEXT.
+        } else {
+            return null;
+        }
+        body.put("data", data);
+
+        try {
+            return new FeedEvent(0, name, objectMapper.writeValueAsString(body), topics);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize {} change for the feed", name, e);
+            return null;
+        }
+    }
+
+    /** Delivers a logged event; the change log calls this in sequence order. */
+    public void publish(FeedEvent event) {
+        lock.lock();
+        try {
+            sequence = Math.max(sequence, event.id());
+            recent.addLast(event);
+            if (recent.size() > replaySize) floor = recent.removeFirst().id();
+            for (Subscriber s : subscribers) {
+                if (event.matches(s.topics()) && !s.offer(event)) dropped.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId) {
+        if (lastEventId < floor) {
+            subscriber.resync();
+            return;
+        }
+        if (lastEventId >= sequence) {
+            // Seen on a node that is further along the log than this one.
+            subscriber.seenThrough(lastEventId);
+            return;
+        }
+        for (FeedEvent event : recent) {
+            if (event.id() > lastEventId && event.matches(subscriber.topics()) && !subscriber.offer(event)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Keeps idle streams open through proxies, finds clients that went away
+     * and closes streams whose write has been blocked past the write timeout.
+     */
+    @Scheduled(fixedDelayString = "${pms.feed.heartbeat-interval:25s}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) s.heartbeat();
+    }
+
+    @Override
+    public void close() {
+        for (Subscriber s : subscribers) s.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Writes run on their own threads, never the application's task executor,
+     * so clients blocked in a write cannot stall MVC async work. On Java 21 and
+     * later each drain gets a virtual thread; before that a fixed pool of
+     * {@code threads} platform threads is shared, and the write timeout frees
+     * a thread a stuck client holds.
+     */
+    private static ExecutorService drainExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+                Thread thread = new Thread(task, "feed-writer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Adds the topics for an appointment on {@code date}. */
+    public static void addDay(Set<String> topics, LocalDate date) {
+        if (date == null) return;
+        topics.add("appointments:" + date);
+        if (date.equals(LocalDate.now())) topics.add(TODAY);
+    }
+}
@@ -0,0 +1,29 @@
+package com.pmsmanus.feed;
+
+import java.util.Set;
+
+/**
+ * One change as sent to subscribers: {@code data} is the JSON body, serialized
+ * once however many subscribers receive it. {@code id} is the change log
+ * sequence, so it means the same on every node; it is 0 until the change has
+ * been logged.
+ */
+public record FeedEvent(long id, String name, String data, Set<String> topics) {
+    static final String RESYNC = "resync";
+
+    /** Tells subscribers of {@code topics} to reload, for changes too large to describe row by row. */
+    public static FeedEvent resync(Set<String> topics) {
+        return new FeedEvent(0, RESYNC, "{}", topics);
+    }
+
+    public FeedEvent withId(long id) {
+        return new FeedEvent(id, name, data, topics);
+    }
+
+    boolean matches(Set<String> subscribed) {
+        for (String topic : topics) {
+            if (subscribed.contains(topic)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package com.pmsmanus.feed;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open stream. Events wait in a bounded queue and are written by at most
+ * one executor task at a time, so a slow client never blocks the publisher or
+ * other subscribers. When the queue overflows it is emptied and the client is
+ * told to resync, which costs it one reload instead of an unbounded backlog.
+ * A write still blocked after the write timeout, noticed at the next
+ * heartbeat, ends the stream with an error so the container drops the
+ * connection and the writing thread is released.
+ */
+final class Subscriber {
+    private final SseEmitter emitter;
+    private final Set<String> topics;
+    private final ArrayBlockingQueue<FeedEvent> queue;
+    private final Executor executor;
+    private final long writeTimeoutNanos;
+    private final Runnable onClose;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long seenThrough;
+    /** When the write in progress started, or 0 between writes. */
+    private volatile long writeStarted;
+    private volatile boolean overflowed;
+    private volatile boolean closed;
+
+    Subscriber(SseEmitter emitter, Set<String> topics, int capacity, Executor executor, long writeTimeoutNanos,
+               Runnable onClose) {
+        this.emitter = emitter;
+        this.topics = topics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = executor;
+        this.writeTimeoutNanos = writeTimeoutNanos;
+        this.onClose = onClose;
+    }
+
+    Set<String> topics() {
+        return topics;
+    }
+
+    /** Skips events up to {@code id}, which the client saw on another node that had got further. */
+    void seenThrough(long id) {
+        seenThrough = id;
+    }
+
+    /** Queues the event, or returns false if the queue was full and had to be dropped. */
+    boolean offer(FeedEvent event) {
+        if (closed || event.id() <= seenThrough) return true;
+        boolean kept = true;
+        if (!queue.offer(event)) {
+            queue.clear();
+            overflowed = true;
+            kept = false;
+            queue.offer(event);
+        }
+        schedule();
+        return kept;
+    }
+
+    void resync() {
+        overflowed = true;
+        schedule();
+    }
+
+    void heartbeat() {
+        if (closed) return;
+        long started = writeStarted;
+        if (started != 0 && System.nanoTime() - started > writeTimeoutNanos) {
+            close(new IOException("Write to the change feed client timed out"));
+            return;
+        }
+        if (!draining.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            try {
+                send(SseEmitter.event().comment(""));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+                if (!queue.isEmpty() || overflowed) schedule();
+            }
+        });
+    }
+
+    void close() {
+        close(null);
+    }
+
+    private void close(Throwable error) {
+        if (closed) return;
+        closed = true;
+        queue.clear();
+        onClose.run();
+        try {
+            if (error == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(error);
+            }
+        } catch (IllegalStateException ignored) {
+            // already completed by the container
+        }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) throws IOException {
+        writeStarted = System.nanoTime();
+        try {
+            emitter.send(event);
+        } finally {
+            writeStarted = 0;
+        }
+    }
+
+    private void schedule() {
+        if (closed || !draining.compareAndSet(false, true)) return;
+        executor.execute(this::drain);
+    }
+
+    private void drain() {
+        try {
+            while (!closed) {
+                if (overflowed) {
+                    overflowed = false;
+                    send(SseEmitter.event().name(FeedEvent.RESYNC).data("{}"));
+                }
+                FeedEvent event = queue.poll();
+                if (event == null) break;
+                send(SseEmitter.event().id(Long.toString(event.id())).name(event.name()).data(event.data()));
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        } finally {
+            draining.set(false);
+            if (!closed && (!queue.isEmpty() || overflowed)) schedule();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.pmsmanus.importer;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType type = MediaType.parseMediaType(contentType);
+            if ("csv".equalsIgnoreCase(type.getSubtype())) return CSV;
+            if (MediaType.APPLICATION_NDJSON.includes(type)
+                    || "x-ndjson".equalsIgnoreCase(type.getSubtype())
+                    || "jsonl".equalsIgnoreCase(type.getSubtype())) {
+                return NDJSON;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType
+                + " (expected text/csv or application/x-ndjson)");
+    }
+}
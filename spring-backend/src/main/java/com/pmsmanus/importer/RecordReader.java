@@ -0,0 +1,151 @@
+package com.pmsmanus.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one record at a time from a CSV (header row required, RFC 4180 quoting)
+ * or NDJSON stream without buffering the whole body. Blank CSV cells become null.
+ */
+public class RecordReader implements Closeable {
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private long recordNumber;
+
+    public RecordReader(InputStream in, ImportFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Number of the record last returned by {@link #next()}, starting at 1. */
+    public long recordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Returns the next record, or null at end of input. A record that cannot be
+     * parsed is reported as a {@link MalformedRecordException}; reading can continue.
+     */
+    public Map<String, Object> next() throws IOException {
+        if (format == ImportFormat.NDJSON) {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+            } while (line.isBlank());
+            recordNumber++;
+            try {
+                return objectMapper.readValue(line, MAP);
+            } catch (JsonProcessingException e) {
+                throw new MalformedRecordException(recordNumber, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+        if (header == null) {
+            List<String> names = readCsvRow();
+            if (names == null) return null;
+            header = new ArrayList<>(names.size());
+            for (String name : names) header.add(name == null ? "" : name.trim());
+        }
+        List<String> cells;
+        do {
+            cells = readCsvRow();
+            if (cells == null) return null;
+        } while (cells.size() == 1 && cells.get(0) == null);
+        recordNumber++;
+        if (cells.size() > header.size()) {
+            throw new MalformedRecordException(recordNumber,
+                    "Expected " + header.size() + " columns but found " + cells.size());
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            row.put(header.get(i), cells.get(i));
+        }
+        return row;
+    }
+
+    private List<String> readCsvRow() throws IOException {
+        int c = reader.read();
+        if (c < 0) return null;
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) break;
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        cell.append('"');
+                    } else {
+                        quoted = false;
+                        if (next >= 0) reader.reset();
+                    }
+                } else {
+                    cell.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') reader.reset();
+                break;
+            } else if (c == ',') {
+                cells.add(cellValue(cell, wasQuoted));
+                cell.setLength(0);
+                wasQuoted = false;
+            } else if (c == '"' && cell.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else {
+                cell.append((char) c);
+            }
+            c = reader.read();
+        }
+        cells.add(cellValue(cell, wasQuoted));
+        return cells;
+    }
+
+    private static String cellValue(StringBuilder cell, boolean quoted) {
+        if (quoted) return cell.toString();
+        String value = cell.toString().trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public static class MalformedRecordException extends IOException {
+        private final long recordNumber;
+
+        public MalformedRecordException(long recordNumber, String message) {
+            super(message);
+            this.recordNumber = recordNumber;
+        }
+
+        public long getRecordNumber() {
+            return recordNumber;
+        }
+    }
+}
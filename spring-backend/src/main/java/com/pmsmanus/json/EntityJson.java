@@ -0,0 +1,230 @@
+package com.pmsmanus.json;
+
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Hand-written writers for the entities and list rows the API returns most,
+ * with properties in the order Jackson finds them: declaration order of the
+ * fields, or of the record components. A property added to one of these
+ * classes must be added here too; EntityJsonTest compares every writer with
+ * the ObjectMapper and fails until it is.
+ */
+public final class EntityJson {
+
+    @FunctionalInterface
+    public interface Writer<T> {
+        void write(T value, JsonOutput out) throws IOException;
+    }
+
+    private static final Map<Class<?>, Writer<?>> WRITERS = Map.of(
+            Patient.class, (Writer<Patient>) EntityJson::patient,
+            PatientSummary.class, (Writer<PatientSummary>) EntityJson::patientSummary,
+            Appointment.class, (Writer<Appointment>) EntityJson::appointment,
+            AppointmentSummary.class, (Writer<AppointmentSummary>) EntityJson::appointmentSummary,
+            Prescription.class, (Writer<Prescription>) EntityJson::prescription,
+            Document.class, (Writer<Document>) EntityJson::document);
+
+    private EntityJson() {
+    }
+
+    /** The writer for exactly {@code type}, or null. Subclasses such as lazy proxies are left to Jackson. */
+    @SuppressWarnings("unchecked")
+    public static <T> Writer<T> writerFor(Class<T> type) {
+        return (Writer<T>) WRITERS.get(type);
+    }
+
+    public static boolean supports(Class<?> type) {
+        return WRITERS.containsKey(type);
+    }
+
+    public static <T> void array(Collection<? extends T> rows, Writer<T> writer, JsonOutput out) throws IOException {
+        out.raw('[');
+        boolean first = true;
+        for (T row : rows) {
+            if (!first) out.raw(',');
+            first = false;
+            if (row == null) {
+                out.writeNull();
+            } else {
+                writer.write(row, out);
+            }
+        }
+        out.raw(']');
+    }
+
+    private static final byte[] ID = JsonOutput.first("id");
+    private static final byte[] PATIENT_ID = JsonOutput.next("patientId");
+    private static final byte[] DOCTOR_ID = JsonOutput.next("doctorId");
+    private static final byte[] STATUS = JsonOutput.next("status");
+    private static final byte[] CREATED_AT = JsonOutput.next("createdAt");
+    private static final byte[] UPDATED_AT = JsonOutput.next("updatedAt");
+    private static final byte[] VERSION = JsonOutput.next("version");
+
+    private static final byte[] P_FIRST_NAME = JsonOutput.next("firstName");
+    private static final byte[] P_LAST_NAME = JsonOutput.next("lastName");
+    private static final byte[] P_EMAIL = JsonOutput.next("email");
+    private static final byte[] P_PHONE = JsonOutput.next("phone");
+    private static final byte[] P_DATE_OF_BIRTH = JsonOutput.next("dateOfBirth");
+    private static final byte[] P_GENDER = JsonOutput.next("gender");
+    private static final byte[] P_ADDRESS = JsonOutput.next("address");
+    private static final byte[] P_CITY = JsonOutput.next("city");
+    private static final byte[] P_STATE = JsonOutput.next("state");
+    private static final byte[] P_ZIP_CODE = JsonOutput.next("zipCode");
+    private static final byte[] P_EMERGENCY_CONTACT = JsonOutput.next("emergencyContact");
+    private static final byte[] P_EMERGENCY_PHONE = JsonOutput.next("emergencyPhone");
+    private static final byte[] P_MEDICAL_HISTORY = JsonOutput.next("medicalHistory");
+    private static final byte[] P_ALLERGIES = JsonOutput.next("allergies");
+    private static final byte[] P_BLOOD_TYPE = JsonOutput.next("bloodType");
+
+    static void patient(Patient p, JsonOutput out) throws IOException {
+        out.raw(ID).number(p.getId());
+        out.raw(PATIENT_ID).string(p.getPatientId());
+        out.raw(P_FIRST_NAME).string(p.getFirstName());
+        out.raw(P_LAST_NAME).string(p.getLastName());
+        out.raw(P_EMAIL).string(p.getEmail());
+        out.raw(P_PHONE).string(p.getPhone());
+        out.raw(P_DATE_OF_BIRTH).date(p.getDateOfBirth());
+        out.raw(P_GENDER).string(p.getGender());
+        out.raw(P_ADDRESS).string(p.getAddress());
+        out.raw(P_CITY).string(p.getCity());
+        out.raw(P_STATE).string(p.getState());
+        out.raw(P_ZIP_CODE).string(p.getZipCode());
+        out.raw(P_EMERGENCY_CONTACT).string(p.getEmergencyContact());
+        out.raw(P_EMERGENCY_PHONE).string(p.getEmergencyPhone());
+        out.raw(P_MEDICAL_HISTORY).string(p.getMedicalHistory());
+        out.raw(P_ALLERGIES).string(p.getAllergies());
+        out.raw(P_BLOOD_TYPE).string(p.getBloodType());
+        out.raw(CREATED_AT).dateTime(p.getCreatedAt());
+        out.raw(UPDATED_AT).dateTime(p.getUpdatedAt());
+        out.raw(VERSION).number(p.getVersion());
+        out.raw('}');
+    }
+
+    static void patientSummary(PatientSummary p, JsonOutput out) throws IOException {
+        out.raw(ID).number(p.id());
+        out.raw(PATIENT_ID).string(p.patientId());
+        out.raw(P_FIRST_NAME).string(p.firstName());
+        out.raw(P_LAST_NAME).string(p.lastName());
+        out.raw(P_EMAIL).string(p.email());
+        out.raw(P_PHONE).string(p.phone());
+        out.raw(P_DATE_OF_BIRTH).date(p.dateOfBirth());
+        out.raw(P_GENDER).string(p.gender());
+        out.raw(P_ADDRESS).string(p.address());
+        out.raw(P_CITY).string(p.city());
+        out.raw(P_STATE).string(p.state());
+        out.raw(P_ZIP_CODE).string(p.zipCode());
+        out.raw(P_EMERGENCY_CONTACT).string(p.emergencyContact());
+        out.raw(P_EMERGENCY_PHONE).string(p.emergencyPhone());
+        out.raw(P_BLOOD_TYPE).string(p.bloodType());
+        out.raw(CREATED_AT).dateTime(p.createdAt());
+        out.raw(UPDATED_AT).dateTime(p.updatedAt());
+        out.raw(VERSION).number(p.version());
+        out.raw('}');
+    }
+
+    private static final byte[] A_APPOINTMENT_ID = JsonOutput.next("appointmentId");
+    private static final byte[] A_APPOINTMENT_DATE = JsonOutput.next("appointmentDate");
+    private static final byte[] A_APPOINTMENT_TIME = JsonOutput.next("appointmentTime");
+    private static final byte[] A_DURATION = JsonOutput.next("duration");
+    private static final byte[] A_REASON = JsonOutput.next("reason");
+    private static final byte[] A_NOTES = JsonOutput.next("notes");
+
+    static void appointment(Appointment a, JsonOutput out) throws IOException {
+        out.raw(ID).number(a.getId());
+        out.raw(A_APPOINTMENT_ID).string(a.getAppointmentId());
+        out.raw(PATIENT_ID).number(a.getPatientId());
+        out.raw(DOCTOR_ID).number(a.getDoctorId());
+        out.raw(A_APPOINTMENT_DATE).date(a.getAppointmentDate());
+        out.raw(A_APPOINTMENT_TIME).time(a.getAppointmentTime());
+        out.raw(A_DURATION).number(a.getDuration());
+        out.raw(STATUS).string(a.getStatus());
+        out.raw(A_REASON).string(a.getReason());
+        out.raw(A_NOTES).string(a.getNotes());
+        out.raw(CREATED_AT).dateTime(a.getCreatedAt());
+        out.raw(UPDATED_AT).dateTime(a.getUpdatedAt());
+        out.raw('}');
+    }
+
+    static void appointmentSummary(AppointmentSummary a, JsonOutput out) throws IOException {
+        out.raw(ID).number(a.id());
+        out.raw(A_APPOINTMENT_ID).string(a.appointmentId());
+        out.raw(PATIENT_ID).number(a.patientId());
+        out.raw(DOCTOR_ID).number(a.doctorId());
+        out.raw(A_APPOINTMENT_DATE).date(a.appointmentDate());
+        out.raw(A_APPOINTMENT_TIME).time(a.appointmentTime());
+        out.raw(A_DURATION).number(a.duration());
+        out.raw(STATUS).string(a.status());
+        out.raw(A_REASON).string(a.reason());
+        out.raw(CREATED_AT).dateTime(a.createdAt());
+        out.raw(UPDATED_AT).dateTime(a.updatedAt());
+        out.raw('}');
+    }
+
+    private static final byte[] RX_PRESCRIPTION_ID = JsonOutput.next("prescriptionId");
+    private static final byte[] RX_VISIT_ID = JsonOutput.next("visitId");
+    private static final byte[] RX_MEDICATION_NAME = JsonOutput.next("medicationName");
+    private static final byte[] RX_DOSAGE = JsonOutput.next("dosage");
+    private static final byte[] RX_FREQUENCY = JsonOutput.next("frequency");
+    private static final byte[] RX_DURATION = JsonOutput.next("duration");
+    private static final byte[] RX_ROUTE = JsonOutput.next("route");
+    private static final byte[] RX_QUANTITY = JsonOutput.next("quantity");
+    private static final byte[] RX_REFILLS = JsonOutput.next("refills");
+    private static final byte[] RX_INSTRUCTIONS = JsonOutput.next("instructions");
+    private static final byte[] RX_START_DATE = JsonOutput.next("startDate");
+    private static final byte[] RX_END_DATE = JsonOutput.next("endDate");
+
+    static void prescription(Prescription p, JsonOutput out) throws IOException {
+        out.raw(ID).number(p.getId());
+        out.raw(RX_PRESCRIPTION_ID).string(p.getPrescriptionId());
+        out.raw(RX_VISIT_ID).number(p.getVisitId());
+        out.raw(PATIENT_ID).number(p.getPatientId());
+        out.raw(DOCTOR_ID).number(p.getDoctorId());
+        out.raw(RX_MEDICATION_NAME).string(p.getMedicationName());
+        out.raw(RX_DOSAGE).string(p.getDosage());
+        out.raw(RX_FREQUENCY).string(p.getFrequency());
+        out.raw(RX_DURATION).string(p.getDuration());
+        out.raw(RX_ROUTE).string(p.getRoute());
+        out.raw(RX_QUANTITY).number(p.getQuantity());
+        out.raw(RX_REFILLS).number(p.getRefills());
+        out.raw(RX_INSTRUCTIONS).string(p.getInstructions());
+        out.raw(RX_START_DATE).date(p.getStartDate());
+        out.raw(RX_END_DATE).date(p.getEndDate());
+        out.raw(STATUS).string(p.getStatus());
+        out.raw(CREATED_AT).dateTime(p.getCreatedAt());
+        out.raw(UPDATED_AT).dateTime(p.getUpdatedAt());
+        out.raw(VERSION).number(p.getVersion());
+        out.raw('}');
+    }
+
+    private static final byte[] D_DOCUMENT_TYPE = JsonOutput.next("documentType");
+    private static final byte[] D_DOCUMENT_NAME = JsonOutput.next("documentName");
+    private static final byte[] D_DESCRIPTION = JsonOutput.next("description");
+    private static final byte[] D_FILE_URL = JsonOutput.next("fileUrl");
+    private static final byte[] D_FILE_KEY = JsonOutput.next("fileKey");
+    private static final byte[] D_MIME_TYPE = JsonOutput.next("mimeType");
+    private static final byte[] D_FILE_SIZE = JsonOutput.next("fileSize");
+
+    static void document(Document d, JsonOutput out) throws IOException {
+        out.raw(ID).number(d.getId());
+        out.raw(PATIENT_ID).number(d.getPatientId());
+        out.raw(D_DOCUMENT_TYPE).string(d.getDocumentType());
+        out.raw(D_DOCUMENT_NAME).string(d.getDocumentName());
+        out.raw(D_DESCRIPTION).string(d.getDescription());
+        out.raw(D_FILE_URL).string(d.getFileUrl());
+        out.raw(D_FILE_KEY).string(d.getFileKey());
+        out.raw(D_MIME_TYPE).string(d.getMimeType());
+        out.raw(D_FILE_SIZE).number(d.getFileSize());
+        out.raw(CREATED_AT).dateTime(d.getCreatedAt());
+        out.raw(UPDATED_AT).dateTime(d.getUpdatedAt());
+        out.raw('}');
+    }
+}
@@ -0,0 +1,116 @@
+package com.pmsmanus.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.dto.CursorPage;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Writes the types {@link EntityJson} knows, and collections and cursor pages
+ * of them, with its writers instead of Jackson. Registered ahead of the
+ * Jackson converter, it only claims a response when the declared body type is
+ * one of those; an element of another runtime class, such as a lazy proxy, is
+ * written by the application's ObjectMapper into the same stream. Request
+ * bodies are still read by Jackson.
+ */
+public class EntityJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    private static final byte[] ITEMS = JsonOutput.first("items");
+    private static final byte[] NEXT_CURSOR = JsonOutput.next("nextCursor");
+
+    private final ObjectMapper objectMapper;
+
+    public EntityJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return EntityJson.supports(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return writable(type != null ? type : clazz) && canWrite(mediaType);
+    }
+
+    private static boolean writable(Type type) {
+        if (type instanceof Class<?> c) return EntityJson.supports(c);
+        if (type instanceof ParameterizedType p && p.getRawType() instanceof Class<?> raw
+                && (Collection.class.isAssignableFrom(raw) || raw == CursorPage.class)) {
+            Type[] args = p.getActualTypeArguments();
+            return args.length == 1 && args[0] instanceof Class<?> element && EntityJson.supports(element);
+        }
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonOutput out = JsonOutput.to(outputMessage.getBody())) {
+            if (value instanceof Collection<?> rows) {
+                array(rows, out);
+            } else if (value instanceof CursorPage<?> page) {
+                out.raw(ITEMS);
+                array(page.items(), out);
+                out.raw(NEXT_CURSOR).string(page.nextCursor());
+                out.raw('}');
+            } else {
+                write(value, out);
+            }
+        }
+    }
+
+    private void array(Collection<?> rows, JsonOutput out) throws IOException {
+        out.raw('[');
+        boolean first = true;
+        for (Object row : rows) {
+            if (!first) out.raw(',');
+            first = false;
+            write(row, out);
+        }
+        out.raw(']');
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(Object value, JsonOutput out) throws IOException {
+        if (value == null) {
+            out.writeNull();
+            return;
+        }
+        EntityJson.Writer<Object> writer = (EntityJson.Writer<Object>) EntityJson.writerFor(value.getClass());
+        if (writer != null) {
+            writer.write(value, out);
+        } else {
+            out.raw(objectMapper.writeValueAsBytes(value));
+        }
+    }
+
+    // Never reached: canRead is false for every type, so request bodies go to Jackson.
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Request bodies are read by Jackson", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Request bodies are read by Jackson", inputMessage);
+    }
+}
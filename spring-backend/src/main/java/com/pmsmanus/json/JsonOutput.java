@@ -0,0 +1,310 @@
+package com.pmsmanus.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UTF-8 JSON written straight into a pooled byte buffer that is flushed to the
+ * target stream when full. Output matches the application's ObjectMapper:
+ * strings escape quotes, backslashes, control characters and every surrogate
+ * the way Jackson does, and dates and times are ISO-8601 strings with the
+ * shortest fraction, written digit by digit instead of through a formatter.
+ *
+ * <p>Property names are passed pre-encoded, as built by {@link #first} and
+ * {@link #next}, so writing one is a single array copy.
+ */
+public final class JsonOutput implements Closeable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int POOLED_BUFFERS = 64;
+    private static final ConcurrentLinkedQueue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    /** For each ASCII character: 0 to copy it, the letter of its short escape, or -1 for a unicode escape. */
+    private static final int[] ESCAPES = new int[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) ESCAPES[c] = -1;
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+    }
+
+    private final OutputStream target;
+    private byte[] buffer;
+    private int pos;
+
+    private JsonOutput(OutputStream target) {
+        this.target = target;
+        byte[] pooled = POOL.poll();
+        if (pooled != null) POOL_SIZE.decrementAndGet();
+        this.buffer = pooled != null ? pooled : new byte[BUFFER_SIZE];
+    }
+
+    /** Writes to {@code target}; closing flushes but leaves {@code target} open. */
+    public static JsonOutput to(OutputStream target) {
+        return new JsonOutput(target);
+    }
+
+    public interface Body {
+        void writeTo(JsonOutput out) throws IOException;
+    }
+
+    public static byte[] toBytes(Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        try (JsonOutput out = to(bytes)) {
+            body.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** {@code {"name":}, for an object's first property. */
+    public static byte[] first(String name) {
+        return ("{\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** {@code ,"name":}, for every following property. */
+    public static byte[] next(String name) {
+        return (",\"" + name + "\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public JsonOutput raw(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - pos) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                target.write(bytes);
+                return this;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        pos += bytes.length;
+        return this;
+    }
+
+    public JsonOutput raw(char c) throws IOException {
+        ensure(1);
+        buffer[pos++] = (byte) c;
+        return this;
+    }
+
+    public JsonOutput writeNull() throws IOException {
+        return raw(NULL);
+    }
+
+    public JsonOutput number(Integer value) throws IOException {
+        return value == null ? writeNull() : number(value.longValue());
+    }
+
+    public JsonOutput number(Long value) throws IOException {
+        return value == null ? writeNull() : number(value.longValue());
+    }
+
+    public JsonOutput number(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) return ascii(Long.toString(value));
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int digits = digits(value);
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos = end;
+        return this;
+    }
+
+    public JsonOutput string(String value) throws IOException {
+        if (value == null) return writeNull();
+        int length = value.length();
+        // Worst case is six bytes per character, for a unicode escape.
+        if (length > (buffer.length - 2) / 6) return longString(value);
+        ensure(length * 6 + 2);
+        byte[] buf = buffer;
+        int p = pos;
+        buf[p++] = '"';
+        for (int i = 0; i < length; i++) p = encode(buf, p, value.charAt(i));
+        buf[p++] = '"';
+        pos = p;
+        return this;
+    }
+
+    /** {@code yyyy-MM-dd}. */
+    public JsonOutput date(LocalDate value) throws IOException {
+        if (value == null) return writeNull();
+        if (!plainYear(value.getYear())) return ascii('"' + DateTimeFormatter.ISO_LOCAL_DATE.format(value) + '"');
+        ensure(12);
+        buffer[pos++] = '"';
+        writeDate(value);
+        buffer[pos++] = '"';
+        return this;
+    }
+
+    /** {@code HH:mm:ss} with the fraction of a second, if any, trimmed of trailing zeros. */
+    public JsonOutput time(LocalTime value) throws IOException {
+        if (value == null) return writeNull();
+        ensure(20);
+        buffer[pos++] = '"';
+        writeTime(value);
+        buffer[pos++] = '"';
+        return this;
+    }
+
+    /** {@code yyyy-MM-dd'T'HH:mm:ss} with the fraction of a second, if any, trimmed of trailing zeros. */
+    public JsonOutput dateTime(LocalDateTime value) throws IOException {
+        if (value == null) return writeNull();
+        if (!plainYear(value.getYear())) return ascii('"' + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value) + '"');
+        ensure(32);
+        buffer[pos++] = '"';
+        writeDate(value.toLocalDate());
+        buffer[pos++] = 'T';
+        writeTime(value.toLocalTime());
+        buffer[pos++] = '"';
+        return this;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) return;
+        try {
+            flushBuffer();
+        } finally {
+            byte[] released = buffer;
+            buffer = null;
+            if (POOL_SIZE.incrementAndGet() <= POOLED_BUFFERS) {
+                POOL.offer(released);
+            } else {
+                POOL_SIZE.decrementAndGet();
+            }
+        }
+    }
+
+    private JsonOutput longString(String value) throws IOException {
+        // Rare enough to take the slow route: one character at a time, each with room for its escape.
+        raw('"');
+        for (int i = 0; i < value.length(); i++) {
+            ensure(6);
+            pos = encode(buffer, pos, value.charAt(i));
+        }
+        return raw('"');
+    }
+
+    private static int encode(byte[] buf, int p, char c) {
+        if (c < 0x80) {
+            int escape = ESCAPES[c];
+            if (escape == 0) {
+                buf[p++] = (byte) c;
+            } else if (escape > 0) {
+                buf[p++] = '\\';
+                buf[p++] = (byte) escape;
+            } else {
+                p = unicodeEscape(buf, p, c);
+            }
+        } else if (c < 0x800) {
+            buf[p++] = (byte) (0xC0 | (c >> 6));
+            buf[p++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // Jackson escapes each half of a pair rather than encoding the code point.
+            p = unicodeEscape(buf, p, c);
+        } else {
+            buf[p++] = (byte) (0xE0 | (c >> 12));
+            buf[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[p++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return p;
+    }
+
+    private static int unicodeEscape(byte[] buf, int p, char c) {
+        buf[p++] = '\\';
+        buf[p++] = 'u';
+        buf[p++] = HEX[(c >> 12) & 0xF];
+        buf[p++] = HEX[(c >> 8) & 0xF];
+        buf[p++] = HEX[(c >> 4) & 0xF];
+        buf[p++] = HEX[c & 0xF];
+        return p;
+    }
+
+    private void writeDate(LocalDate date) {
+        int year = date.getYear();
+        buffer[pos++] = (byte) ('0' + year / 1000);
+        buffer[pos++] = (byte) ('0' + year / 100 % 10);
+        twoDigits(year % 100);
+        buffer[pos++] = '-';
+        twoDigits(date.getMonthValue());
+        buffer[pos++] = '-';
+        twoDigits(date.getDayOfMonth());
+    }
+
+    private void writeTime(LocalTime time) {
+        twoDigits(time.getHour());
+        buffer[pos++] = ':';
+        twoDigits(time.getMinute());
+        buffer[pos++] = ':';
+        twoDigits(time.getSecond());
+        int nanos = time.getNano();
+        if (nanos == 0) return;
+        buffer[pos++] = '.';
+        int divisor = 100_000_000;
+        while (nanos > 0) {
+            buffer[pos++] = (byte) ('0' + nanos / divisor);
+            nanos %= divisor;
+            divisor /= 10;
+        }
+    }
+
+    private void twoDigits(int value) {
+        buffer[pos++] = (byte) ('0' + value / 10);
+        buffer[pos++] = (byte) ('0' + value % 10);
+    }
+
+    private JsonOutput ascii(String value) throws IOException {
+        return raw(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (bytes > buffer.length - pos) flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            target.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+
+    /** Years that ISO-8601 writes as four plain digits; others get a sign and go through the formatter. */
+    private static boolean plainYear(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,256 @@
+package com.pmsmanus.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every JDBC statement and counts the rows it returns or changes, tagged
+ * by operation and main table so the meter count stays bounded whatever SQL
+ * Hibernate generates. Also times connection acquisition, which includes any
+ * queueing in front of the pool. Statements run on a request thread are added
+ * to that request's {@link QueryStats}.
+ */
+public class MeteredDataSource extends DelegatingDataSource {
+    private static final int MAX_CACHED_SQL = 2048;
+
+    private final MeterRegistry registry;
+    private final Timer acquire;
+    private final Map<String, Shape> bySql = new ConcurrentHashMap<>();
+    private final Map<String, Shape> byTags = new ConcurrentHashMap<>();
+
+    public MeteredDataSource(DataSource target, MeterRegistry registry) {
+        super(target);
+        this.registry = registry;
+        this.acquire = Timer.builder("pms.db.connection.acquire")
+                .description("Time to obtain a JDBC connection, including queueing for the pool")
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long started = System.nanoTime();
+        Connection connection = super.getConnection();
+        return acquired(connection, System.nanoTime() - started);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long started = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return acquired(connection, System.nanoTime() - started);
+    }
+
+    private Connection acquired(Connection connection, long waited) {
+        acquire.record(waited, TimeUnit.NANOSECONDS);
+        QueryStats stats = QueryStats.current();
+        if (stats != null) stats.connection(waited);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    private Shape shape(String sql) {
+        if (sql == null) return shapeFor("batch", "unknown");
+        Shape shape = bySql.get(sql);
+        if (shape != null) return shape;
+        shape = describe(sql);
+        if (bySql.size() < MAX_CACHED_SQL) bySql.put(sql, shape);
+        return shape;
+    }
+
+    private Shape describe(String sql) {
+        String s = sql.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        int space = s.indexOf(' ');
+        String operation = space < 0 ? s : s.substring(0, space);
+        String table = switch (operation) {
+            case "select", "with", "delete" -> wordAfter(s, " from ");
+            case "insert", "merge", "replace" -> wordAfter(s, " into ");
+            case "update" -> wordAfter(s, "update ");
+            default -> {
+                operation = "other";
+                yield "unknown";
+            }
+        };
+        return shapeFor(operation, table);
+    }
+
+    private Shape shapeFor(String operation, String table) {
+        return byTags.computeIfAbsent(operation + ' ' + table, k -> new Shape(
+                Timer.builder("pms.db.query")
+                        .description("JDBC statement execution time")
+                        .tags("operation", operation, "table", table)
+                        .register(registry),
+                DistributionSummary.builder("pms.db.query.rows")
+                        .description("Rows returned or changed per JDBC statement")
+                        .baseUnit("rows")
+                        .tags("operation", operation, "table", table)
+                        .register(registry)));
+    }
+
+    private static String wordAfter(String sql, String marker) {
+        int at = sql.indexOf(marker);
+        if (at < 0) return "unknown";
+        int i = at + marker.length();
+        while (i < sql.length() && sql.charAt(i) == ' ') i++;
+        int start = i;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '"' || c == '`')) break;
+            i++;
+        }
+        String table = sql.substring(start, i).replace("\"", "").replace("`", "");
+        return table.isEmpty() ? "unknown" : table;
+    }
+
+    private void executed(String sql, long nanos) {
+        shape(sql).timer.record(nanos, TimeUnit.NANOSECONDS);
+        QueryStats stats = QueryStats.current();
+        if (stats != null) stats.executed(sql, nanos);
+    }
+
+    private void rows(String sql, long count) {
+        shape(sql).rows.record(count);
+        QueryStats stats = QueryStats.current();
+        if (stats != null) stats.rows(sql, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(MeteredDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Handles identity methods on the proxy itself; returns null when the call should go to the target. */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> args.length == 1 && method.getParameterCount() == 1 ? proxy == args[0] : null;
+            case "hashCode" -> method.getParameterCount() == 0 ? System.identityHashCode(proxy) : null;
+            default -> null;
+        };
+    }
+
+    private record Shape(Timer timer, DistributionSummary rows) {
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object same = identity(proxy, method, args);
+            if (same != null) return same;
+            Object result = call(target, method, args);
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return proxy(method.getReturnType(), new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String lastSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.lastSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object same = identity(proxy, method, args);
+            if (same != null) return same;
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                lastSql = sql;
+                long started = System.nanoTime();
+                Object result;
+                try {
+                    result = call(target, method, args);
+                } finally {
+                    executed(sql, System.nanoTime() - started);
+                }
+                if (result instanceof ResultSet rs) return proxy(ResultSet.class, new ResultSetHandler(rs, sql));
+                if (result instanceof Number n) {
+                    rows(sql, Math.max(0, n.longValue()));
+                } else if (result instanceof int[] counts) {
+                    long total = 0;
+                    for (int c : counts) if (c > 0) total += c;
+                    rows(sql, total);
+                } else if (result instanceof long[] counts) {
+                    long total = 0;
+                    for (long c : counts) if (c > 0) total += c;
+                    rows(sql, total);
+                }
+                return result;
+            }
+            Object result = call(target, method, args);
+            if (result instanceof ResultSet rs && name.equals("getResultSet")) {
+                return proxy(ResultSet.class, new ResultSetHandler(rs, lastSql));
+            }
+            return result;
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final String sql;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object same = identity(proxy, method, args);
+            if (same != null) return same;
+            Object result = call(target, method, args);
+            switch (method.getName()) {
+                case "next" -> {
+                    if (Boolean.TRUE.equals(result)) rows++;
+                }
+                case "close" -> {
+                    if (!recorded) {
+                        recorded = true;
+                        rows(sql, rows);
+                    }
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+}
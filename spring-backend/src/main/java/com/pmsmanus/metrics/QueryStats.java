@@ -0,0 +1,100 @@
+package com.pmsmanus.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC work done on behalf of one request: statements grouped by SQL text with
+ * their execution time and rows, plus time spent waiting for connections.
+ * Bound to the request thread by {@link RequestMetricsFilter}; work handed to
+ * other threads is not attributed to the request.
+ */
+public final class QueryStats {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SQL_LENGTH = 200;
+
+    private final Map<String, Entry> bySql = new HashMap<>();
+    private int statements;
+    private long executeNanos;
+    private long rows;
+    private int connections;
+    private long connectionWaitNanos;
+
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void executed(String sql, long nanos) {
+        statements++;
+        executeNanos += nanos;
+        Entry entry = entry(sql);
+        entry.count++;
+        entry.nanos += nanos;
+    }
+
+    void rows(String sql, long count) {
+        rows += count;
+        entry(sql).rows += count;
+    }
+
+    void connection(long waitNanos) {
+        connections++;
+        connectionWaitNanos += waitNanos;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /** One line per distinct statement, slowest first, limited to {@code top} entries. */
+    public String breakdown(int top) {
+        StringBuilder sb = new StringBuilder()
+                .append(statements).append(" statements in ").append(executeNanos / 1_000_000).append(" ms, ")
+                .append(rows).append(" rows, ")
+                .append(connections).append(" connections after ")
+                .append(connectionWaitNanos / 1_000_000).append(" ms waiting");
+        List<Map.Entry<String, Entry>> entries = new ArrayList<>(bySql.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, Entry> e) -> e.getValue().nanos).reversed());
+        for (int i = 0; i < entries.size() && i < top; i++) {
+            Entry e = entries.get(i).getValue();
+            sb.append("\n  ").append(e.count).append("x ")
+                    .append(e.nanos / 1_000_000).append(" ms ")
+                    .append(e.rows).append(" rows: ")
+                    .append(abbreviate(entries.get(i).getKey()));
+        }
+        if (entries.size() > top) sb.append("\n  ... ").append(entries.size() - top).append(" more");
+        return sb.toString();
+    }
+
+    private Entry entry(String sql) {
+        return bySql.computeIfAbsent(sql == null ? "(batch)" : sql, k -> new Entry());
+    }
+
+    private static String abbreviate(String sql) {
+        String s = sql.replaceAll("\\s+", " ");
+        return s.length() <= MAX_SQL_LENGTH ? s : s.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+    private static final class Entry {
+        int count;
+        long nanos;
+        long rows;
+    }
+}
@@ -0,0 +1,200 @@
+package com.pmsmanus.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.time.Duration;
+
+/**
+ * Records response body size and JDBC statements per request, by route, and
+ * logs the query breakdown of requests slower than
+ * {@code pms.metrics.slow-request-threshold}. A high statement count on a
+ * route that should issue a handful is the signature of an N+1.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RequestMetricsFilter.class);
+
+    private final MeterRegistry registry;
+    private final long slowNanos;
+    private final int slowTop;
+
+    public RequestMetricsFilter(MeterRegistry registry,
+                                @Value("${pms.metrics.slow-request-threshold:1s}") Duration slowThreshold,
+                                @Value("${pms.metrics.slow-request-top:10}") int slowTop) {
+        this.registry = registry;
+        this.slowNanos = slowThreshold.isZero() || slowThreshold.isNegative() ? Long.MAX_VALUE : slowThreshold.toNanos();
+        this.slowTop = slowTop;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        QueryStats stats = QueryStats.begin();
+        CountingResponse counted = new CountingResponse(response);
+        boolean failed = true;
+        try {
+            chain.doFilter(request, counted);
+            failed = false;
+        } finally {
+            QueryStats.end();
+            if (request.isAsyncStarted()) {
+                // Streams and event feeds finish on another thread; their duration
+                // is the client's, so they are measured but never logged as slow.
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, counted, stats);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, counted, stats);
+                long elapsed = System.nanoTime() - started;
+                if (elapsed >= slowNanos) {
+                    log.warn("Slow request {} {} took {} ms (status {}, {} bytes): {}",
+                            request.getMethod(), request.getRequestURI(), elapsed / 1_000_000,
+                            failed ? "failed" : counted.getStatus(), counted.bytes, stats.breakdown(slowTop));
+                }
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response, QueryStats stats) {
+        Tags tags = Tags.of("method", request.getMethod(), "uri", route(request));
+        DistributionSummary.builder("pms.http.response.size")
+                .description("Response body size before transport compression")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry)
+                .record(response.bytes);
+        DistributionSummary.builder("pms.http.statements")
+                .description("JDBC statements issued per request")
+                .baseUnit("statements")
+                .tags(tags)
+                .register(registry)
+                .record(stats.statements());
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+
+    /** Counts bytes written through the output stream, or characters through the writer. */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private volatile long bytes;
+        private ServletOutputStream out;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (out == null) {
+                ServletOutputStream target = super.getOutputStream();
+                out = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        target.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        target.setWriteListener(listener);
+                    }
+                };
+            }
+            return out;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter target = super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) {
+                        target.write(cbuf, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void write(String str, int off, int len) {
+                        target.write(str, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() {
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        target.close();
+                    }
+                });
+            }
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pmsmanus.oauth;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifies a Google ID token locally, as the {@code tokeninfo} endpoint would:
+ * an RS256 signature by one of {@link GoogleKeySet}'s keys, an accepted issuer,
+ * this app's client id as audience, and an expiry in the future.
+ */
+@Component
+public class GoogleIdTokenVerifier {
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final GoogleKeySet keySet;
+    private final ObjectMapper objectMapper;
+    private final Set<String> issuers;
+    private final String clientId;
+    private final long clockSkewSeconds;
+
+    public GoogleIdTokenVerifier(GoogleKeySet keySet,
+                                 ObjectMapper objectMapper,
+                                 @Value("${pms.oauth.google.issuers:https://accounts.google.com,accounts.google.com}") List<String> issuers,
+                                 @Value("${GOOGLE_CLIENT_ID:}") String clientId,
+                                 @Value("${pms.oauth.google.clock-skew:60s}") Duration clockSkew) {
+        this.keySet = keySet;
+        this.objectMapper = objectMapper;
+        this.issuers = Set.copyOf(issuers);
+        this.clientId = clientId;
+        this.clockSkewSeconds = clockSkew.toSeconds();
+    }
+
+    /** Returns the token's claims, or throws {@link IdTokenException}. */
+    public Map<String, Object> verify(String idToken) {
+        String[] parts = idToken == null ? new String[0] : idToken.split("\\.", -1);
+        if (parts.length != 3) throw new IdTokenException("Malformed ID token");
+        Map<String, Object> header = decode(parts[0]);
+        if (!"RS256".equals(header.get("alg"))) {
+            throw new IdTokenException("Unsupported ID token algorithm " + header.get("alg"));
+        }
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(keySet.key(String.valueOf(header.get("kid"))));
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new IdTokenException("Invalid ID token signature");
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IdTokenException("Invalid ID token signature", e);
+        }
+
+        Map<String, Object> claims = decode(parts[1]);
+        if (!issuers.contains(String.valueOf(claims.get("iss")))) {
+            throw new IdTokenException("Unexpected ID token issuer " + claims.get("iss"));
+        }
+        Object audience = claims.get("aud");
+        boolean forUs = audience instanceof Collection<?> list ? list.contains(clientId) : clientId.equals(audience);
+        if (!forUs) throw new IdTokenException("ID token was issued for another client");
+        long now = System.currentTimeMillis() / 1000;
+        if (!(claims.get("exp") instanceof Number exp) || exp.longValue() + clockSkewSeconds < now) {
+            throw new IdTokenException("ID token has expired");
+        }
+        if (claims.get("iat") instanceof Number iat && iat.longValue() - clockSkewSeconds > now) {
+            throw new IdTokenException("ID token was issued in the future");
+        }
+        if (Boolean.FALSE.equals(claims.get("email_verified"))) {
+            throw new IdTokenException("Email address is not verified");
+        }
+        return claims;
+    }
+
+    private Map<String, Object> decode(String part) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(part), JSON_OBJECT);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IdTokenException("Malformed ID token", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.pmsmanus.oauth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Google's ID token signing keys (JWKS), fetched once and refreshed on a
+ * schedule so a login verifies its token without a network call. A token
+ * signed with a key not seen yet triggers one extra fetch, at most every
+ * {@code pms.oauth.google.jwks-min-refresh-interval}, which picks up key
+ * rotation early; concurrent logins share that fetch.
+ */
+@Component
+public class GoogleKeySet {
+    private static final Logger log = LoggerFactory.getLogger(GoogleKeySet.class);
+
+    private final RestClient http;
+    private final String jwksUri;
+    private final String clientId;
+    private final long minRefreshNanos;
+    private final Object refreshLock = new Object();
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long fetchedAt;
+
+    public GoogleKeySet(@Qualifier("oauthRestClient") RestClient http,
+                        @Value("${pms.oauth.google.jwks-uri:https://www.googleapis.com/oauth2/v3/certs}") String jwksUri,
+                        @Value("${GOOGLE_CLIENT_ID:}") String clientId,
+                        @Value("${pms.oauth.google.jwks-min-refresh-interval:30s}") Duration minRefreshInterval) {
+        this.http = http;
+        this.jwksUri = jwksUri;
+        this.clientId = clientId;
+        this.minRefreshNanos = minRefreshInterval.toNanos();
+        this.fetchedAt = System.nanoTime() - minRefreshNanos;
+    }
+
+    public PublicKey key(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key != null) return key;
+        long seen = fetchedAt;
+        synchronized (refreshLock) {
+            if (fetchedAt == seen && System.nanoTime() - seen >= minRefreshNanos) {
+                // Counted before the fetch, so an unreachable endpoint is not retried by every login.
+                fetchedAt = System.nanoTime();
+                try {
+                    refresh();
+                } catch (RestClientException e) {
+                    throw new IdTokenException("Could not fetch signing keys: " + e.getMessage(), e);
+                }
+            }
+        }
+        key = keys.get(kid);
+        if (key == null) throw new IdTokenException("Unknown signing key " + kid);
+        return key;
+    }
+
+    /** Runs at startup and then every refresh interval, only when Google sign-in is configured. */
+    @Scheduled(fixedDelayString = "${pms.oauth.google.jwks-refresh-interval:1h}")
+    public void scheduledRefresh() {
+        if (clientId.isBlank()) return;
+        synchronized (refreshLock) {
+            fetchedAt = System.nanoTime();
+            try {
+                refresh();
+            } catch (RestClientException e) {
+                log.warn("Failed to refresh Google signing keys from {}, keeping {} cached keys: {}",
+                        jwksUri, keys.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void refresh() {
+        JsonNode body = http.get().uri(jwksUri).retrieve().body(JsonNode.class);
+        Map<String, PublicKey> fresh = new HashMap<>();
+        if (body != null) {
+            for (JsonNode jwk : body.path("keys")) {
+                if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")) continue;
+                try {
+                    fresh.put(jwk.get("kid").asText(), rsaKey(jwk.path("n").asText(), jwk.path("e").asText()));
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    log.warn("Skipping unusable signing key {}: {}", jwk.get("kid").asText(), e.getMessage());
+                }
+            }
+        }
+        if (fresh.isEmpty()) throw new RestClientException("No RSA keys in " + jwksUri);
+        keys = Map.copyOf(fresh);
+    }
+
+    private static PublicKey rsaKey(String modulus, String exponent) throws GeneralSecurityException {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                new BigInteger(1, decoder.decode(modulus)), new BigInteger(1, decoder.decode(exponent))));
+    }
+}
@@ -0,0 +1,13 @@
+package com.pmsmanus.oauth;
+
+/** An ID token that is malformed, badly signed, expired or issued for someone else. */
+public class IdTokenException extends RuntimeException {
+
+    public IdTokenException(String message) {
+        super(message);
+    }
+
+    public IdTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
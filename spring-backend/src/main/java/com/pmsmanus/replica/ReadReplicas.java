@@ -0,0 +1,282 @@
+package com.pmsmanus.replica;
+
+import com.pmsmanus.config.GuardedDataSource;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.metrics.MeteredDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The primary pool and the replica pools listed in
+ * {@code pms.datasource.replica.urls}. Read-only transactions are handed a
+ * replica in turn, skipping any that cannot be reached or lag the primary by
+ * more than {@code pms.datasource.replica.max-lag}; with none left, or for a
+ * request pinned by {@link ReadYourWritesFilter}, they use the primary.
+ *
+ * <p>Lag is measured with a heartbeat: every check stamps the primary's
+ * {@code replica_heartbeat} row and reads each replica's copy of it. A
+ * committed change may be missing from a replica for up to the lag limit plus
+ * one check, so its change counter is bumped again once that has passed and
+ * conditional GETs answered from a replica cannot pin a stale body to a
+ * current tag.
+ *
+ * <p>The pools are built here rather than as beans, so each one is given the
+ * wrappers the application's datasource bean otherwise gets: the waiting-thread
+ * guard and the statement and acquisition metrics, plus Hikari's own pool
+ * metrics. The routing datasource in front of them is left unwrapped.
+ */
+@Component
+@ConditionalOnExpression("!'${pms.datasource.replica.urls:}'.isBlank()")
+public class ReadReplicas implements MeterBinder, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicas.class);
+    private static final ChangeTracker.Kind[] KINDS = ChangeTracker.Kind.values();
+
+    private final HikariDataSource primary;
+    private final DataSource primaryConnections;
+    private final Map<String, DataSource> pools = new LinkedHashMap<>();
+    private final JdbcTemplate primaryJdbc;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final DataSource reads = new Reads();
+    private final ChangeTracker changes;
+    private final TaskScheduler scheduler;
+    private final long maxLagMillis;
+    private final long settleMillis;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLongArray settleAt = new AtomicLongArray(KINDS.length);
+    private final AtomicIntegerArray settling = new AtomicIntegerArray(KINDS.length);
+    private volatile Counter replicaReads;
+    private volatile Counter primaryReads;
+
+    public ReadReplicas(DataSourceProperties properties,
+                        Environment environment,
+                        ChangeTracker changes,
+                        TaskScheduler scheduler,
+                        ObjectProvider<MeterRegistry> registry,
+                        @Value("${pms.metrics.jdbc.enabled:true}") boolean metered,
+                        @Value("${pms.datasource.max-waiting:200}") int maxWaiting,
+                        @Value("${pms.datasource.replica.urls}") List<String> urls,
+                        @Value("${pms.datasource.replica.username:${spring.datasource.username:}}") String username,
+                        @Value("${pms.datasource.replica.password:${spring.datasource.password:}}") String password,
+                        @Value("${pms.datasource.replica.pool-size:10}") int poolSize,
+                        @Value("${pms.datasource.replica.max-lag:2s}") Duration maxLag,
+                        @Value("${pms.datasource.replica.check-interval:500ms}") Duration checkInterval) {
+        this.changes = changes;
+        this.scheduler = scheduler;
+        this.maxLagMillis = maxLag.toMillis();
+        this.settleMillis = maxLag.toMillis() + checkInterval.toMillis();
+
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) primary.setPoolName("primary");
+        primaryConnections = wrap(primary, registry, metered, maxWaiting);
+        primaryJdbc = new JdbcTemplate(primary);
+
+        for (String url : urls) {
+            if (url.isBlank()) continue;
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(primary.getConnectionTimeout());
+            pool.setReadOnly(true);
+            // A replica that is down at startup is retried by the checks, not fatal.
+            pool.setInitializationFailTimeout(-1);
+            JdbcTemplate jdbc = new JdbcTemplate(pool);
+            jdbc.setQueryTimeout((int) Math.max(1, checkInterval.toSeconds()));
+            replicas.add(new Replica(pool.getPoolName(), pool, wrap(pool, registry, metered, maxWaiting), jdbc));
+        }
+    }
+
+    private DataSource wrap(HikariDataSource pool, ObjectProvider<MeterRegistry> registry, boolean metered,
+                            int maxWaiting) {
+        pool.setMetricRegistry(registry.getObject());
+        DataSource connections = pool;
+        if (maxWaiting > 0) connections = new GuardedDataSource(connections, maxWaiting);
+        if (metered) connections = new MeteredDataSource(connections, registry.getObject());
+        pools.put(pool.getPoolName(), connections);
+        return connections;
+    }
+
+    public DataSource primary() {
+        return primaryConnections;
+    }
+
+    /** Every pool by name, as wrapped for use. */
+    public Map<String, DataSource> pools() {
+        return pools;
+    }
+
+    /** Where read-only transactions get their connection. */
+    public DataSource reads() {
+        return reads;
+    }
+
+    @Scheduled(fixedDelayString = "${pms.datasource.replica.check-interval:500ms}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            primaryJdbc.update("update replica_heartbeat set beat_at = ? where id = 1", now);
+        } catch (DataAccessException e) {
+            log.debug("Could not stamp the replica heartbeat", e);
+        }
+        for (Replica replica : replicas) {
+            try {
+                Long beat = replica.jdbc.queryForObject("select beat_at from replica_heartbeat where id = 1", Long.class);
+                replica.lagMillis = beat == null ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - beat);
+                if (!replica.reachable) log.info("Replica {} is reachable again", replica.name);
+                replica.reachable = true;
+            } catch (DataAccessException e) {
+                if (replica.reachable) log.warn("Replica {} failed its lag check, reading from the primary", replica.name, e);
+                replica.reachable = false;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        ChangeTracker.Kind kind = ChangeTracker.kindOf(event.current());
+        if (kind == null) return;
+        settleAt.accumulateAndGet(kind.ordinal(), System.currentTimeMillis() + settleMillis, Math::max);
+        arm(kind);
+    }
+
+    private void arm(ChangeTracker.Kind kind) {
+        if (settling.compareAndSet(kind.ordinal(), 0, 1)) {
+            scheduler.schedule(() -> settle(kind), Instant.ofEpochMilli(settleAt.get(kind.ordinal())));
+        }
+    }
+
+    private void settle(ChangeTracker.Kind kind) {
+        long due = settleAt.get(kind.ordinal());
+        if (System.currentTimeMillis() < due) {
+            scheduler.schedule(() -> settle(kind), Instant.ofEpochMilli(due));
+            return;
+        }
+        settling.set(kind.ordinal(), 0);
+        changes.touch(kind);
+        // A change recorded while this ran found it still armed.
+        if (settleAt.get(kind.ordinal()) > due) arm(kind);
+    }
+
+    private Connection readConnection() throws SQLException {
+        if (!ReadYourWritesFilter.pinned()) {
+            int n = replicas.size();
+            long start = next.getAndIncrement();
+            for (int i = 0; i < n; i++) {
+                Replica replica = replicas.get((int) Math.floorMod(start + i, (long) n));
+                if (!replica.reachable || replica.lagMillis > maxLagMillis) continue;
+                try {
+                    Connection connection = replica.connections.getConnection();
+                    increment(replicaReads);
+                    return connection;
+                } catch (SQLTransientConnectionException e) {
+                    // Busy rather than down: try the next one.
+                    log.debug("Replica {} has no free connection", replica.name, e);
+                } catch (SQLException e) {
+                    log.warn("Replica {} refused a connection, reading from the primary", replica.name, e);
+                    replica.reachable = false;
+                }
+            }
+        }
+        increment(primaryReads);
+        return primaryConnections.getConnection();
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) counter.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        replicaReads = Counter.builder("pms.db.reads").tag("target", "replica")
+                .description("Read-only transactions by the database they were sent to")
+                .register(registry);
+        primaryReads = Counter.builder("pms.db.reads").tag("target", "primary")
+                .description("Read-only transactions by the database they were sent to")
+                .register(registry);
+        for (Replica replica : replicas) {
+            TimeGauge.builder("pms.db.replica.lag", replica, TimeUnit.MILLISECONDS, r -> r.lagMillis)
+                    .tag("replica", replica.name)
+                    .description("Age of the newest primary heartbeat the replica has applied")
+                    .register(registry);
+            Gauge.builder("pms.db.replica.available", replica, r -> r.reachable && r.lagMillis <= maxLagMillis ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .description("Whether the replica currently takes reads")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) replica.pool.close();
+        primary.close();
+    }
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        final DataSource connections;
+        final JdbcTemplate jdbc;
+        // Unknown until the first check, so reads start on the primary.
+        volatile long lagMillis = Long.MAX_VALUE;
+        volatile boolean reachable = true;
+
+        Replica(String name, HikariDataSource pool, DataSource connections, JdbcTemplate jdbc) {
+            this.name = name;
+            this.pool = pool;
+            this.connections = connections;
+            this.jdbc = jdbc;
+        }
+    }
+
+    private final class Reads extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLException("Read connections use the configured replica credentials");
+        }
+    }
+}
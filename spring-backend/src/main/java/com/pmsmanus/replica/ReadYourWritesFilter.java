@@ -0,0 +1,90 @@
+package com.pmsmanus.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps a client on the primary while its own changes may still be missing
+ * from the replicas. A request that changes data reads from the primary
+ * throughout, and its response sets a cookie holding the time until which the
+ * client's later requests do the same, {@code pms.datasource.replica.read-your-writes}
+ * from now. The cookie carries the deadline itself, so it holds on every node.
+ */
+@Component
+@ConditionalOnExpression("!'${pms.datasource.replica.urls:}'.isBlank()")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private static final String COOKIE = "pms_primary";
+    private static final String PINNED = ReadYourWritesFilter.class.getName() + ".PINNED";
+
+    private final long windowMillis;
+    private final boolean secure;
+    private final String sameSite;
+
+    public ReadYourWritesFilter(@Value("${pms.datasource.replica.read-your-writes:5s}") Duration window,
+                                @Value("${pms.auth.cookie.secure:true}") boolean secure,
+                                @Value("${pms.auth.cookie.same-site:None}") String sameSite) {
+        this.windowMillis = window.toMillis();
+        this.secure = secure;
+        this.sameSite = sameSite;
+    }
+
+    /** Whether the current request must not read from a replica. */
+    static boolean pinned() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        if (changesData(request.getMethod())) {
+            request.setAttribute(PINNED, Boolean.TRUE);
+            if (windowMillis > 0) {
+                ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(now + windowMillis))
+                        .path("/")
+                        .httpOnly(true)
+                        .secure(secure)
+                        .sameSite(sameSite)
+                        .maxAge(Duration.ofMillis(windowMillis).toSeconds() + 1)
+                        .build();
+                response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+            }
+        } else if (pinnedUntil(request) > now) {
+            request.setAttribute(PINNED, Boolean.TRUE);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static boolean changesData(String method) {
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return 0;
+        for (Cookie cookie : cookies) {
+            if (!COOKIE.equals(cookie.getName())) continue;
+            try {
+                return Long.parseLong(cookie.getValue());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.pmsmanus.replica;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the single pooled datasource when replicas are configured. The
+ * connection a transaction gets is only opened on its first statement, by
+ * which point a {@code readOnly} transaction has marked it read-only and it is
+ * taken from {@link ReadReplicas#reads()} instead of the primary. The pools
+ * behind it are already guarded and metered, so the datasource wrappers
+ * leave this one as it is.
+ */
+@Configuration
+@ConditionalOnExpression("!'${pms.datasource.replica.urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(ReadReplicas replicas) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(replicas.primary());
+        routing.setReadOnlyDataSource(replicas.reads());
+        return routing;
+    }
+}
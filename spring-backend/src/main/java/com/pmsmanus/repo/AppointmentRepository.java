@@ -1,14 +1,54 @@
 package com.pmsmanus.repo;
 
 import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.repo.projection.DailyDoctorStatusCount;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Integer> {
-    List<Appointment> findByAppointmentDateOrderByAppointmentTime(LocalDate appointmentDate);
-    List<Appointment> findByPatientIdOrderByAppointmentDateDesc(Integer patientId);
+    <T> List<T> findAllBy(Class<T> type);
+
+    <T> List<T> findByAppointmentDateOrderByAppointmentTime(LocalDate appointmentDate, Class<T> type);
+
+    @Query("SELECT a.appointmentId FROM Appointment a WHERE a.appointmentId IN :appointmentIds")
+    List<String> findExistingAppointmentIds(@Param("appointmentIds") Collection<String> appointmentIds);
+
+    <T> List<T> findByPatientIdOrderByAppointmentDateDesc(Integer patientId, Class<T> type);
+
+    <T> List<T> findByDoctorIdAndAppointmentDate(Integer doctorId, LocalDate appointmentDate, Class<T> type);
+
+    <T> List<T> findByPatientIdOrderByAppointmentDateDescAppointmentTimeDesc(Integer patientId, Limit limit,
+                                                                            Class<T> type);
+
+    <T> List<T> findAllByOrderByIdDesc(Limit limit, Class<T> type);
+
+    <T> List<T> findByIdLessThanOrderByIdDesc(Integer id, Limit limit, Class<T> type);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT a FROM Appointment a ORDER BY a.id DESC")
+    Stream<Appointment> streamAll();
+
+    @Query("SELECT a.appointmentDate AS day, a.doctorId AS doctorId, a.status AS status, COUNT(a) AS total " +
+            "FROM Appointment a WHERE a.appointmentDate BETWEEN :from AND :to " +
+            "GROUP BY a.appointmentDate, a.doctorId, a.status")
+    List<DailyDoctorStatusCount> countByDayDoctorAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT MIN(a.appointmentDate) FROM Appointment a")
+    LocalDate findFirstAppointmentDate();
+
+    @Query("SELECT MAX(a.appointmentDate) FROM Appointment a")
+    LocalDate findLastAppointmentDate();
 }
@@ -1,6 +1,7 @@
 package com.pmsmanus.repo;
 
 import com.pmsmanus.entity.Document;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,8 @@ import java.util.List;
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Integer> {
     List<Document> findByPatientIdOrderByCreatedAtDesc(Integer patientId);
+
+    List<Document> findByPatientIdOrderByCreatedAtDesc(Integer patientId, Limit limit);
+
+    long countByFileKey(String fileKey);
 }
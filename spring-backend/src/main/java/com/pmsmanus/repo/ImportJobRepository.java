@@ -0,0 +1,34 @@
+package com.pmsmanus.repo;
+
+import com.pmsmanus.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Integer> {
+    Optional<ImportJob> findByImportKey(String importKey);
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.recordsCommitted = :committed, j.imported = j.imported + :imported, " +
+            "j.rejected = j.rejected + :rejected, j.updatedAt = :now WHERE j.id = :id")
+    int checkpoint(@Param("id") Integer id, @Param("committed") long committed,
+                   @Param("imported") long imported, @Param("rejected") long rejected,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Marks the job running unless another request is running it. A running
+     * job whose last checkpoint is older than {@code staleBefore} belongs to a
+     * request that died, and may be taken over.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.status = 'running', j.updatedAt = :now WHERE j.id = :id " +
+            "AND (j.status <> 'running' OR j.updatedAt < :staleBefore)")
+    int claim(@Param("id") Integer id, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+}
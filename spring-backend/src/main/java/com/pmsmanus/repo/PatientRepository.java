@@ -1,22 +1,62 @@
 package com.pmsmanus.repo;
 
+import com.pmsmanus.dto.PatientSummary;
 import com.pmsmanus.entity.Patient;
+import com.pmsmanus.repo.projection.DailyCount;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Integer> {
     Optional<Patient> findByPatientId(String patientId);
 
-    @Query("SELECT p FROM Patient p WHERE " +
+    @Query("SELECT p.patientId FROM Patient p WHERE p.patientId IN :patientIds")
+    List<String> findExistingPatientIds(@Param("patientIds") Collection<String> patientIds);
+
+    <T> List<T> findAllBy(Class<T> type);
+
+    <T> Slice<T> findAllBy(Pageable pageable, Class<T> type);
+
+    <T> List<T> findByIdIn(Collection<Integer> ids, Class<T> type);
+
+    <T> List<T> findAllByOrderByIdDesc(Limit limit, Class<T> type);
+
+    <T> List<T> findByIdLessThanOrderByIdDesc(Integer id, Limit limit, Class<T> type);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Patient p ORDER BY p.id DESC")
+    Stream<Patient> streamAll();
+
+    @Query("SELECT CAST(p.createdAt AS LocalDate) AS day, COUNT(p) AS total FROM Patient p " +
+            "WHERE p.createdAt >= :from AND p.createdAt < :to " +
+            "GROUP BY CAST(p.createdAt AS LocalDate)")
+    List<DailyCount> countCreatedByDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(p.createdAt) FROM Patient p")
+    LocalDateTime findFirstCreatedAt();
+
+    @Query("SELECT new com.pmsmanus.dto.PatientSummary(p.id, p.patientId, p.firstName, p.lastName, p.email, " +
+            "p.phone, p.dateOfBirth, p.gender, p.address, p.city, p.state, p.zipCode, p.emergencyContact, " +
+            "p.emergencyPhone, p.bloodType, p.createdAt, p.updatedAt, p.version) FROM Patient p WHERE " +
             "LOWER(p.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
             "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
             "LOWER(p.phone) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
             "LOWER(p.email) LIKE LOWER(CONCAT('%', :query, '%')) " +
             "ORDER BY p.createdAt DESC")
-    List<Patient> search(String query);
+    List<PatientSummary> search(String query);
 }
@@ -1,6 +1,7 @@
 package com.pmsmanus.repo;
 
 import com.pmsmanus.entity.Prescription;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,6 @@ import java.util.List;
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, Integer> {
     List<Prescription> findByPatientIdOrderByCreatedAtDesc(Integer patientId);
+
+    List<Prescription> findByPatientIdOrderByCreatedAtDesc(Integer patientId, Limit limit);
 }
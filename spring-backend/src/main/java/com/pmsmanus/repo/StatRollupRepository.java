@@ -0,0 +1,29 @@
+package com.pmsmanus.repo;
+
+import com.pmsmanus.entity.StatRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StatRollupRepository extends JpaRepository<StatRollup, Integer> {
+    List<StatRollup> findByStatDateBetween(LocalDate from, LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(r.total), 0) FROM StatRollup r WHERE r.metric = :metric")
+    long sumByMetric(@Param("metric") String metric);
+
+    @Modifying
+    @Query("UPDATE StatRollup r SET r.total = r.total + :delta " +
+            "WHERE r.statDate = :day AND r.metric = :metric AND r.doctorId = :doctorId AND r.status = :status")
+    int increment(@Param("day") LocalDate day, @Param("metric") String metric,
+                  @Param("doctorId") Integer doctorId, @Param("status") String status, @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM StatRollup r WHERE r.metric = :metric AND r.statDate BETWEEN :from AND :to")
+    int deleteWindow(@Param("metric") String metric, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,8 @@
+package com.pmsmanus.repo.projection;
+
+import java.time.LocalDate;
+
+public interface DailyCount {
+    LocalDate getDay();
+    long getTotal();
+}
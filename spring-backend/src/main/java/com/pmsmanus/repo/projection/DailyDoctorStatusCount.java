@@ -0,0 +1,10 @@
+package com.pmsmanus.repo.projection;
+
+import java.time.LocalDate;
+
+public interface DailyDoctorStatusCount {
+    LocalDate getDay();
+    Integer getDoctorId();
+    String getStatus();
+    long getTotal();
+}
@@ -0,0 +1,110 @@
+package com.pmsmanus.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable set of booked intervals for one doctor on one day, in minutes
+ * since midnight and sorted by start. {@code maxEnd[i]} is the latest end
+ * among the first {@code i + 1} bookings, so an overlap test is one binary
+ * search even when legacy rows already overlap each other.
+ */
+final class DoctorDay {
+    static final DoctorDay EMPTY = new DoctorDay(new int[0], new int[0], new int[0]);
+
+    private final int[] ids;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnd;
+
+    private DoctorDay(int[] ids, int[] starts, int[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnd = new int[ids.length];
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnd[i] = max;
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    boolean holds(int id, int start, int end) {
+        int i = indexOf(id);
+        return i >= 0 && starts[i] == start && ends[i] == end;
+    }
+
+    boolean overlaps(int start, int end) {
+        int n = before(end);
+        return n > 0 && maxEnd[n - 1] > start;
+    }
+
+    List<Integer> overlapping(int start, int end) {
+        int n = before(end);
+        if (n == 0 || maxEnd[n - 1] <= start) return List.of();
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (ends[i] > start) found.add(ids[i]);
+        }
+        return found;
+    }
+
+    DoctorDay with(int id, int start, int end) {
+        DoctorDay base = without(id);
+        int n = base.ids.length;
+        int at = base.before(start + 1);
+        int[] newIds = new int[n + 1];
+        int[] newStarts = new int[n + 1];
+        int[] newEnds = new int[n + 1];
+        System.arraycopy(base.ids, 0, newIds, 0, at);
+        System.arraycopy(base.starts, 0, newStarts, 0, at);
+        System.arraycopy(base.ends, 0, newEnds, 0, at);
+        newIds[at] = id;
+        newStarts[at] = start;
+        newEnds[at] = end;
+        System.arraycopy(base.ids, at, newIds, at + 1, n - at);
+        System.arraycopy(base.starts, at, newStarts, at + 1, n - at);
+        System.arraycopy(base.ends, at, newEnds, at + 1, n - at);
+        return new DoctorDay(newIds, newStarts, newEnds);
+    }
+
+    DoctorDay without(int id) {
+        int i = indexOf(id);
+        if (i < 0) return this;
+        int n = ids.length - 1;
+        if (n == 0) return EMPTY;
+        int[] newIds = new int[n];
+        int[] newStarts = new int[n];
+        int[] newEnds = new int[n];
+        System.arraycopy(ids, 0, newIds, 0, i);
+        System.arraycopy(starts, 0, newStarts, 0, i);
+        System.arraycopy(ends, 0, newEnds, 0, i);
+        System.arraycopy(ids, i + 1, newIds, i, n - i);
+        System.arraycopy(starts, i + 1, newStarts, i, n - i);
+        System.arraycopy(ends, i + 1, newEnds, i, n - i);
+        return new DoctorDay(newIds, newStarts, newEnds);
+    }
+
+    /** Number of bookings that start before {@code minute}. */
+    private int before(int minute) {
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < minute) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+}
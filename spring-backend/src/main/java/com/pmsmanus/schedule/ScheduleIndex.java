@@ -0,0 +1,375 @@
+package com.pmsmanus.schedule;
+
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.ConflictCheck;
+import com.pmsmanus.dto.FreeSlot;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.repo.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory interval index of booked appointment times per doctor and day.
+ * A day is loaded on first use and then kept current from entity change
+ * events, and dropped for a reload when another node changes it. Lookups read
+ * the immutable {@link DoctorDay} snapshots without locking.
+ *
+ * <p>Bookings go through {@link #book}, which does not trust the index: it
+ * locks the doctor-day row on the primary, checks the overlap against the rows
+ * stored for that doctor and day, and saves in the same transaction, so two
+ * nodes cannot double-book a slot. Bulk imports take the same locks through
+ * {@link #prepareBulk} and {@link #admitBulk}.
+ */
+@Component
+public class ScheduleIndex {
+    static final String CANCELLED = "cancelled";
+    private static final int STRIPES = 64;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentRepository appointmentRepository;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate primary;
+    private final TransactionTemplate separate;
+    private final Map<LocalDate, Map<Integer, DoctorDay>> days = new ConcurrentHashMap<>();
+    private final ReentrantLock[] dayLocks = new ReentrantLock[STRIPES];
+    private final int dayStart;
+    private final int dayEnd;
+    private final int slotMinutes;
+    private final int defaultDuration;
+
+    public ScheduleIndex(AppointmentRepository appointmentRepository,
+                         JdbcTemplate jdbc,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${pms.schedule.day-start:08:00}") String dayStart,
+                         @Value("${pms.schedule.day-end:18:00}") String dayEnd,
+                         @Value("${pms.schedule.slot-minutes:15}") int slotMinutes,
+                         @Value("${pms.schedule.default-duration:30}") int defaultDuration) {
+        this.appointmentRepository = appointmentRepository;
+        this.jdbc = jdbc;
+        this.primary = new TransactionTemplate(transactionManager);
+        this.separate = new TransactionTemplate(transactionManager);
+        this.separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dayStart = minuteOf(LocalTime.parse(dayStart));
+        this.dayEnd = minuteOf(LocalTime.parse(dayEnd));
+        this.slotMinutes = Math.max(slotMinutes, 1);
+        this.defaultDuration = Math.max(defaultDuration, 1);
+        for (int i = 0; i < STRIPES; i++) dayLocks[i] = new ReentrantLock();
+    }
+
+    /** Start times within working hours where a booking of {@code duration} minutes fits. */
+    public List<FreeSlot> freeSlots(int doctorId, LocalDate date, Integer duration) {
+        int length = duration(duration);
+        DoctorDay booked = doctorDay(doctorId, date);
+        List<FreeSlot> free = new ArrayList<>();
+        for (int start = dayStart; start + length <= dayEnd; start += slotMinutes) {
+            if (!booked.overlaps(start, start + length)) {
+                free.add(new FreeSlot(timeOf(start), timeOf(start + length)));
+            }
+        }
+        return free;
+    }
+
+    public ConflictCheck check(int doctorId, LocalDate date, LocalTime time, Integer duration) {
+        int start = minuteOf(time);
+        List<Integer> ids = doctorDay(doctorId, date).overlapping(start, end(start, duration));
+        return new ConflictCheck(!ids.isEmpty(), ids);
+    }
+
+    /**
+     * Saves {@code appointment} unless it would newly occupy time that another
+     * booking of the same doctor already holds, in which case 409 is thrown.
+     * Appointments without a doctor or that are cancelled are saved unchecked.
+     */
+    public Appointment book(Appointment appointment, Supplier<Appointment> save) {
+        if (!occupies(appointment)) return save.get();
+        int doctorId = appointment.getDoctorId();
+        LocalDate date = appointment.getAppointmentDate();
+        int start = minuteOf(appointment.getAppointmentTime());
+        int end = end(start, appointment.getDuration());
+        ensureDayLockRow(doctorId, date);
+        Appointment saved = primary.execute(status -> {
+            jdbc.queryForList("select doctor_id from doctor_day_locks where doctor_id = ? and booking_date = ? "
+                    + "for update", Integer.class, doctorId, Date.valueOf(date));
+            DoctorDay booked = stored(doctorId, date);
+            Integer id = appointment.getId();
+            boolean unchanged = id != null && booked.holds(id, start, end);
+            if (!unchanged) {
+                if (id != null) booked = booked.without(id);
+                if (booked.overlaps(start, end)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Doctor " + doctorId + " is already booked at " + timeOf(start) + " on " + date);
+                }
+            }
+            return save.get();
+        });
+        index(saved);
+        return saved;
+    }
+
+    /**
+     * Creates the lock rows for the doctor-days that {@code rows} occupy. Call
+     * it before opening the transaction that runs {@link #admitBulk}.
+     */
+    public void prepareBulk(List<Appointment> rows) {
+        for (DayKey key : byDoctorDay(rows).keySet()) ensureDayLockRow(key.doctorId(), key.date());
+    }
+
+    /**
+     * The rows of a bulk insert that may be stored, in their original order.
+     * Locks each doctor-day they occupy, in a fixed order, and checks every row
+     * against the stored bookings and the rows admitted before it; a row that
+     * overlaps is passed to {@code refuse} with the reason instead. Must run in
+     * the transaction that inserts the admitted rows, so the locks are held
+     * until they are committed.
+     */
+    public List<Appointment> admitBulk(List<Appointment> rows, BiConsumer<Appointment, String> refuse) {
+        Map<DayKey, List<Appointment>> days = byDoctorDay(rows);
+        if (days.isEmpty()) return rows;
+        Set<Appointment> refused = Collections.newSetFromMap(new IdentityHashMap<>());
+        primary.executeWithoutResult(status -> {
+            for (Map.Entry<DayKey, List<Appointment>> day : days.entrySet()) {
+                int doctorId = day.getKey().doctorId();
+                LocalDate date = day.getKey().date();
+                jdbc.queryForList("select doctor_id from doctor_day_locks where doctor_id = ? and booking_date = ? "
+                        + "for update", Integer.class, doctorId, Date.valueOf(date));
+                DoctorDay booked = stored(doctorId, date);
+                // Admitted rows have no id yet; negative ones keep them apart from stored bookings.
+                int pendingId = 0;
+                for (Appointment a : day.getValue()) {
+                    int start = minuteOf(a.getAppointmentTime());
+                    int end = end(start, a.getDuration());
+                    if (booked.overlaps(start, end)) {
+                        refused.add(a);
+                        refuse.accept(a, "Doctor " + doctorId + " is already booked at " + timeOf(start)
+                                + " on " + date);
+                    } else {
+                        booked = booked.with(--pendingId, start, end);
+                    }
+                }
+            }
+        });
+        if (refused.isEmpty()) return rows;
+        List<Appointment> admitted = new ArrayList<>(rows.size() - refused.size());
+        for (Appointment a : rows) {
+            if (!refused.contains(a)) admitted.add(a);
+        }
+        return admitted;
+    }
+
+    /** The rows that occupy time, by doctor-day in lock order, each list in input order. */
+    private static Map<DayKey, List<Appointment>> byDoctorDay(List<Appointment> rows) {
+        Map<DayKey, List<Appointment>> days = new TreeMap<>();
+        for (Appointment a : rows) {
+            if (!occupies(a)) continue;
+            days.computeIfAbsent(new DayKey(a.getDoctorId(), a.getAppointmentDate()), k -> new ArrayList<>()).add(a);
+        }
+        return days;
+    }
+
+    /**
+     * Creates the lock row in its own transaction. Inserting it inside the
+     * booking transaction would deadlock on MySQL when two bookings open the
+     * same doctor-day at once, as both would hold a gap lock the other's
+     * insert waits for.
+     */
+    private void ensureDayLockRow(int doctorId, LocalDate date) {
+        Date day = Date.valueOf(date);
+        Integer rows = jdbc.queryForObject("select count(*) from doctor_day_locks "
+                + "where doctor_id = ? and booking_date = ?", Integer.class, doctorId, day);
+        if (rows != null && rows > 0) return;
+        try {
+            separate.executeWithoutResult(status ->
+                    jdbc.update("insert into doctor_day_locks (doctor_id, booking_date) values (?, ?)", doctorId, day));
+        } catch (DuplicateKeyException e) {
+            // created by a concurrent booking
+        }
+    }
+
+    /** The doctor's bookings on {@code date} as committed, read after taking the doctor-day lock. */
+    private DoctorDay stored(int doctorId, LocalDate date) {
+        DoctorDay booked = DoctorDay.EMPTY;
+        for (AppointmentSummary a : appointmentRepository.findByDoctorIdAndAppointmentDate(doctorId, date,
+                AppointmentSummary.class)) {
+            if (a.appointmentTime() == null || CANCELLED.equalsIgnoreCase(a.status())) continue;
+            int start = minuteOf(a.appointmentTime());
+            booked = booked.with(a.id(), start, end(start, a.duration()));
+        }
+        return booked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.previous() instanceof Appointment before
+                && !(event.entity() instanceof Appointment after && sameDoctorDay(before, after))) {
+            remove(before);
+        }
+        if (event.entity() instanceof Appointment after) index(after);
+    }
+
+    /** Another node changed appointments on these days, or on unknown days if none are given. */
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        if (event.kind() != ChangeTracker.Kind.APPOINTMENTS) return;
+        for (LocalDate date : event.days().isEmpty() ? List.copyOf(days.keySet()) : event.days()) drop(date);
+    }
+
+    /** Past days are no longer booked against; drop them and reload on demand. */
+    @Scheduled(cron = "${pms.schedule.prune-cron:0 5 0 * * *}")
+    public void prunePastDays() {
+        LocalDate today = LocalDate.now();
+        for (LocalDate date : List.copyOf(days.keySet())) {
+            if (date.isBefore(today)) drop(date);
+        }
+        jdbc.update("delete from doctor_day_locks where booking_date < ?", Date.valueOf(today));
+    }
+
+    private void drop(LocalDate date) {
+        ReentrantLock lock = dayLock(date);
+        lock.lock();
+        try {
+            days.remove(date);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private DoctorDay doctorDay(int doctorId, LocalDate date) {
+        return day(date).getOrDefault(doctorId, DoctorDay.EMPTY);
+    }
+
+    private Map<Integer, DoctorDay> day(LocalDate date) {
+        Map<Integer, DoctorDay> day = days.get(date);
+        if (day != null) return day;
+        ReentrantLock lock = dayLock(date);
+        lock.lock();
+        try {
+            day = days.get(date);
+            if (day == null) {
+                day = new ConcurrentHashMap<>();
+                // Read from the primary, so a lagging replica cannot hide a booking that was just made.
+                List<AppointmentSummary> rows = primary.execute(status ->
+                        appointmentRepository.findByAppointmentDateOrderByAppointmentTime(date, AppointmentSummary.class));
+                for (AppointmentSummary a : rows) {
+                    if (a.doctorId() == null || a.appointmentTime() == null
+                            || CANCELLED.equalsIgnoreCase(a.status())) continue;
+                    int start = minuteOf(a.appointmentTime());
+                    DoctorDay booked = day.getOrDefault(a.doctorId(), DoctorDay.EMPTY);
+                    day.put(a.doctorId(), booked.with(a.id(), start, end(start, a.duration())));
+                }
+                days.put(date, day);
+            }
+            return day;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a committed row to its day if that day is loaded. Runs under the
+     * day lock so it cannot slip in between a load's query and its publish.
+     */
+    public void index(Appointment a) {
+        if (a.getId() == null || a.getDoctorId() == null || a.getAppointmentDate() == null) return;
+        LocalDate date = a.getAppointmentDate();
+        ReentrantLock lock = dayLock(date);
+        lock.lock();
+        try {
+            Map<Integer, DoctorDay> day = days.get(date);
+            if (day == null) return;
+            DoctorDay booked = day.getOrDefault(a.getDoctorId(), DoctorDay.EMPTY);
+            if (occupies(a)) {
+                int start = minuteOf(a.getAppointmentTime());
+                day.put(a.getDoctorId(), booked.with(a.getId(), start, end(start, a.getDuration())));
+            } else {
+                day.put(a.getDoctorId(), booked.without(a.getId()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(Appointment a) {
+        if (a.getId() == null || a.getDoctorId() == null || a.getAppointmentDate() == null) return;
+        LocalDate date = a.getAppointmentDate();
+        ReentrantLock lock = dayLock(date);
+        lock.lock();
+        try {
+            Map<Integer, DoctorDay> day = days.get(date);
+            if (day != null) day.computeIfPresent(a.getDoctorId(), (doctor, booked) -> booked.without(a.getId()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean occupies(Appointment a) {
+        return a.getDoctorId() != null && a.getAppointmentDate() != null && a.getAppointmentTime() != null
+                && !CANCELLED.equalsIgnoreCase(a.getStatus());
+    }
+
+    private static boolean sameDoctorDay(Appointment a, Appointment b) {
+        return Objects.equals(a.getDoctorId(), b.getDoctorId())
+                && Objects.equals(a.getAppointmentDate(), b.getAppointmentDate());
+    }
+
+    private int duration(Integer minutes) {
+        return minutes == null || minutes <= 0 ? defaultDuration : minutes;
+    }
+
+    private int end(int start, Integer duration) {
+        return Math.min(start + duration(duration), MINUTES_PER_DAY);
+    }
+
+    private ReentrantLock dayLock(LocalDate date) {
+        return dayLocks[stripe(date)];
+    }
+
+    private static int stripe(LocalDate date) {
+        int h = date.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static LocalTime timeOf(int minute) {
+        return minute >= MINUTES_PER_DAY ? LocalTime.MAX : LocalTime.of(minute / 60, minute % 60);
+    }
+
+    private record DayKey(int doctorId, LocalDate date) implements Comparable<DayKey> {
+        @Override
+        public int compareTo(DayKey other) {
+            int byDoctor = Integer.compare(doctorId, other.doctorId);
+            return byDoctor != 0 ? byDoctor : date.compareTo(other.date);
+        }
+    }
+}
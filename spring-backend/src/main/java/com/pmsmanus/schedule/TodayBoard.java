@@ -0,0 +1,193 @@
+package com.pmsmanus.schedule;
+
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.json.EntityJson;
+import com.pmsmanus.json.JsonOutput;
+import com.pmsmanus.repo.AppointmentRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Today's appointments as one immutable snapshot, held already serialized so
+ * that {@code /api/appointments/today} is a volatile read and a write of the
+ * bytes. Changes to a row dated today build a new snapshot from the current
+ * one and swap it in; the first read of a new day, the midnight rollover, a
+ * change to today made on another node and a periodic refresh load the day
+ * from the primary. Writers take a lock, readers never do.
+ */
+@Component
+public class TodayBoard {
+    private static final Comparator<AppointmentSummary> BY_TIME = Comparator
+            .comparing(AppointmentSummary::appointmentTime, Comparator.nullsFirst(Comparator.<LocalTime>naturalOrder()))
+            .thenComparing(AppointmentSummary::id);
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate primary;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Board board;
+
+    public TodayBoard(AppointmentRepository appointmentRepository,
+                      PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.primary = new TransactionTemplate(transactionManager);
+    }
+
+    /** Today's appointments by time, as the JSON array the endpoint returns. Callers must not modify it. */
+    public byte[] json() {
+        Board current = board;
+        LocalDate today = LocalDate.now();
+        if (current == null || !current.date.equals(today)) current = load(today);
+        return current.json;
+    }
+
+    @Scheduled(cron = "${pms.schedule.today-rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        load(LocalDate.now());
+    }
+
+    /** Reloads a board in use, as a backstop for changes no event or change log entry described. */
+    @Scheduled(fixedDelayString = "${pms.schedule.today-refresh:5m}",
+            initialDelayString = "${pms.schedule.today-refresh:5m}")
+    public void refresh() {
+        if (board != null) reload(LocalDate.now());
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        if (event.kind() != ChangeTracker.Kind.APPOINTMENTS) return;
+        Board current = board;
+        if (current == null) return;
+        if (event.days().isEmpty() || event.days().contains(current.date)) reload(current.date);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Appointment after = event.entity() instanceof Appointment a ? a : null;
+        Appointment before = event.previous() instanceof Appointment a ? a : null;
+        if (after == null && before == null) return;
+        apply(after != null ? List.of(after) : List.of(), after == null ? before : null);
+    }
+
+    /** Applies rows written without a change event, such as bulk imports. */
+    public void apply(Collection<Appointment> rows) {
+        apply(rows, null);
+    }
+
+    private void apply(Collection<Appointment> rows, Appointment removed) {
+        lock.lock();
+        try {
+            // Checked under the lock: a change that commits while a load is
+            // running waits for the loaded board instead of being dropped.
+            Board base = board;
+            if (base == null || !(concerns(base, removed) || rows.stream().anyMatch(a -> concerns(base, a)))) return;
+            List<AppointmentSummary> next = new ArrayList<>(base.rows);
+            boolean changed = false;
+            if (removed != null && removed.getId() != null) {
+                changed = next.removeIf(s -> s.id().equals(removed.getId()));
+            }
+            for (Appointment a : rows) {
+                if (a.getId() == null) continue;
+                int i = indexOf(next, a.getId());
+                if (base.date.equals(a.getAppointmentDate())) {
+                    AppointmentSummary row = stored(AppointmentSummary.of(a));
+                    if (i < 0) {
+                        next.add(row);
+                    } else if (!newer(next.get(i), row)) {
+                        next.set(i, row);
+                    } else {
+                        continue;
+                    }
+                    changed = true;
+                } else if (i >= 0) {
+                    next.remove(i);
+                    changed = true;
+                }
+            }
+            if (!changed) return;
+            next.sort(BY_TIME);
+            board = new Board(base.date, List.copyOf(next), serialize(next));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Board load(LocalDate date) {
+        lock.lock();
+        try {
+            Board current = board;
+            if (current != null && current.date.equals(date)) return current;
+            return reload(date);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Board reload(LocalDate date) {
+        lock.lock();
+        try {
+            // Loaded from the primary: a replica could miss a booking the snapshot then never sees.
+            List<AppointmentSummary> rows = primary.execute(status ->
+                    appointmentRepository.findByAppointmentDateOrderByAppointmentTime(date, AppointmentSummary.class));
+            List<AppointmentSummary> sorted = new ArrayList<>(rows);
+            sorted.sort(BY_TIME);
+            Board loaded = new Board(date, List.copyOf(sorted), serialize(sorted));
+            board = loaded;
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] serialize(List<AppointmentSummary> rows) {
+        return JsonOutput.toBytes(out -> EntityJson.array(rows, EntityJson.writerFor(AppointmentSummary.class), out));
+    }
+
+    /** The row as it reads back from the datetime(6) columns, which round to microseconds. */
+    private static AppointmentSummary stored(AppointmentSummary a) {
+        return new AppointmentSummary(a.id(), a.appointmentId(), a.patientId(), a.doctorId(), a.appointmentDate(),
+                a.appointmentTime(), a.duration(), a.status(), a.reason(), micros(a.createdAt()), micros(a.updatedAt()));
+    }
+
+    private static LocalDateTime micros(LocalDateTime t) {
+        return t == null ? null : t.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static boolean concerns(Board board, Appointment a) {
+        if (a == null) return false;
+        return board.date.equals(a.getAppointmentDate()) || (a.getId() != null && indexOf(board.rows, a.getId()) >= 0);
+    }
+
+    /** Whether the row on the board was written after {@code row}, whose event arrived late. */
+    private static boolean newer(AppointmentSummary current, AppointmentSummary row) {
+        return current.updatedAt() != null && row.updatedAt() != null && current.updatedAt().isAfter(row.updatedAt());
+    }
+
+    private static int indexOf(List<AppointmentSummary> rows, Integer id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (Objects.equals(rows.get(i).id(), id)) return i;
+        }
+        return -1;
+    }
+
+    private record Board(LocalDate date, List<AppointmentSummary> rows, byte[] json) {
+    }
+}
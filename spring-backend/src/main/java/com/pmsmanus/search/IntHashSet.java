@@ -0,0 +1,91 @@
+package com.pmsmanus.search;
+
+/**
+ * Open-addressing set of positive ints used for posting lists. It stores ids
+ * unboxed, which keeps a posting at roughly 4-8 bytes instead of a boxed
+ * Integer plus a hash node. Not thread-safe; callers synchronize.
+ */
+final class IntHashSet {
+    private static final int FREE = 0;
+
+    private int[] slots = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        int mask = slots.length - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            int v = slots[i];
+            if (v == id) return true;
+            if (v == FREE) return false;
+        }
+    }
+
+    void add(int id) {
+        if (id <= 0) throw new IllegalArgumentException("ids must be positive: " + id);
+        if ((size + 1) * 4 > slots.length * 3) resize(slots.length * 2);
+        int mask = slots.length - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            int v = slots[i];
+            if (v == id) return;
+            if (v == FREE) {
+                slots[i] = id;
+                size++;
+                return;
+            }
+        }
+    }
+
+    void remove(int id) {
+        int mask = slots.length - 1;
+        int i = mix(id) & mask;
+        while (slots[i] != id) {
+            if (slots[i] == FREE) return;
+            i = (i + 1) & mask;
+        }
+        slots[i] = FREE;
+        size--;
+        // Shift later entries of the probe run back so lookups never stop early.
+        for (int j = (i + 1) & mask; slots[j] != FREE; j = (j + 1) & mask) {
+            int v = slots[j];
+            int home = mix(v) & mask;
+            boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                slots[i] = v;
+                slots[j] = FREE;
+                i = j;
+            }
+        }
+        if (slots.length > 16 && size * 8 < slots.length) resize(slots.length / 2);
+    }
+
+    int[] toArray() {
+        int[] out = new int[size];
+        int n = 0;
+        for (int v : slots) {
+            if (v != FREE) out[n++] = v;
+        }
+        return out;
+    }
+
+    private void resize(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        size = 0;
+        for (int v : old) {
+            if (v != FREE) add(v);
+        }
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,351 @@
+package com.pmsmanus.search;
+
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.repo.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over patient name, email and phone tokens.
+ * Queries of three or more characters are answered by intersecting trigram
+ * postings and verifying the candidates; shorter queries match token prefixes.
+ */
+@Component
+public class PatientSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(PatientSearchIndex.class);
+    private static final int GRAM = 3;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final IntHashSet EMPTY = new IntHashSet();
+
+    private final PatientRepository patientRepository;
+    private final TransactionTemplate primary;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntHashSet> postings = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private volatile boolean ready;
+
+    public PatientSearchIndex(PatientRepository patientRepository, PlatformTransactionManager transactionManager) {
+        this.patientRepository = patientRepository;
+        this.primary = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        ready = false;
+        int indexed;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            entries.clear();
+            PageRequest page = PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"));
+            Slice<PatientSummary> slice;
+            do {
+                // Changes are applied from events from here on; the base must not be older than they are.
+                PageRequest current = page;
+                slice = primary.execute(status -> patientRepository.findAllBy(current, PatientSummary.class));
+                for (PatientSummary p : slice) {
+                    add(p.id(), p.firstName(), p.lastName(), p.email(), p.phone(), p.createdAt());
+                }
+                page = page.next();
+            } while (slice.hasNext());
+            indexed = entries.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("Patient search index built with {} entries in {} ms",
+                indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!(event.current() instanceof Patient p)) return;
+        if (event.action() == EntityChangedEvent.Action.DELETED) {
+            remove(p.getId());
+        } else {
+            index(p);
+        }
+    }
+
+    /** Re-reads patients another node changed; ids that no longer exist are removed. */
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        if (event.kind() != ChangeTracker.Kind.PATIENTS) return;
+        if (event.ids().isEmpty()) {
+            rebuild();
+            return;
+        }
+        List<PatientSummary> rows = primary.execute(status ->
+                patientRepository.findByIdIn(event.ids(), PatientSummary.class));
+        lock.writeLock().lock();
+        try {
+            for (Integer id : event.ids()) removeEntry(id);
+            for (PatientSummary p : rows) {
+                add(p.id(), p.firstName(), p.lastName(), p.email(), p.phone(), p.createdAt());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Patient patient) {
+        if (patient == null || patient.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            removeEntry(patient.getId());
+            add(patient.getId(), patient.getFirstName(), patient.getLastName(), patient.getEmail(),
+                    patient.getPhone(), patient.getCreatedAt());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeEntry(Integer id) {
+        Entry old = entries.remove(id);
+        if (old == null) return;
+        for (String key : keysOf(old.fields)) {
+            IntHashSet ids = postings.get(key);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(key);
+        }
+    }
+
+    /**
+     * Returns matching patient ids, best match first: exact token, then token
+     * prefix, then substring; ties are broken by newest createdAt.
+     */
+    public List<Integer> search(String query, int limit) {
+        String q = normalize(query);
+        String digits = isPhoneLike(q) ? digitsOf(q) : "";
+        if (q.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            return rank(q, digits, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> rank(String q, String digits, int limit) {
+        IntHashSet candidates = candidates(q);
+        if (digits.length() > 0 && !digits.equals(q)) {
+            IntHashSet byDigits = candidates(digits);
+            if (!byDigits.isEmpty()) {
+                IntHashSet union = new IntHashSet();
+                for (int id : candidates.toArray()) union.add(id);
+                for (int id : byDigits.toArray()) union.add(id);
+                candidates = union;
+            }
+        }
+
+        Comparator<Hit> order = Comparator.comparingInt(Hit::score)
+                .thenComparingLong(Hit::createdAt)
+                .thenComparingInt(Hit::id);
+        PriorityQueue<Hit> top = new PriorityQueue<>(order);
+        for (int id : candidates.toArray()) {
+            Entry entry = entries.get(id);
+            if (entry == null) continue;
+            int score = entry.score(q, digits);
+            if (score == 0) continue;
+            Hit hit = new Hit(id, score, entry.createdAt);
+            if (top.size() < limit) {
+                top.add(hit);
+            } else if (order.compare(hit, top.peek()) > 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(order.reversed());
+        List<Integer> ids = new ArrayList<>(hits.size());
+        for (Hit hit : hits) ids.add(hit.id);
+        return ids;
+    }
+
+    private IntHashSet candidates(String q) {
+        if (q.length() < GRAM) {
+            IntHashSet ids = postings.get(q);
+            return ids == null ? EMPTY : ids;
+        }
+        List<IntHashSet> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            IntHashSet ids = postings.get(q.substring(i, i + GRAM));
+            if (ids == null) return EMPTY;
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(IntHashSet::size));
+        IntHashSet result = new IntHashSet();
+        outer:
+        for (int id : lists.get(0).toArray()) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) continue outer;
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    private void add(Integer id, String firstName, String lastName, String email, String phone,
+                     LocalDateTime created) {
+        List<String> fields = new ArrayList<>(5);
+        addField(fields, normalize(firstName));
+        addField(fields, normalize(lastName));
+        addField(fields, normalize(email));
+        addField(fields, normalize(phone));
+        addField(fields, digitsOf(phone));
+
+        long createdAt = created == null ? Long.MIN_VALUE : epochMillis(created);
+        Entry entry = new Entry(fields.toArray(new String[0]), createdAt);
+        entries.put(id, entry);
+        for (String key : keysOf(entry.fields)) {
+            postings.computeIfAbsent(key, k -> new IntHashSet()).add(id);
+        }
+    }
+
+    /** Keys are recomputed from the stored fields on removal rather than kept per entry. */
+    private static Set<String> keysOf(String[] fields) {
+        Set<String> keys = new HashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                keys.add(field.substring(i, i + GRAM));
+            }
+            for (String token : tokens(field)) {
+                for (int n = 1; n < GRAM && n <= token.length(); n++) {
+                    keys.add(token.substring(0, n));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static void addField(List<String> fields, String value) {
+        if (!value.isEmpty()) fields.add(value);
+    }
+
+    private static long epochMillis(LocalDateTime t) {
+        return t.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static String normalize(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String digitsOf(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    static boolean isPhoneLike(String s) {
+        boolean digit = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if ("+-(). ".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    static List<String> tokens(String field) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= field.length(); i++) {
+            boolean alnum = i < field.length() && Character.isLetterOrDigit(field.charAt(i));
+            if (alnum && start < 0) {
+                start = i;
+            } else if (!alnum && start >= 0) {
+                tokens.add(field.substring(start, i));
+                start = -1;
+            }
+        }
+        if (tokens.isEmpty()) return Collections.emptyList();
+        tokens.add(field);
+        return tokens;
+    }
+
+    private record Hit(int id, int score, long createdAt) {
+    }
+
+    private record Entry(String[] fields, long createdAt) {
+        int score(String q, String digits) {
+            int best = 0;
+            for (String field : fields) {
+                best = Math.max(best, fieldScore(field, q));
+                if (!digits.isEmpty()) best = Math.max(best, fieldScore(field, digits));
+                if (best == 3) break;
+            }
+            return best;
+        }
+
+        private static int fieldScore(String field, String q) {
+            if (field.equals(q)) return 3;
+            int best = 0;
+            for (String token : tokens(field)) {
+                if (token.equals(q)) return 3;
+                if (token.startsWith(q)) best = 2;
+            }
+            if (best == 0 && q.length() >= GRAM && field.contains(q)) best = 1;
+            return best;
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.pmsmanus.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.audit.AuditLog;
+import com.pmsmanus.cluster.ChangeLog;
+import com.pmsmanus.dto.ImportReport;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.ImportJob;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.feed.ChangeFeed;
+import com.pmsmanus.importer.ImportFormat;
+import com.pmsmanus.importer.RecordReader;
+import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.repo.ImportJobRepository;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.schedule.ScheduleIndex;
+import com.pmsmanus.schedule.TodayBoard;
+import com.pmsmanus.search.PatientSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Streams CSV or NDJSON records into the database in chunked JDBC batches.
+ * Entities use IDENTITY keys, which stops Hibernate from batching inserts, so
+ * chunks are written with plain multi-row JDBC batches and the database keeps
+ * assigning ids. Each chunk commits together with its checkpoint in
+ * {@code import_jobs}, its audit rows and its change log entry, so re-posting
+ * the same importId resumes after the last committed record and other nodes
+ * learn of every committed chunk. Only one request runs an importId at a time;
+ * another gets 409 until it finishes.
+ *
+ * <p>Appointments follow the booking rules: each chunk takes the doctor-day
+ * locks of {@link ScheduleIndex} and rejects records that overlap a stored
+ * booking or an earlier record, as per-record errors.
+ */
+@Service
+public class BulkImportService {
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    public static final String PATIENTS = "patients";
+    public static final String APPOINTMENTS = "appointments";
+
+    private static final String INSERT_PATIENT = "INSERT INTO patients (patient_id, first_name, last_name, email, "
+            + "phone, date_of_birth, gender, address, city, state, zip_code, emergency_contact, emergency_phone, "
+            + "medical_history, allergies, blood_type, created_at, updated_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_APPOINTMENT = "INSERT INTO appointments (appointment_id, patient_id, "
+            + "doctor_id, appointment_date, appointment_time, duration, status, reason, notes, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ImportJobRepository jobRepository;
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PatientSearchIndex searchIndex;
+    private final StatRollupService rollupService;
+    private final ScheduleIndex scheduleIndex;
+    private final TodayBoard todayBoard;
+    private final ArchiveStore archive;
+    private final AuditLog auditLog;
+    private final ChangeTracker changes;
+    private final ChangeLog changeLog;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Duration staleAfter;
+
+    public BulkImportService(ObjectMapper objectMapper,
+                             JdbcTemplate jdbcTemplate,
+                             ImportJobRepository jobRepository,
+                             PatientRepository patientRepository,
+                             AppointmentRepository appointmentRepository,
+                             PatientSearchIndex searchIndex,
+                             StatRollupService rollupService,
+                             ScheduleIndex scheduleIndex,
+                             TodayBoard todayBoard,
+                             ArchiveStore archive,
+                             AuditLog auditLog,
+                             ChangeTracker changes,
+                             ChangeLog changeLog,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${pms.import.chunk-size:1000}") int chunkSize,
+                             @Value("${pms.import.max-errors:200}") int maxErrors,
+                             @Value("${pms.import.stale-after:10m}") Duration staleAfter) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobRepository = jobRepository;
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.searchIndex = searchIndex;
+        this.rollupService = rollupService;
+        this.scheduleIndex = scheduleIndex;
+        this.todayBoard = todayBoard;
+        this.archive = archive;
+        this.auditLog = auditLog;
+        this.changes = changes;
+        this.changeLog = changeLog;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.staleAfter = staleAfter;
+    }
+
+    public ImportReport importRecords(String kind, String importKey, ImportFormat format, InputStream in) {
+        return switch (kind) {
+            case PATIENTS -> run(PATIENTS, importKey, format, in, new PatientTarget());
+            case APPOINTMENTS -> run(APPOINTMENTS, importKey, format, in, new AppointmentTarget());
+            default -> throw new IllegalArgumentException("Unknown import kind: " + kind);
+        };
+    }
+
+    private <T> ImportReport run(String kind, String importKey, ImportFormat format, InputStream in, Target<T> target) {
+        long started = System.nanoTime();
+        ImportJob job = openJob(kind, importKey);
+        Run<T> run = new Run<>(job, target, job.getRecordsCommitted());
+        String status = "completed";
+        String message = null;
+        try (RecordReader reader = new RecordReader(in, format, objectMapper)) {
+            while (true) {
+                Map<String, Object> row;
+                try {
+                    row = reader.next();
+                } catch (RecordReader.MalformedRecordException e) {
+                    if (e.getRecordNumber() > run.resumeAfter) run.reject(e.getRecordNumber(), e.getMessage());
+                    continue;
+                }
+                if (row == null) break;
+                long record = reader.recordNumber();
+                if (record <= run.resumeAfter) continue;
+                try {
+                    run.accept(record, target.map(row));
+                } catch (IllegalArgumentException e) {
+                    run.reject(record, firstLine(e.getMessage()));
+                }
+            }
+            run.flush();
+            target.afterImport();
+        } catch (IOException | RuntimeException e) {
+            status = "failed";
+            message = firstLine(e.getMessage());
+            log.warn("Import {} ({}) failed after record {}", importKey, kind, run.committed, e);
+        }
+        finishJob(job, status, message);
+        return new ImportReport(importKey, kind, status, run.resumeAfter, run.read, run.imported, run.rejected,
+                (System.nanoTime() - started) / 1_000_000, run.chunks, run.errors, message);
+    }
+
+    public ImportJob job(String importKey) {
+        return jobRepository.findByImportKey(importKey).orElse(null);
+    }
+
+    /** Creates the job or claims the existing one, reading its checkpoint on the primary. */
+    private ImportJob openJob(String kind, String importKey) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            return tx.execute(status -> {
+                ImportJob job = jobRepository.findByImportKey(importKey).orElse(null);
+                if (job == null) {
+                    job = new ImportJob();
+                    job.setImportKey(importKey);
+                    job.setKind(kind);
+                    job.setStatus("running");
+                    job.setRecordsCommitted(0L);
+                    job.setImported(0L);
+                    job.setRejected(0L);
+                    job.setCreatedAt(now);
+                    job.setUpdatedAt(now);
+                    return jobRepository.saveAndFlush(job);
+                }
+                if (!job.getKind().equals(kind)) {
+                    throw new IllegalArgumentException("Import " + importKey + " is a " + job.getKind() + " import");
+                }
+                if (jobRepository.claim(job.getId(), now, now.minus(staleAfter)) == 0) throw alreadyRunning(importKey);
+                return jobRepository.findById(job.getId()).orElseThrow();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request created the job between the lookup and the insert.
+            throw alreadyRunning(importKey);
+        }
+    }
+
+    private static ResponseStatusException alreadyRunning(String importKey) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Import " + importKey + " is already running");
+    }
+
+    private void finishJob(ImportJob job, String status, String message) {
+        jobRepository.findById(job.getId()).ifPresent(j -> {
+            j.setStatus(status);
+            j.setLastError(message);
+            j.setUpdatedAt(LocalDateTime.now());
+            jobRepository.save(j);
+        });
+    }
+
+    private <T> void insertReturningIds(String sql, List<T> rows, BiConsumer<T, Integer> setId,
+                                        ParameterizedPreparedStatementSetter<T> setter) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setter.setValues(ps, rows.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rows.size() && i < generated.size(); i++) {
+            Object id = generated.get(i).values().iterator().next();
+            if (id instanceof Number n) setId.accept(rows.get(i), n.intValue());
+        }
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) return "Invalid record";
+        int nl = message.indexOf('\n');
+        return nl < 0 ? message : message.substring(0, nl);
+    }
+
+    private final class Run<T> {
+        final ImportJob job;
+        final Target<T> target;
+        final long resumeAfter;
+        final List<ImportReport.Chunk> chunks = new ArrayList<>();
+        final List<ImportReport.RowError> errors = new ArrayList<>();
+        final Map<String, Long> pendingKeys = new LinkedHashMap<>();
+        final List<T> pending = new ArrayList<>();
+        long committed;
+        long read;
+        long imported;
+        long rejected;
+        long chunkFirst = -1;
+        long chunkLast;
+        int chunkRejected;
+
+        Run(ImportJob job, Target<T> target, long resumeAfter) {
+            this.job = job;
+            this.target = target;
+            this.resumeAfter = resumeAfter;
+            this.committed = resumeAfter;
+        }
+
+        void accept(long record, T item) {
+            track(record);
+            String key = target.key(item);
+            if (pendingKeys.putIfAbsent(key, record) != null) {
+                rejectTracked(record, "Duplicate id " + key + " within import");
+            } else {
+                pending.add(item);
+            }
+            flushIfFull();
+        }
+
+        void reject(long record, String message) {
+            track(record);
+            rejectTracked(record, message);
+            flushIfFull();
+        }
+
+        private void track(long record) {
+            read++;
+            if (chunkFirst < 0) chunkFirst = record;
+            chunkLast = record;
+        }
+
+        private void rejectTracked(long record, String message) {
+            chunkRejected++;
+            if (errors.size() < maxErrors) errors.add(new ImportReport.RowError(record, message));
+        }
+
+        private void flushIfFull() {
+            if (pending.size() + chunkRejected >= chunkSize) flush();
+        }
+
+        void flush() {
+            if (chunkFirst < 0) return;
+            long chunkStarted = System.nanoTime();
+            Set<String> existing = new HashSet<>(target.existing(pendingKeys.keySet()));
+            List<T> rows = new ArrayList<>(pending.size());
+            for (T item : pending) {
+                String key = target.key(item);
+                if (existing.contains(key)) {
+                    rejectTracked(pendingKeys.get(key), "Id " + key + " already exists");
+                } else {
+                    rows.add(item);
+                }
+            }
+            target.prepare(rows);
+            long last = chunkLast;
+            Map<T, String> refused = new IdentityHashMap<>();
+            List<T> stored = tx.execute(status -> {
+                refused.clear();
+                List<T> inserted = rows.isEmpty() ? rows : target.insert(rows, refused::put);
+                jobRepository.checkpoint(job.getId(), last, inserted.size(), chunkRejected + refused.size(),
+                        LocalDateTime.now());
+                return inserted;
+            });
+            refused.forEach((item, message) -> rejectTracked(pendingKeys.get(target.key(item)), message));
+            int rejectedInChunk = chunkRejected;
+            target.afterChunk(stored);
+            committed = last;
+            imported += stored.size();
+            rejected += rejectedInChunk;
+            chunks.add(new ImportReport.Chunk(chunks.size() + 1, chunkFirst, last, stored.size(), rejectedInChunk,
+                    (System.nanoTime() - chunkStarted) / 1_000_000));
+            pending.clear();
+            pendingKeys.clear();
+            chunkFirst = -1;
+            chunkRejected = 0;
+        }
+    }
+
+    private interface Target<T> {
+        T map(Map<String, Object> row);
+
+        String key(T item);
+
+        Collection<String> existing(Collection<String> keys);
+
+        /** Runs before the chunk transaction opens. */
+        void prepare(List<T> rows);
+
+        /**
+         * Inserts the rows that may be stored and returns them; the others go
+         * to {@code refuse} with the reason. Runs in the chunk transaction.
+         */
+        List<T> insert(List<T> rows, BiConsumer<T, String> refuse);
+
+        void afterChunk(List<T> rows);
+
+        void afterImport();
+    }
+
+    private final class PatientTarget implements Target<Patient> {
+        private LocalDate firstDay;
+        private LocalDate lastDay;
+
+        @Override
+        public Patient map(Map<String, Object> row) {
+            Patient p = objectMapper.convertValue(row, Patient.class);
+            p.setId(null);
+            Fields.require(p.getPatientId(), "patientId", 50);
+            Fields.require(p.getFirstName(), "firstName", 100);
+            Fields.require(p.getLastName(), "lastName", 100);
+            Fields.require(p.getPhone(), "phone", 20);
+            Fields.limit(p.getEmail(), "email", 320);
+            Fields.limit(p.getGender(), "gender", 10);
+            Fields.limit(p.getCity(), "city", 100);
+            Fields.limit(p.getState(), "state", 100);
+            Fields.limit(p.getZipCode(), "zipCode", 20);
+            Fields.limit(p.getEmergencyContact(), "emergencyContact", 100);
+            Fields.limit(p.getEmergencyPhone(), "emergencyPhone", 20);
+            Fields.limit(p.getBloodType(), "bloodType", 10);
+            LocalDateTime now = LocalDateTime.now();
+            if (p.getCreatedAt() == null) p.setCreatedAt(now);
+            if (p.getUpdatedAt() == null) p.setUpdatedAt(now);
+            return p;
+        }
+
+        @Override
+        public String key(Patient item) {
+            return item.getPatientId();
+        }
+
+        @Override
+        public Collection<String> existing(Collection<String> keys) {
+            return keys.isEmpty() ? List.of() : patientRepository.findExistingPatientIds(keys);
+        }
+
+        @Override
+        public void prepare(List<Patient> rows) {
+        }
+
+        @Override
+        public List<Patient> insert(List<Patient> rows, BiConsumer<Patient, String> refuse) {
+            insertReturningIds(INSERT_PATIENT, rows, Patient::setId, (ps, p) -> {
+                ps.setString(1, p.getPatientId());
+                ps.setString(2, p.getFirstName());
+                ps.setString(3, p.getLastName());
+                ps.setString(4, p.getEmail());
+                ps.setString(5, p.getPhone());
+                ps.setObject(6, p.getDateOfBirth());
+                ps.setString(7, p.getGender());
+                ps.setString(8, p.getAddress());
+                ps.setString(9, p.getCity());
+                ps.setString(10, p.getState());
+                ps.setString(11, p.getZipCode());
+                ps.setString(12, p.getEmergencyContact());
+                ps.setString(13, p.getEmergencyPhone());
+                ps.setString(14, p.getMedicalHistory());
+                ps.setString(15, p.getAllergies());
+                ps.setString(16, p.getBloodType());
+                ps.setObject(17, p.getCreatedAt());
+                ps.setObject(18, p.getUpdatedAt());
+            });
+            Set<String> topics = new LinkedHashSet<>();
+            topics.add(PATIENTS);
+            for (Patient p : rows) topics.add("patient:" + p.getId());
+            changeLog.appendBulk(ChangeTracker.Kind.PATIENTS, rows.stream().map(Patient::getId).toList(), topics);
+            auditLog.recordImported(rows);
+            return rows;
+        }
+
+        @Override
+        public void afterChunk(List<Patient> rows) {
+            if (rows.isEmpty()) return;
+            for (Patient p : rows) {
+                searchIndex.index(p);
+                LocalDate day = p.getCreatedAt().toLocalDate();
+                if (firstDay == null || day.isBefore(firstDay)) firstDay = day;
+                if (lastDay == null || day.isAfter(lastDay)) lastDay = day;
+            }
+            changes.touch(ChangeTracker.Kind.PATIENTS);
+        }
+
+        @Override
+        public void afterImport() {
+            if (firstDay != null) rollupService.reconcile(firstDay, lastDay);
+        }
+    }
+
+    private final class AppointmentTarget implements Target<Appointment> {
+        private LocalDate firstDay;
+        private LocalDate lastDay;
+
+        @Override
+        public Appointment map(Map<String, Object> row) {
+            Appointment a = objectMapper.convertValue(row, Appointment.class);
+            a.setId(null);
+            Fields.require(a.getAppointmentId(), "appointmentId", 50);
+            Fields.require(a.getPatientId(), "patientId");
+            Fields.require(a.getAppointmentDate(), "appointmentDate");
+            Fields.require(a.getAppointmentTime(), "appointmentTime");
+            if (a.getStatus() == null) a.setStatus("scheduled");
+            Fields.limit(a.getStatus(), "status", 20);
+            LocalDateTime now = LocalDateTime.now();
+            if (a.getCreatedAt() == null) a.setCreatedAt(now);
+            if (a.getUpdatedAt() == null) a.setUpdatedAt(now);
+            return a;
+        }
+
+        @Override
+        public String key(Appointment item) {
+            return item.getAppointmentId();
+        }
+
+        @Override
+        public Collection<String> existing(Collection<String> keys) {
+            if (keys.isEmpty()) return List.of();
+            List<String> existing = new ArrayList<>(appointmentRepository.findExistingAppointmentIds(keys));
+            existing.addAll(archive.existingAppointmentIds(keys));
+            return existing;
+        }
+
+        @Override
+        public void prepare(List<Appointment> rows) {
+            scheduleIndex.prepareBulk(rows);
+        }
+
+        @Override
+        public List<Appointment> insert(List<Appointment> candidates, BiConsumer<Appointment, String> refuse) {
+            List<Appointment> rows = scheduleIndex.admitBulk(candidates, refuse);
+            if (rows.isEmpty()) return rows;
+            insertReturningIds(INSERT_APPOINTMENT, rows, Appointment::setId, (ps, a) -> {
+                ps.setString(1, a.getAppointmentId());
+                ps.setObject(2, a.getPatientId());
+                ps.setObject(3, a.getDoctorId());
+                ps.setObject(4, a.getAppointmentDate());
+                ps.setObject(5, a.getAppointmentTime());
+                ps.setObject(6, a.getDuration());
+                ps.setString(7, a.getStatus());
+                ps.setString(8, a.getReason());
+                ps.setString(9, a.getNotes());
+                ps.setObject(10, a.getCreatedAt());
+                ps.setObject(11, a.getUpdatedAt());
+            });
+            Set<String> topics = new LinkedHashSet<>();
+            topics.add(APPOINTMENTS);
+            for (Appointment a : rows) {
+                topics.add("patient:" + a.getPatientId());
+                ChangeFeed.addDay(topics, a.getAppointmentDate());
+            }
+            changeLog.appendBulk(ChangeTracker.Kind.APPOINTMENTS, rows.stream().map(Appointment::getId).toList(),
+                    topics);
+            auditLog.recordImported(rows);
+            return rows;
+        }
+
+        @Override
+        public void afterChunk(List<Appointment> rows) {
+            todayBoard.apply(rows);
+            for (Appointment a : rows) {
+                scheduleIndex.index(a);
+                LocalDate day = a.getAppointmentDate();
+                if (firstDay == null || day.isBefore(firstDay)) firstDay = day;
+                if (lastDay == null || day.isAfter(lastDay)) lastDay = day;
+            }
+            changes.touch(ChangeTracker.Kind.APPOINTMENTS);
+        }
+
+        @Override
+        public void afterImport() {
+            if (firstDay != null) rollupService.reconcile(firstDay, lastDay);
+        }
+    }
+
+    private static final class Fields {
+        static void require(Object value, String field) {
+            if (value == null) throw new IllegalArgumentException(field + " is required");
+        }
+
+        static void require(String value, String field, int max) {
+            if (value == null || value.isBlank()) throw new IllegalArgumentException(field + " is required");
+            limit(value, field, max);
+        }
+
+        static void limit(String value, String field, int max) {
+            if (value != null && value.length() > max) {
+                throw new IllegalArgumentException(field + " exceeds " + max + " characters");
+            }
+        }
+    }
+}
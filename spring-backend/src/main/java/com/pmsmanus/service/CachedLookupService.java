@@ -0,0 +1,172 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.config.CacheConfig;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.repo.DocumentRepository;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.repo.PrescriptionRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the hot by-id and by-patient lookups. Only read
+ * endpoints go through here; write paths load fresh rows from the repositories
+ * so cached instances are never mutated, and each committed change evicts the
+ * affected keys, on this node from the change event and on the others from the
+ * change log. Misses are loaded in a read-write transaction, which always
+ * goes to the primary, so a lagging replica cannot refill an evicted key with
+ * the row as it was before the change.
+ *
+ * <p>A miss can still read a row just before a change commits and finish after
+ * the change evicted its key. Each eviction therefore bumps a generation for
+ * the key, striped so memory stays fixed, and a fill whose generation moved
+ * while it loaded is evicted again instead of being served until it expires.
+ */
+@Service
+public class CachedLookupService {
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final DocumentRepository documentRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final CacheManager cacheManager;
+    private final ArchiveStore archive;
+    private final TransactionTemplate primary;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    /** Bumped when a whole cache is cleared. */
+    private final AtomicLong epoch = new AtomicLong();
+
+    public CachedLookupService(PatientRepository patientRepository,
+                               AppointmentRepository appointmentRepository,
+                               DocumentRepository documentRepository,
+                               PrescriptionRepository prescriptionRepository,
+                               CacheManager cacheManager,
+                               ArchiveStore archive,
+                               PlatformTransactionManager transactionManager) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.documentRepository = documentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.cacheManager = cacheManager;
+        this.archive = archive;
+        this.primary = new TransactionTemplate(transactionManager);
+    }
+
+    public Optional<Patient> patient(Integer id) {
+        return Optional.ofNullable(cached(CacheConfig.PATIENTS, id,
+                () -> primary.execute(status -> patientRepository.findById(id)).orElse(null)));
+    }
+
+    public Optional<Appointment> appointment(Integer id) {
+        return Optional.ofNullable(cached(CacheConfig.APPOINTMENTS, id,
+                () -> primary.execute(status -> appointmentRepository.findById(id))
+                        .or(() -> archive.appointment(id)).orElse(null)));
+    }
+
+    public Optional<Document> document(Integer id) {
+        return Optional.ofNullable(cached(CacheConfig.DOCUMENTS, id,
+                () -> primary.execute(status -> documentRepository.findById(id)).orElse(null)));
+    }
+
+    public List<Prescription> prescriptionsByPatient(Integer patientId) {
+        return cached(CacheConfig.PRESCRIPTIONS_BY_PATIENT, patientId, () -> List.copyOf(
+                archive.prescriptionsForPatient(patientId, primary.execute(status ->
+                        prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId)))));
+    }
+
+    /** The cached value, or {@code loader}'s, stored unless null or an eviction ran while it loaded. */
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String cacheName, Object key, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || key == null) return loader.get();
+        Cache.ValueWrapper hit = cache.get(key);
+        if (hit != null) return (T) hit.get();
+        long generation = generation(cacheName, key);
+        T value = loader.get();
+        if (value == null || generation(cacheName, key) != generation) return value;
+        cache.put(key, value);
+        // An eviction that bumped the generation after the check above evicts
+        // after it, too; one that bumped it between the check and the put has
+        // to be repeated here.
+        if (generation(cacheName, key) != generation) cache.evict(key);
+        return value;
+    }
+
+    private long generation(String cacheName, Object key) {
+        return epoch.get() + generations.get(stripe(cacheName, key));
+    }
+
+    private static int stripe(String cacheName, Object key) {
+        int h = 31 * cacheName.hashCode() + key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object current = event.current();
+        if (current instanceof Patient p) {
+            evict(CacheConfig.PATIENTS, p.getId());
+        } else if (current instanceof Appointment a) {
+            evict(CacheConfig.APPOINTMENTS, a.getId());
+        } else if (current instanceof Document d) {
+            evict(CacheConfig.DOCUMENTS, d.getId());
+        } else if (current instanceof Prescription p) {
+            evict(CacheConfig.PRESCRIPTIONS_BY_PATIENT, p.getPatientId());
+            if (event.previous() instanceof Prescription before) {
+                evict(CacheConfig.PRESCRIPTIONS_BY_PATIENT, before.getPatientId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        switch (event.kind()) {
+            case PATIENTS -> evictAll(CacheConfig.PATIENTS, event.ids());
+            case APPOINTMENTS -> evictAll(CacheConfig.APPOINTMENTS, event.ids());
+            case DOCUMENTS -> evictAll(CacheConfig.DOCUMENTS, event.ids());
+            case PRESCRIPTIONS -> evictAll(CacheConfig.PRESCRIPTIONS_BY_PATIENT,
+                    event.ids().isEmpty() ? List.of() : event.patientIds());
+            default -> {
+            }
+        }
+    }
+
+    /** Evicts {@code keys}, or the whole cache when the change did not say which rows it touched. */
+    private void evictAll(String cacheName, Collection<Integer> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return;
+        if (keys.isEmpty()) {
+            epoch.incrementAndGet();
+            cache.clear();
+        } else {
+            for (Integer key : keys) evict(cacheName, key);
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (key == null) return;
+        generations.incrementAndGet(stripe(cacheName, key));
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) cache.evict(key);
+    }
+}
@@ -0,0 +1,389 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.dto.UploadSession;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.repo.DocumentRepository;
+import com.pmsmanus.storage.BlobStore;
+import com.pmsmanus.storage.StoredBlob;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves document content between HTTP and the {@link BlobStore}. Uploads are
+ * copied to a staging file in fixed-size buffers and hashed as they arrive;
+ * the digest becomes the blob key, so identical files are stored once and a
+ * blob is removed only when the last document referencing it is deleted.
+ */
+@Service
+public class DocumentStorageService {
+    private static final Logger log = LoggerFactory.getLogger(DocumentStorageService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final String UPLOAD_PREFIX = "upload-";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final BlobStore blobStore;
+    private final DocumentRepository documentRepository;
+    private final TransactionTemplate tx;
+    private final long maxUploadSize;
+    private final Duration stagingTtl;
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final ReentrantLock[] keyLocks = new ReentrantLock[64];
+
+    public DocumentStorageService(BlobStore blobStore,
+                                  DocumentRepository documentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${pms.storage.max-upload-size:200MB}") DataSize maxUploadSize,
+                                  @Value("${pms.storage.staging-ttl:24h}") Duration stagingTtl) {
+        this.blobStore = blobStore;
+        this.documentRepository = documentRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxUploadSize = maxUploadSize.toBytes();
+        this.stagingTtl = stagingTtl;
+        for (int i = 0; i < keyLocks.length; i++) keyLocks[i] = new ReentrantLock();
+    }
+
+    public Document upload(Document document, InputStream content, String contentType) throws IOException {
+        Path staged = Files.createTempFile(blobStore.stagingDir(), "put-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            try (FileChannel out = FileChannel.open(staged, StandardOpenOption.WRITE)) {
+                copy(content, out, digest, 0);
+            }
+            return register(document, staged, HexFormat.of().formatHex(digest.digest()), contentType);
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    public UploadSession startUpload() throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path file = Files.createFile(blobStore.stagingDir().resolve(UPLOAD_PREFIX + id));
+        Upload upload = new Upload(file, sha256());
+        uploads.put(id, upload);
+        return new UploadSession(id, 0);
+    }
+
+    public UploadSession uploadStatus(String uploadId) throws IOException {
+        Upload upload = upload(uploadId);
+        upload.lock.lock();
+        try {
+            return new UploadSession(uploadId, upload.offset);
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a chunk that must start at the current offset. A chunk cut off
+     * mid-transfer keeps the bytes that arrived; the session is dropped and
+     * rebuilt from disk on the next call, so the client resumes from the offset
+     * it reads back rather than resending the whole chunk.
+     */
+    public UploadSession appendChunk(String uploadId, long offset, InputStream content) throws IOException {
+        Upload upload = upload(uploadId);
+        upload.lock.lock();
+        try {
+            if (offset != upload.offset) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Upload " + uploadId + " continues at offset " + upload.offset);
+            }
+            try (FileChannel out = FileChannel.open(upload.file, StandardOpenOption.WRITE)) {
+                out.position(upload.offset);
+                upload.offset += copy(content, out, upload.digest, upload.offset);
+            } catch (IOException | RuntimeException e) {
+                uploads.remove(uploadId);
+                throw e;
+            }
+            return new UploadSession(uploadId, upload.offset);
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    public Document completeUpload(String uploadId, Document document) throws IOException {
+        Upload upload = upload(uploadId);
+        upload.lock.lock();
+        try {
+            return register(document, upload.file,
+                    HexFormat.of().formatHex(upload.digest.digest()), document.getMimeType());
+        } finally {
+            uploads.remove(uploadId);
+            upload.lock.unlock();
+        }
+    }
+
+    public void cancelUpload(String uploadId) throws IOException {
+        Upload upload = upload(uploadId);
+        upload.lock.lock();
+        try {
+            uploads.remove(uploadId);
+            Files.deleteIfExists(upload.file);
+        } finally {
+            upload.lock.unlock();
+        }
+    }
+
+    /** Deletes the document row and, if no other document shares its content, the blob. */
+    public void delete(Document document) {
+        String key = document.getFileKey();
+        if (key == null || !blobStore.exists(key)) {
+            documentRepository.delete(document);
+            return;
+        }
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            documentRepository.delete(document);
+            if (documentRepository.countByFileKey(key) == 0) {
+                try {
+                    blobStore.delete(key);
+                } catch (IOException e) {
+                    log.warn("Could not delete blob {}", key, e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Serves the document's content, honouring a single byte range. When the
+     * connector supports it the transfer is handed to Tomcat's sendfile;
+     * otherwise the file channel is copied with {@code transferTo}.
+     */
+    public void writeContent(Document document, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String key = document.getFileKey();
+        if (key == null || !blobStore.exists(key)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = blobStore.size(key);
+        String etag = "\"" + key + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || end < start) throw new IllegalArgumentException("Unsatisfiable range");
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(document.getMimeType() != null
+                ? document.getMimeType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename(document.getDocumentName(), StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) return;
+
+        Optional<Path> local = blobStore.localPath(key);
+        if (local.isPresent() && count >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, local.get().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel in = blobStore.open(key)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = in.transferTo(position, remaining, out);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pms.storage.staging-sweep-interval:1h}")
+    public void sweepStaging() {
+        Instant cutoff = Instant.now().minus(stagingTtl);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(blobStore.stagingDir())) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) continue;
+                String name = file.getFileName().toString();
+                if (name.startsWith(UPLOAD_PREFIX)) {
+                    Upload upload = uploads.remove(name.substring(UPLOAD_PREFIX.length()));
+                    if (upload != null) {
+                        upload.lock.lock();
+                        try {
+                            Files.deleteIfExists(file);
+                        } finally {
+                            upload.lock.unlock();
+                        }
+                        continue;
+                    }
+                }
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Staging sweep failed", e);
+        }
+    }
+
+    private Document register(Document document, Path staged, String sha256, String contentType)
+            throws IOException {
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            StoredBlob blob = blobStore.putFile(staged, sha256);
+            Document saved = tx.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                document.setId(null);
+                document.setFileKey(blob.key());
+                document.setFileSize(blob.size());
+                document.setMimeType(contentType != null && !contentType.isBlank()
+                        ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                document.setFileUrl("");
+                document.setCreatedAt(now);
+                document.setUpdatedAt(now);
+                Document row = documentRepository.save(document);
+                row.setFileUrl("/api/documents/" + row.getId() + "/content");
+                return documentRepository.save(row);
+            });
+            if (blob.deduplicated()) {
+                log.debug("Document {} reuses stored blob {}", saved.getId(), blob.key());
+            }
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks up an upload session, rebuilding it from its staging file after a
+     * restart by re-hashing the bytes received so far.
+     */
+    private Upload upload(String uploadId) throws IOException {
+        Upload upload = uploads.get(uploadId);
+        if (upload != null) return upload;
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown upload " + uploadId);
+        }
+        Path file = blobStore.stagingDir().resolve(UPLOAD_PREFIX + uploadId);
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream in = Files.newInputStream(file)) {
+            size = copy(in, null, digest, 0);
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown upload " + uploadId);
+        }
+        Upload recovered = new Upload(file, digest);
+        recovered.offset = size;
+        Upload existing = uploads.putIfAbsent(uploadId, recovered);
+        return existing != null ? existing : recovered;
+    }
+
+    /**
+     * Copies {@code in} to {@code out} (when given) through one reused buffer,
+     * updating {@code digest} with exactly the bytes written.
+     */
+    private long copy(InputStream in, FileChannel out, MessageDigest digest, long alreadyStored) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            if (out != null && alreadyStored + total + n > maxUploadSize) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Upload exceeds " + maxUploadSize + " bytes");
+            }
+            if (out != null) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                while (chunk.hasRemaining()) out.write(chunk);
+            }
+            digest.update(buffer, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    private ReentrantLock lockFor(String key) {
+        return keyLocks[Math.floorMod(key.hashCode(), keyLocks.length)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Upload {
+        private final Path file;
+        private final MessageDigest digest;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long offset;
+
+        private Upload(Path file, MessageDigest digest) {
+            this.file = file;
+            this.digest = digest;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.pmsmanus.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes query results as newline-delimited JSON while they are read, detaching
+ * each entity once written so memory stays flat regardless of row count.
+ */
+@Service
+public class NdjsonStreamer {
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTx;
+
+    public NdjsonStreamer(ObjectMapper objectMapper, EntityManager entityManager,
+                          PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> source) {
+        return out -> readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<T> rows = source.get();
+                 JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.setRootValueSeparator(null);
+                int written = 0;
+                Iterator<T> it = rows.iterator();
+                while (it.hasNext()) {
+                    T row = it.next();
+                    rowWriter.writeValue(gen, row);
+                    gen.writeRaw('\n');
+                    entityManager.detach(row);
+                    if (++written % FLUSH_EVERY == 0) gen.flush();
+                }
+                gen.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.PatientChart;
+import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.repo.DocumentRepository;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.repo.PrescriptionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Loads a patient with their most recent appointments, prescriptions and
+ * documents in one read-only transaction, bounding each section by a limit.
+ * Sections reach into the archive only when older rows could still make the cut.
+ */
+@Service
+public class PatientChartService {
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final DocumentRepository documentRepository;
+    private final ArchiveStore archive;
+    private final int defaultSectionSize;
+    private final int maxSectionSize;
+
+    public PatientChartService(PatientRepository patientRepository,
+                               AppointmentRepository appointmentRepository,
+                               PrescriptionRepository prescriptionRepository,
+                               DocumentRepository documentRepository,
+                               ArchiveStore archive,
+                               @Value("${pms.chart.default-section-size:20}") int defaultSectionSize,
+                               @Value("${pms.chart.max-section-size:200}") int maxSectionSize) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.documentRepository = documentRepository;
+        this.archive = archive;
+        this.defaultSectionSize = defaultSectionSize;
+        this.maxSectionSize = maxSectionSize;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PatientChart> load(Integer patientId, Integer appointments, Integer prescriptions, Integer documents) {
+        Limit appointmentLimit = section(appointments);
+        Limit prescriptionLimit = section(prescriptions);
+        return patientRepository.findById(patientId).map(patient -> new PatientChart(
+                patient,
+                archive.appointmentsForPatient(patientId,
+                        appointmentRepository.findByPatientIdOrderByAppointmentDateDescAppointmentTimeDesc(
+                                patientId, appointmentLimit, AppointmentSummary.class),
+                        appointmentLimit.max()),
+                archive.prescriptionsForPatient(patientId,
+                        prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId, prescriptionLimit),
+                        prescriptionLimit.max()),
+                documentRepository.findByPatientIdOrderByCreatedAtDesc(patientId, section(documents))));
+    }
+
+    private Limit section(Integer requested) {
+        if (requested == null) return Limit.of(defaultSectionSize);
+        return Limit.of(Math.max(0, Math.min(requested, maxSectionSize)));
+    }
+}
@@ -0,0 +1,210 @@
+package com.pmsmanus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.dto.MergePatch;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.repo.PrescriptionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Edits of the versioned records. Each call loads and changes the rows in one
+ * transaction and leaves the write to Hibernate's dirty checking, so an UPDATE
+ * names only the changed columns and carries {@code WHERE version = ?}; a
+ * client that sends the version it read gets 409 instead of overwriting a
+ * newer edit. Rows that end up unchanged are not written at all.
+ */
+@Service
+public class RecordUpdateService {
+    private static final Target<Patient> PATIENT = new Target<>("Patient",
+            Set.of("firstName", "lastName", "email", "phone", "dateOfBirth", "gender", "address", "city", "state",
+                    "zipCode", "emergencyContact", "emergencyPhone", "medicalHistory", "allergies", "bloodType"),
+            Set.of("firstName", "lastName", "phone"),
+            Patient::getId, Patient::getVersion, Patient::setUpdatedAt);
+    private static final Target<Prescription> PRESCRIPTION = new Target<>("Prescription",
+            Set.of("medicationName", "dosage", "frequency", "duration", "route", "quantity", "instructions",
+                    "startDate", "endDate", "status"),
+            Set.of("medicationName", "dosage", "frequency", "startDate"),
+            Prescription::getId, Prescription::getVersion, Prescription::setUpdatedAt);
+
+    private final PatientRepository patientRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final int maxBatchSize;
+
+    public RecordUpdateService(PatientRepository patientRepository,
+                               PrescriptionRepository prescriptionRepository,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher events,
+                               @Value("${pms.patch.max-batch-size:500}") int maxBatchSize) {
+        this.patientRepository = patientRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /** Copies the non-null fields of {@code updates}, as PUT always has. */
+    @Transactional
+    public Optional<Patient> updatePatient(Integer id, Patient updates) {
+        return patientRepository.findById(id).map(p -> {
+            requireVersion(PATIENT, p, updates.getVersion());
+            Patient before = EntityChangedEvent.snapshot(p);
+            if (updates.getFirstName() != null) p.setFirstName(updates.getFirstName());
+            if (updates.getLastName() != null) p.setLastName(updates.getLastName());
+            if (updates.getEmail() != null) p.setEmail(updates.getEmail());
+            if (updates.getPhone() != null) p.setPhone(updates.getPhone());
+            if (updates.getDateOfBirth() != null) p.setDateOfBirth(updates.getDateOfBirth());
+            if (updates.getGender() != null) p.setGender(updates.getGender());
+            if (updates.getAddress() != null) p.setAddress(updates.getAddress());
+            if (updates.getCity() != null) p.setCity(updates.getCity());
+            if (updates.getState() != null) p.setState(updates.getState());
+            if (updates.getZipCode() != null) p.setZipCode(updates.getZipCode());
+            if (updates.getEmergencyContact() != null) p.setEmergencyContact(updates.getEmergencyContact());
+            if (updates.getEmergencyPhone() != null) p.setEmergencyPhone(updates.getEmergencyPhone());
+            if (updates.getMedicalHistory() != null) p.setMedicalHistory(updates.getMedicalHistory());
+            if (updates.getAllergies() != null) p.setAllergies(updates.getAllergies());
+            if (updates.getBloodType() != null) p.setBloodType(updates.getBloodType());
+            changed(PATIENT, p, before);
+            return p;
+        });
+    }
+
+    @Transactional
+    public Optional<Prescription> updatePrescription(Integer id, Prescription updates) {
+        return prescriptionRepository.findById(id).map(existing -> {
+            requireVersion(PRESCRIPTION, existing, updates.getVersion());
+            Prescription before = EntityChangedEvent.snapshot(existing);
+            if (updates.getMedicationName() != null) existing.setMedicationName(updates.getMedicationName());
+            if (updates.getDosage() != null) existing.setDosage(updates.getDosage());
+            if (updates.getFrequency() != null) existing.setFrequency(updates.getFrequency());
+            if (updates.getDuration() != null) existing.setDuration(updates.getDuration());
+            if (updates.getRoute() != null) existing.setRoute(updates.getRoute());
+            if (updates.getQuantity() != null) existing.setQuantity(updates.getQuantity());
+            if (updates.getInstructions() != null) existing.setInstructions(updates.getInstructions());
+            if (updates.getStartDate() != null) existing.setStartDate(updates.getStartDate());
+            if (updates.getEndDate() != null) existing.setEndDate(updates.getEndDate());
+            if (updates.getStatus() != null) existing.setStatus(updates.getStatus());
+            changed(PRESCRIPTION, existing, before);
+            return existing;
+        });
+    }
+
+    /** Applies every patch or none: any missing row, stale version or invalid field rolls the batch back. */
+    @Transactional
+    public List<Patient> patchPatients(List<MergePatch> batch) {
+        return patch(PATIENT, patientRepository, batch);
+    }
+
+    @Transactional
+    public List<Prescription> patchPrescriptions(List<MergePatch> batch) {
+        return patch(PRESCRIPTION, prescriptionRepository, batch);
+    }
+
+    private <T> List<T> patch(Target<T> target, JpaRepository<T, Integer> repository, List<MergePatch> batch) {
+        if (batch == null || batch.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No patches given");
+        }
+        if (batch.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " patches per request");
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (MergePatch p : batch) {
+            if (p == null || p.id() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every patch needs an id");
+            }
+            if (!ids.add(p.id())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        target.name() + " " + p.id() + " is patched more than once");
+            }
+            validate(target, p);
+        }
+
+        Map<Integer, T> rows = new HashMap<>();
+        for (T row : repository.findAllById(ids)) rows.put(target.id().apply(row), row);
+
+        List<T> result = new ArrayList<>(batch.size());
+        for (MergePatch p : batch) {
+            T row = rows.get(p.id());
+            if (row == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, target.name() + " " + p.id() + " not found");
+            }
+            requireVersion(target, row, p.version());
+            T before = EntityChangedEvent.snapshot(row);
+            try {
+                objectMapper.readerForUpdating(row).readValue(p.patch());
+            } catch (JsonProcessingException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Invalid patch for " + target.name() + " " + p.id() + ": " + e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            changed(target, row, before);
+            result.add(row);
+        }
+        return result;
+    }
+
+    private static void validate(Target<?> target, MergePatch p) {
+        JsonNode patch = p.patch();
+        if (patch == null || !patch.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Patch for " + target.name() + " " + p.id() + " must be a JSON object");
+        }
+        for (Map.Entry<String, JsonNode> field : patch.properties()) {
+            if (!target.fields().contains(field.getKey())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        target.name() + " field '" + field.getKey() + "' cannot be patched");
+            }
+            if (target.required().contains(field.getKey()) && field.getValue().isNull()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        target.name() + " field '" + field.getKey() + "' cannot be cleared");
+            }
+        }
+    }
+
+    private static <T> void requireVersion(Target<T> target, T row, Long expected) {
+        Long actual = target.version().apply(row);
+        if (expected != null && !expected.equals(actual)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, target.name() + " " + target.id().apply(row)
+                    + " was changed by someone else (version " + actual + ", expected " + expected + ")");
+        }
+    }
+
+    private <T> void changed(Target<T> target, T row, T before) {
+        if (Objects.equals(objectMapper.valueToTree(row), objectMapper.valueToTree(before))) return;
+        target.stamp().accept(row, LocalDateTime.now());
+        events.publishEvent(EntityChangedEvent.updated(row, before));
+    }
+
+    private record Target<T>(String name, Set<String> fields, Set<String> required,
+                             Function<T, Integer> id, Function<T, Long> version,
+                             BiConsumer<T, LocalDateTime> stamp) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.dto.DailyBreakdown;
+import com.pmsmanus.dto.ReportSummary;
+import com.pmsmanus.entity.StatRollup;
+import com.pmsmanus.repo.StatRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds report summaries from the {@code stat_rollups} table maintained by
+ * {@link StatRollupService}, so cost scales with the number of days reported.
+ */
+@Service
+public class ReportService {
+    private final StatRollupRepository rollupRepository;
+
+    public ReportService(StatRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public ReportSummary daily(LocalDate date) {
+        return summarize("daily", "daily-" + date, date, date, date);
+    }
+
+    @Transactional(readOnly = true)
+    public ReportSummary monthly(YearMonth month) {
+        return summarize("monthly", "monthly-" + month, month.atDay(1), month.atDay(1), month.atEndOfMonth());
+    }
+
+    private ReportSummary summarize(String type, String reportId, LocalDate reportDate, LocalDate from, LocalDate to) {
+        Map<LocalDate, DayTotals> days = new TreeMap<>();
+        for (StatRollup r : rollupRepository.findByStatDateBetween(from, to)) {
+            DayTotals t = days.computeIfAbsent(r.getStatDate(), d -> new DayTotals());
+            if (StatRollup.APPOINTMENTS.equals(r.getMetric())) {
+                t.addStatus(r.getStatus(), r.getTotal());
+            } else if (StatRollup.NEW_PATIENTS.equals(r.getMetric())) {
+                t.newPatients += r.getTotal();
+            }
+        }
+
+        DayTotals sum = new DayTotals();
+        List<DailyBreakdown> breakdown = new ArrayList<>(days.size());
+        for (Map.Entry<LocalDate, DayTotals> e : days.entrySet()) {
+            DayTotals t = e.getValue();
+            sum.total += t.total;
+            sum.completed += t.completed;
+            sum.cancelled += t.cancelled;
+            sum.scheduled += t.scheduled;
+            sum.newPatients += t.newPatients;
+            breakdown.add(new DailyBreakdown(e.getKey(), t.total, t.completed, t.cancelled, t.scheduled, t.newPatients));
+        }
+        return new ReportSummary(reportId, type, reportDate, from, to,
+                sum.total, sum.completed, sum.cancelled, sum.scheduled,
+                rollupRepository.sumByMetric(StatRollup.NEW_PATIENTS), sum.newPatients, breakdown);
+    }
+
+    private static final class DayTotals {
+        long total;
+        long completed;
+        long cancelled;
+        long scheduled;
+        long newPatients;
+
+        void addStatus(String status, long count) {
+            total += count;
+            if ("completed".equals(status)) completed += count;
+            else if ("cancelled".equals(status)) cancelled += count;
+            else if ("scheduled".equals(status)) scheduled += count;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.StatRollup;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.repo.StatRollupRepository;
+import com.pmsmanus.repo.projection.DailyCount;
+import com.pmsmanus.repo.projection.DailyDoctorStatusCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains per-day appointment counts (by doctor and status) and per-day new
+ * patient counts in {@code stat_rollups}. Writes are applied incrementally from
+ * entity change events; a scheduled reconciliation recomputes a recent window
+ * from the source tables to repair any drift. Archived appointments stay in
+ * the counts: a rebuild adds {@code appointments_archive} to the hot table.
+ */
+@Service
+public class StatRollupService {
+    private static final Logger log = LoggerFactory.getLogger(StatRollupService.class);
+
+    private final StatRollupRepository rollupRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final ArchiveStore archiveStore;
+    private final ChangeTracker changes;
+    private final TransactionTemplate tx;
+    private final int reconcilePastDays;
+    private final int reconcileFutureDays;
+
+    public StatRollupService(StatRollupRepository rollupRepository,
+                             AppointmentRepository appointmentRepository,
+                             PatientRepository patientRepository,
+                             ArchiveStore archiveStore,
+                             ChangeTracker changes,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${pms.rollup.reconcile-past-days:35}") int reconcilePastDays,
+                             @Value("${pms.rollup.reconcile-future-days:90}") int reconcileFutureDays) {
+        this.rollupRepository = rollupRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.archiveStore = archiveStore;
+        this.changes = changes;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcilePastDays = reconcilePastDays;
+        this.reconcileFutureDays = reconcileFutureDays;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        List<Delta> deltas = new ArrayList<>(2);
+        if (event.previous() instanceof Appointment before) {
+            Appointment after = (Appointment) event.entity();
+            if (after == null || !sameBucket(before, after)) {
+                deltas.add(appointmentDelta(before, -1));
+            }
+        }
+        if (event.entity() instanceof Appointment after) {
+            if (!(event.previous() instanceof Appointment before) || !sameBucket(before, after)) {
+                deltas.add(appointmentDelta(after, 1));
+            }
+        }
+        if (event.current() instanceof Patient p && p.getCreatedAt() != null
+                && event.action() != EntityChangedEvent.Action.UPDATED) {
+            long sign = event.action() == EntityChangedEvent.Action.DELETED ? -1 : 1;
+            deltas.add(new Delta(p.getCreatedAt().toLocalDate(), StatRollup.NEW_PATIENTS,
+                    StatRollup.NO_DOCTOR, StatRollup.NO_STATUS, sign));
+        }
+        if (deltas.isEmpty()) return;
+        try {
+            apply(deltas);
+        } catch (RuntimeException e) {
+            log.warn("Failed to update stat rollups, reconciliation will repair them", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (rollupRepository.count() > 0) return;
+        LocalDate today = LocalDate.now();
+        LocalDate from = today;
+        LocalDate to = today;
+        LocalDate firstAppointment = appointmentRepository.findFirstAppointmentDate();
+        LocalDate lastAppointment = appointmentRepository.findLastAppointmentDate();
+        LocalDate firstArchived = archiveStore.oldestAppointmentDate();
+        LocalDateTime firstPatient = patientRepository.findFirstCreatedAt();
+        if (firstAppointment != null && firstAppointment.isBefore(from)) from = firstAppointment;
+        if (firstArchived != null && firstArchived.isBefore(from)) from = firstArchived;
+        if (lastAppointment != null && lastAppointment.isAfter(to)) to = lastAppointment;
+        if (firstPatient != null && firstPatient.toLocalDate().isBefore(from)) from = firstPatient.toLocalDate();
+        reconcileQuietly(from, to);
+    }
+
+    @Scheduled(cron = "${pms.rollup.reconcile-cron:0 17 * * * *}")
+    public void reconcileRecent() {
+        LocalDate today = LocalDate.now();
+        reconcileQuietly(today.minusDays(reconcilePastDays), today.plusDays(reconcileFutureDays));
+    }
+
+    private void reconcileQuietly(LocalDate from, LocalDate to) {
+        try {
+            reconcile(from, to);
+        } catch (RuntimeException e) {
+            log.warn("Stat rollup reconciliation for {}..{} failed, will retry on next run", from, to, e);
+        }
+    }
+
+    public void reconcile(LocalDate from, LocalDate to) {
+        long started = System.nanoTime();
+        Integer rows = tx.execute(status -> {
+            rollupRepository.deleteWindow(StatRollup.APPOINTMENTS, from, to);
+            rollupRepository.deleteWindow(StatRollup.NEW_PATIENTS, from, to);
+            // A row is in exactly one tier, so the two counts for a bucket add up.
+            Map<Bucket, Long> appointments = new LinkedHashMap<>();
+            for (DailyDoctorStatusCount c : appointmentRepository.countByDayDoctorAndStatus(from, to)) {
+                appointments.merge(new Bucket(c.getDay(), doctorKey(c.getDoctorId()), statusKey(c.getStatus())),
+                        c.getTotal(), Long::sum);
+            }
+            for (ArchiveStore.DayCount c : archiveStore.appointmentCounts(from, to)) {
+                appointments.merge(new Bucket(c.day(), doctorKey(c.doctorId()), statusKey(c.status())),
+                        c.total(), Long::sum);
+            }
+            List<StatRollup> fresh = new ArrayList<>();
+            appointments.forEach((b, total) ->
+                    fresh.add(new StatRollup(b.day(), StatRollup.APPOINTMENTS, b.doctorId(), b.status(), total)));
+            for (DailyCount c : patientRepository.countCreatedByDay(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                fresh.add(new StatRollup(c.getDay(), StatRollup.NEW_PATIENTS,
+                        StatRollup.NO_DOCTOR, StatRollup.NO_STATUS, c.getTotal()));
+            }
+            rollupRepository.saveAll(fresh);
+            return fresh.size();
+        });
+        changes.touch(ChangeTracker.Kind.ROLLUPS);
+        log.info("Reconciled stat rollups {}..{} ({} rows) in {} ms",
+                from, to, rows, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void apply(List<Delta> deltas) {
+        try {
+            tx.executeWithoutResult(status -> deltas.forEach(this::applyOne));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer created the same bucket first; the retry updates it in place.
+            tx.executeWithoutResult(status -> deltas.forEach(this::applyOne));
+        }
+    }
+
+    private void applyOne(Delta d) {
+        int updated = rollupRepository.increment(d.day, d.metric, d.doctorId, d.status, d.delta);
+        if (updated == 0) {
+            rollupRepository.saveAndFlush(new StatRollup(d.day, d.metric, d.doctorId, d.status, d.delta));
+        }
+    }
+
+    private static Delta appointmentDelta(Appointment a, long delta) {
+        return new Delta(a.getAppointmentDate(), StatRollup.APPOINTMENTS,
+                doctorKey(a.getDoctorId()), statusKey(a.getStatus()), delta);
+    }
+
+    private static boolean sameBucket(Appointment a, Appointment b) {
+        return Objects.equals(a.getAppointmentDate(), b.getAppointmentDate())
+                && Objects.equals(doctorKey(a.getDoctorId()), doctorKey(b.getDoctorId()))
+                && Objects.equals(statusKey(a.getStatus()), statusKey(b.getStatus()));
+    }
+
+    static Integer doctorKey(Integer doctorId) {
+        return doctorId == null ? StatRollup.NO_DOCTOR : doctorId;
+    }
+
+    static String statusKey(String status) {
+        return status == null ? StatRollup.NO_STATUS : status;
+    }
+
+    private record Bucket(LocalDate day, Integer doctorId, String status) {
+    }
+
+    private record Delta(LocalDate day, String metric, Integer doctorId, String status, long delta) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.pmsmanus.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed object storage for document files. Implementations must
+ * stream content rather than buffer whole objects in memory.
+ */
+public interface BlobStore {
+
+    /**
+     * Moves a fully written staging file into the store under {@code sha256},
+     * the digest computed while the file was written. The file is consumed
+     * either way; if the key already exists the stored object is kept.
+     */
+    StoredBlob putFile(Path file, String sha256) throws IOException;
+
+    /** Directory for partially uploaded files; must be on the same volume as the store. */
+    Path stagingDir();
+
+    boolean exists(String key);
+
+    long size(String key) throws IOException;
+
+    FileChannel open(String key) throws IOException;
+
+    /** Local file backing {@code key}, when the store keeps objects on local disk. */
+    Optional<Path> localPath(String key);
+
+    void delete(String key) throws IOException;
+}
@@ -0,0 +1,108 @@
+package com.pmsmanus.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stores objects under {@code <root>/objects/ab/cd/<sha256>}. Uploads are
+ * written to {@code <root>/staging} and then renamed into place, so a
+ * half-written file is never visible under its key.
+ */
+@Component
+public class LocalDiskBlobStore implements BlobStore {
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path objects;
+    private final Path staging;
+
+    public LocalDiskBlobStore(@Value("${pms.storage.root:./data/blobs}") String root) {
+        Path base = Path.of(root).toAbsolutePath().normalize();
+        this.objects = base.resolve("objects");
+        this.staging = base.resolve("staging");
+        try {
+            Files.createDirectories(objects);
+            Files.createDirectories(staging);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create blob store at " + base, e);
+        }
+    }
+
+    @Override
+    public StoredBlob putFile(Path file, String sha256) throws IOException {
+        try {
+            if (!isKey(sha256)) throw new IOException("Invalid blob key: " + sha256);
+            return commit(file, sha256);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public Path stagingDir() {
+        return staging;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return isKey(key) && Files.isRegularFile(pathOf(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(checkedPath(key));
+    }
+
+    @Override
+    public FileChannel open(String key) throws IOException {
+        return FileChannel.open(checkedPath(key), StandardOpenOption.READ);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return exists(key) ? Optional.of(pathOf(key)) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (isKey(key)) Files.deleteIfExists(pathOf(key));
+    }
+
+    private static boolean isKey(String key) {
+        return key != null && KEY.matcher(key).matches();
+    }
+
+    private StoredBlob commit(Path file, String key) throws IOException {
+        long size = Files.size(file);
+        Path target = pathOf(key);
+        if (Files.exists(target)) {
+            return new StoredBlob(key, size, true);
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            return new StoredBlob(key, size, true);
+        }
+        return new StoredBlob(key, size, false);
+    }
+
+    private Path checkedPath(String key) throws IOException {
+        if (!isKey(key)) throw new IOException("Invalid blob key: " + key);
+        return pathOf(key);
+    }
+
+    private Path pathOf(String key) {
+        return objects.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+}
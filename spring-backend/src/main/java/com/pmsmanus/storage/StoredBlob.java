@@ -0,0 +1,8 @@
+package com.pmsmanus.storage;
+
+/**
+ * A stored object. {@code key} is the hex SHA-256 of the content, so identical
+ * uploads share one object and {@code deduplicated} reports that case.
+ */
+public record StoredBlob(String key, long size, boolean deduplicated) {
+}
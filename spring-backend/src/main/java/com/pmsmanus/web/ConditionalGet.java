@@ -0,0 +1,23 @@
+package com.pmsmanus.web;
+
+import com.pmsmanus.event.ChangeTracker;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET handler whose response only changes when one of the given kinds
+ * of data changes, so {@link ConditionalGetInterceptor} can answer 304 without
+ * running it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    ChangeTracker.Kind[] value();
+
+    /** Set for handlers that default to today, whose response also changes at midnight. */
+    boolean daily() default false;
+}
@@ -0,0 +1,41 @@
+package com.pmsmanus.web;
+
+import com.pmsmanus.event.ChangeTracker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.LocalDate;
+
+/**
+ * Answers If-None-Match and If-Modified-Since for {@link ConditionalGet}
+ * handlers from the change counters alone, before any query runs. Responses
+ * are marked {@code no-cache} so browsers revalidate instead of reusing them
+ * on heuristic freshness. Last-Modified has one-second resolution; when a
+ * client sends both headers the ETag decides.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+    private final ChangeTracker changes;
+
+    public ConditionalGetInterceptor(ChangeTracker changes) {
+        this.changes = changes;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) return true;
+        ConditionalGet conditional = method.getMethodAnnotation(ConditionalGet.class);
+        if (conditional == null) return true;
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) return true;
+
+        String etag = changes.etag(conditional.value(), conditional.daily() ? LocalDate.now().toString() : null);
+        long lastModified = changes.lastModified(conditional.value());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return !new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
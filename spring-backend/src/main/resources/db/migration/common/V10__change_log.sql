@@ -0,0 +1,16 @@
+-- Committed changes in order, for other nodes. ChangeLog appends a row in the
+-- writing transaction and every node polls rows after the last one it saw.
+create table change_log (
+    seq bigint not null auto_increment,
+    node varchar(64) not null,
+    kind varchar(20) not null,
+    entity_ids TEXT,
+    name varchar(30),
+    topics TEXT,
+    payload LONGTEXT,
+    recorded_at datetime(6) not null,
+    primary key (seq)
+) engine=InnoDB;
+
+-- ChangeLog.prune
+create index idx_change_log_recorded on change_log (recorded_at);
@@ -0,0 +1,31 @@
+-- Tables added after the baseline schema. Numbered ahead of V2 so that the
+-- stat_rollups index there has a table, and run on baselined databases too.
+
+create table import_jobs (
+    id integer not null auto_increment,
+    import_key varchar(100) not null,
+    kind varchar(30) not null,
+    status varchar(20) not null,
+    records_committed bigint not null,
+    imported bigint not null,
+    rejected bigint not null,
+    last_error TEXT,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table stat_rollups (
+    id integer not null auto_increment,
+    stat_date date not null,
+    metric varchar(30) not null,
+    doctor_id integer not null,
+    status varchar(20) not null,
+    total bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- ImportJobRepository.findByImportKey
+alter table import_jobs add constraint uk_import_jobs_import_key unique (import_key);
+-- StatRollupRepository.findByStatDateBetween and the upsert key
+alter table stat_rollups add constraint uk_stat_rollups_key unique (stat_date, metric, doctor_id, status);
@@ -0,0 +1,82 @@
+-- Schema as previously created by hibernate.ddl-auto=update. Existing
+-- databases are baselined at this version and start from V1_1.
+
+create table patients (
+    id integer not null auto_increment,
+    patient_id varchar(50) not null,
+    first_name varchar(100) not null,
+    last_name varchar(100) not null,
+    email varchar(320),
+    phone varchar(20) not null,
+    date_of_birth date,
+    gender varchar(10),
+    address TEXT,
+    city varchar(100),
+    state varchar(100),
+    zip_code varchar(20),
+    emergency_contact varchar(100),
+    emergency_phone varchar(20),
+    medical_history LONGTEXT,
+    allergies LONGTEXT,
+    blood_type varchar(10),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table appointments (
+    id integer not null auto_increment,
+    appointment_id varchar(50) not null,
+    patient_id integer not null,
+    doctor_id integer,
+    appointment_date date not null,
+    appointment_time time(6) not null,
+    duration integer,
+    status varchar(20),
+    reason TEXT,
+    notes LONGTEXT,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table prescriptions (
+    id integer not null auto_increment,
+    prescription_id varchar(50) not null,
+    visit_id integer not null,
+    patient_id integer not null,
+    doctor_id integer,
+    medication_name varchar(255) not null,
+    dosage varchar(100) not null,
+    frequency varchar(100) not null,
+    duration varchar(100),
+    route varchar(50),
+    quantity integer,
+    refills integer,
+    instructions LONGTEXT,
+    start_date date not null,
+    end_date date,
+    status varchar(20),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table documents (
+    id integer not null auto_increment,
+    patient_id integer not null,
+    document_type varchar(50) not null,
+    document_name varchar(255) not null,
+    description LONGTEXT,
+    file_url varchar(1024) not null,
+    file_key varchar(1024),
+    mime_type varchar(100),
+    file_size bigint,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table patients add constraint UK427e3ubwhw8n7a4id3mmrmjgj unique (patient_id);
+alter table appointments add constraint UKjda1wmwraw0jdfbq8x8u3ws1 unique (appointment_id);
+alter table prescriptions add constraint UKq6fr18twglgr4sqy9d9f377tn unique (prescription_id);
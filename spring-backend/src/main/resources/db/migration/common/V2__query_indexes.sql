@@ -0,0 +1,16 @@
+-- findByAppointmentDateOrderByAppointmentTime, countByDayDoctorAndStatus,
+-- findFirst/LastAppointmentDate
+create index idx_appointments_date_time on appointments (appointment_date, appointment_time);
+
+-- findByPatientIdOrderByAppointmentDateDesc[AppointmentTimeDesc]
+create index idx_appointments_patient_date on appointments (patient_id, appointment_date, appointment_time);
+
+-- findByPatientIdOrderByCreatedAtDesc
+create index idx_prescriptions_patient_created on prescriptions (patient_id, created_at);
+create index idx_documents_patient_created on documents (patient_id, created_at);
+
+-- countCreatedByDay, findFirstCreatedAt
+create index idx_patients_created on patients (created_at);
+
+-- sumByMetric, deleteWindow; by-date lookups use uk_stat_rollups_key
+create index idx_stat_rollups_metric_date on stat_rollups (metric, stat_date);
@@ -0,0 +1,4 @@
+-- Optimistic locking for Patient and Prescription edits. Existing rows and the
+-- bulk importer's inserts start at version 0.
+alter table patients add column version bigint default 0 not null;
+alter table prescriptions add column version bigint default 0 not null;
@@ -0,0 +1,15 @@
+-- Append-only trail of entity changes, written in batches by AuditLog.
+create table audit_log (
+    id bigint not null auto_increment,
+    occurred_at datetime(6) not null,
+    actor varchar(320),
+    action varchar(10) not null,
+    entity_type varchar(30) not null,
+    entity_id integer,
+    changes LONGTEXT,
+    primary key (id)
+) engine=InnoDB;
+
+-- AuditLog.forEntity, AuditLog.byActor
+create index idx_audit_log_entity on audit_log (entity_type, entity_id, id);
+create index idx_audit_log_actor on audit_log (actor, id);
@@ -0,0 +1,9 @@
+-- One row the primary stamps with the current time; how old the copy on a
+-- replica is tells ReadReplicas how far that replica lags.
+create table replica_heartbeat (
+    id integer not null,
+    beat_at bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into replica_heartbeat (id, beat_at) values (1, 0);
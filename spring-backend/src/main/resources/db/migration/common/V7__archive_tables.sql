@@ -0,0 +1,52 @@
+-- Cold tier for finished appointments and prescriptions past pms.archive.horizon-days.
+-- Rows keep their ids. Archiver moves them and ArchiveStore reads them back
+-- for history lookups.
+create table appointments_archive (
+    id integer not null,
+    appointment_id varchar(50) not null,
+    patient_id integer not null,
+    doctor_id integer,
+    appointment_date date not null,
+    appointment_time time(6) not null,
+    duration integer,
+    status varchar(20),
+    reason TEXT,
+    notes LONGTEXT,
+    created_at datetime(6),
+    updated_at datetime(6),
+    archived_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table prescriptions_archive (
+    id integer not null,
+    prescription_id varchar(50) not null,
+    visit_id integer not null,
+    patient_id integer not null,
+    doctor_id integer,
+    medication_name varchar(255) not null,
+    dosage varchar(100) not null,
+    frequency varchar(100) not null,
+    duration varchar(100),
+    route varchar(50),
+    quantity integer,
+    refills integer,
+    instructions LONGTEXT,
+    start_date date not null,
+    end_date date,
+    status varchar(20),
+    created_at datetime(6),
+    updated_at datetime(6),
+    version bigint default 0 not null,
+    archived_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- ArchiveStore.appointmentsForPatient
+create index idx_appointments_archive_patient_date on appointments_archive (patient_id, appointment_date, appointment_time);
+-- ArchiveStore.appointmentsOn
+create index idx_appointments_archive_date_time on appointments_archive (appointment_date, appointment_time);
+-- ArchiveStore.existingAppointmentIds
+create unique index uk_appointments_archive_appointment_id on appointments_archive (appointment_id);
+-- ArchiveStore.prescriptionsForPatient
+create index idx_prescriptions_archive_patient_created on prescriptions_archive (patient_id, created_at);
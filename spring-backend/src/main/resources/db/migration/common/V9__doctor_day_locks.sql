@@ -0,0 +1,11 @@
+-- One row per doctor and day that has been booked. ScheduleIndex.book locks it
+-- with select ... for update, so bookings for the same doctor-day queue on the
+-- primary whichever node serves them.
+create table doctor_day_locks (
+    doctor_id integer not null,
+    booking_date date not null,
+    primary key (doctor_id, booking_date)
+) engine=InnoDB;
+
+-- ScheduleIndex.book overlap check
+create index idx_appointments_doctor_date on appointments (doctor_id, appointment_date, appointment_time);
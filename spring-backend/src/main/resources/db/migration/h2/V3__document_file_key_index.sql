@@ -0,0 +1,2 @@
+-- countByFileKey. MySQL indexes a 64 character prefix; H2 has no prefix indexes.
+create index idx_documents_file_key on documents (file_key);
@@ -0,0 +1,9 @@
+-- The baseline kept the unique keys Hibernate had generated, named by hash.
+-- H2 keeps a renamed constraint's index under the old name, so the keys are
+-- recreated rather than renamed.
+alter table patients drop constraint UK427e3ubwhw8n7a4id3mmrmjgj;
+alter table patients add constraint uk_patients_patient_id unique (patient_id);
+alter table appointments drop constraint UKjda1wmwraw0jdfbq8x8u3ws1;
+alter table appointments add constraint uk_appointments_appointment_id unique (appointment_id);
+alter table prescriptions drop constraint UKq6fr18twglgr4sqy9d9f377tn;
+alter table prescriptions add constraint uk_prescriptions_prescription_id unique (prescription_id);
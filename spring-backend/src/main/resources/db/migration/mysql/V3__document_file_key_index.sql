@@ -0,0 +1,3 @@
+-- countByFileKey. Blob keys are 64 hex characters; legacy keys can be longer
+-- than InnoDB allows in an index, so only the prefix is indexed.
+create index idx_documents_file_key on documents (file_key(64));
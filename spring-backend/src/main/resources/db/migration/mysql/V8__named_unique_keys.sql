@@ -0,0 +1,5 @@
+-- The baseline kept the unique keys Hibernate had generated, named by hash.
+-- Give them names the entities and the query plan check can refer to.
+alter table patients rename index UK427e3ubwhw8n7a4id3mmrmjgj to uk_patients_patient_id;
+alter table appointments rename index UKjda1wmwraw0jdfbq8x8u3ws1 to uk_appointments_appointment_id;
+alter table prescriptions rename index UKq6fr18twglgr4sqy9d9f377tn to uk_prescriptions_prescription_id;
@@ -0,0 +1,94 @@
+package com.pmsmanus.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pmsmanus.auth.AuthStore;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.event.EntityChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditLogTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+    private AuditLog auditLog;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        auditLog = new AuditLog(jdbcTemplate, transactionManager, objectMapper, new SimpleMeterRegistry(),
+                mock(AuthStore.class), 64, 10, Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void keepsWritingAfterARecordCannotBeConverted() {
+        Patient broken = patient(1);
+        doThrow(new IllegalArgumentException("cannot convert")).when(objectMapper).valueToTree(same(broken));
+        auditLog.start();
+
+        auditLog.onEntityChanged(EntityChangedEvent.created(broken));
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(anyString(), anyList());
+        auditLog.onEntityChanged(EntityChangedEvent.created(patient(2)));
+        auditLog.stop();
+
+        List<Object[]> rows = written();
+        assertEquals(2, rows.size());
+        assertEquals(1, rows.get(0)[4]);
+        assertNull(rows.get(0)[5]);
+        assertEquals(2, rows.get(1)[4]);
+    }
+
+    @Test
+    void retriesABatchWhoseWriteFailed() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new IllegalStateException("unexpected"))
+                .thenReturn(new int[]{1});
+        auditLog.start();
+
+        auditLog.onEntityChanged(EntityChangedEvent.created(patient(3)));
+        auditLog.stop();
+
+        List<Object[]> rows = written();
+        assertEquals(2, rows.size());
+        assertEquals(3, rows.get(1)[4]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> written() {
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), batches.capture());
+        List<Object[]> rows = new ArrayList<>();
+        batches.getAllValues().forEach(rows::addAll);
+        return rows;
+    }
+
+    private static Patient patient(int id) {
+        Patient p = new Patient();
+        p.setId(id);
+        p.setFirstName("Patient " + id);
+        return p;
+    }
+}
@@ -0,0 +1,161 @@
+package com.pmsmanus.cluster;
+
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.feed.ChangeFeed;
+import com.pmsmanus.feed.FeedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/** Polls a change_log table created by the real migration, on in-memory H2. */
+class ChangeLogTest {
+    private static final String NODE = "node-a";
+    private static final Duration GAP_TIMEOUT = Duration.ofMillis(200);
+
+    private final ChangeFeed feed = mock(ChangeFeed.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager transactionManager;
+    private ChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:change-log-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/common/V10__change_log.sql"))
+                .execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        changeLog = changeLog();
+        changeLog.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("shutdown");
+    }
+
+    @Test
+    void deliversEntriesInSequenceOrderAcrossBatches() {
+        row(1, "node-b", "APPOINTMENTS", "7", "appointment", "appointments,patient:3,appointments:2030-01-02");
+        row(2, NODE, "PATIENTS", "3", "patient", "patients,patient:3");
+        row(3, "node-b", "APPOINTMENTS", "", "resync", "appointments");
+
+        changeLog.poll();
+
+        assertEquals(List.of(1L, 2L, 3L), published());
+        ArgumentCaptor<RemoteChangeEvent> remote = ArgumentCaptor.forClass(RemoteChangeEvent.class);
+        verify(events, times(2)).publishEvent(remote.capture());
+        assertEquals(new RemoteChangeEvent(ChangeTracker.Kind.APPOINTMENTS, List.of(7), Set.of(3),
+                Set.of(LocalDate.of(2030, 1, 2))), remote.getAllValues().get(0));
+        assertEquals(new RemoteChangeEvent(ChangeTracker.Kind.APPOINTMENTS, List.of(), Set.of(), Set.of()),
+                remote.getAllValues().get(1));
+
+        changeLog.poll();
+        assertEquals(List.of(1L, 2L, 3L), published());
+    }
+
+    @Test
+    void waitsAtAGapUntilItFills() {
+        row(1, "node-b", "PATIENTS", "1", "patient", "patients");
+        row(3, "node-b", "PATIENTS", "3", "patient", "patients");
+
+        changeLog.poll();
+        changeLog.poll();
+        assertEquals(List.of(1L), published());
+
+        row(2, "node-b", "PATIENTS", "2", "patient", "patients");
+        changeLog.poll();
+        assertEquals(List.of(1L, 2L, 3L), published());
+    }
+
+    @Test
+    void skipsAGapThatOutlivesTheTimeout() throws InterruptedException {
+        row(2, "node-b", "PATIENTS", "2", "patient", "patients");
+
+        changeLog.poll();
+        verify(feed, never()).publish(any());
+
+        Thread.sleep(GAP_TIMEOUT.toMillis() + 100);
+        changeLog.poll();
+        assertEquals(List.of(2L), published());
+
+        // A late commit into the skipped sequence is not delivered.
+        row(1, "node-b", "PATIENTS", "1", "patient", "patients");
+        row(3, "node-b", "PATIENTS", "3", "patient", "patients");
+        changeLog.poll();
+        assertEquals(List.of(2L, 3L), published());
+    }
+
+    @Test
+    void ownBulkEntriesReachTheFeedButAreNotRemote() {
+        changeLog.appendBulk(ChangeTracker.Kind.APPOINTMENTS, List.of(4, 5), Set.of("appointments"));
+
+        changeLog.poll();
+
+        ArgumentCaptor<FeedEvent> event = ArgumentCaptor.forClass(FeedEvent.class);
+        verify(feed).publish(event.capture());
+        assertEquals("resync", event.getValue().name());
+        assertEquals(Set.of("appointments"), event.getValue().topics());
+        verify(events, never()).publishEvent(any());
+    }
+
+    @Test
+    void aStartingNodeResumesAfterTheNewestEntry() {
+        row(1, "node-b", "PATIENTS", "1", "patient", "patients");
+        row(2, "node-b", "PATIENTS", "2", "patient", "patients");
+
+        ChangeLog restarted = changeLog();
+        restarted.start();
+        restarted.poll();
+
+        verify(feed).start(2);
+        row(3, "node-b", "PATIENTS", "3", "patient", "patients");
+        restarted.poll();
+        ArgumentCaptor<FeedEvent> event = ArgumentCaptor.forClass(FeedEvent.class);
+        verify(feed).publish(event.capture());
+        assertEquals(3, event.getValue().id());
+    }
+
+    private ChangeLog changeLog() {
+        // A batch size of two makes every poll above read more than one batch.
+        return new ChangeLog(jdbc, transactionManager, feed, events, NODE, GAP_TIMEOUT, Duration.ofHours(1), 2);
+    }
+
+    private List<Long> published() {
+        ArgumentCaptor<FeedEvent> events = ArgumentCaptor.forClass(FeedEvent.class);
+        verify(feed, atLeast(0)).publish(events.capture());
+        return events.getAllValues().stream().map(FeedEvent::id).toList();
+    }
+
+    private void row(long seq, String node, String kind, String ids, String name, String topics) {
+        jdbc.update("insert into change_log (seq, node, kind, entity_ids, name, topics, payload, recorded_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?)", seq, node, kind, ids, name, topics, "{}",
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,64 @@
+package com.pmsmanus.controller;
+
+import com.pmsmanus.config.PaginationProperties;
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.search.PatientSearchIndex;
+import com.pmsmanus.service.CachedLookupService;
+import com.pmsmanus.service.NdjsonStreamer;
+import com.pmsmanus.service.PatientChartService;
+import com.pmsmanus.service.RecordUpdateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientControllerSearchTest {
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private final PatientSearchIndex searchIndex = mock(PatientSearchIndex.class);
+    private final PatientController controller = new PatientController(patientRepository, searchIndex,
+            new PaginationProperties(100, 1000), mock(NdjsonStreamer.class), mock(ApplicationEventPublisher.class),
+            mock(CachedLookupService.class), mock(PatientChartService.class), mock(RecordUpdateService.class), 50, 500);
+
+    @Test
+    void searchesTheDatabaseUntilTheIndexIsReady() {
+        when(searchIndex.isReady()).thenReturn(false);
+        when(patientRepository.search("ann")).thenReturn(IntStream.rangeClosed(1, 8).mapToObj(this::summary).toList());
+
+        List<PatientSummary> found = controller.search("ann", 5);
+
+        assertEquals(List.of(1, 2, 3, 4, 5), found.stream().map(PatientSummary::id).toList());
+        verify(searchIndex, never()).search(anyString(), anyInt());
+    }
+
+    @Test
+    void returnsIndexHitsInRankOrder() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("ann", 50)).thenReturn(List.of(3, 1, 2));
+        when(patientRepository.findByIdIn(List.of(3, 1, 2), PatientSummary.class))
+                .thenReturn(List.of(summary(1), summary(2), summary(3)));
+
+        List<PatientSummary> found = controller.search("ann", null);
+
+        assertEquals(List.of(3, 1, 2), found.stream().map(PatientSummary::id).toList());
+        verify(patientRepository, never()).search(eq("ann"));
+    }
+
+    private PatientSummary summary(int id) {
+        Patient p = new Patient();
+        p.setId(id);
+        p.setFirstName("Ann" + id);
+        return PatientSummary.of(p);
+    }
+}
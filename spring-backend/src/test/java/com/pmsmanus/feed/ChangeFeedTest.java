@@ -0,0 +1,72 @@
+package com.pmsmanus.feed;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Prescription;
+import com.pmsmanus.event.EntityChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ChangeFeed feed = new ChangeFeed(objectMapper, new SimpleMeterRegistry(), 16, 16, 10,
+            Duration.ofMinutes(1), 1, Duration.ofSeconds(1));
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void prescriptionAndDocumentEventsCarryIdsButNoRow() throws Exception {
+        Prescription p = new Prescription();
+        p.setId(5);
+        p.setPatientId(7);
+        p.setInstructions("x".repeat(100_000));
+        FeedEvent prescription = feed.describe(EntityChangedEvent.created(p));
+
+        JsonNode body = objectMapper.readTree(prescription.data());
+        assertEquals(5, body.get("id").asInt());
+        assertEquals(7, body.get("patientId").asInt());
+        assertTrue(body.get("data").isNull());
+        assertTrue(prescription.data().length() < 200);
+        assertEquals(Set.of("prescriptions", "patient:7"), prescription.topics());
+
+        Document d = new Document();
+        d.setId(6);
+        d.setPatientId(7);
+        d.setDescription("y".repeat(100_000));
+        FeedEvent document = feed.describe(EntityChangedEvent.created(d));
+        assertTrue(objectMapper.readTree(document.data()).get("data").isNull());
+        assertTrue(document.data().length() < 200);
+    }
+
+    @Test
+    void appointmentEventsCarryTheSummaryWithoutNotes() throws Exception {
+        Appointment a = new Appointment();
+        a.setId(3);
+        a.setPatientId(7);
+        a.setAppointmentDate(LocalDate.of(2030, 1, 2));
+        a.setAppointmentTime(LocalTime.of(9, 30));
+        a.setNotes("private notes");
+
+        JsonNode data = objectMapper.readTree(feed.describe(EntityChangedEvent.created(a)).data()).get("data");
+
+        assertEquals("2030-01-02", data.get("appointmentDate").asText());
+        assertFalse(data.has("notes"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.pmsmanus.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.Document;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.entity.Prescription;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks each {@link EntityJson} writer against the ObjectMapper the app
+ * configures, on rows with every property set, rows with none set and
+ * strings that need escaping. Properties are filled reflectively, so one
+ * added to a class but not to its writer fails here.
+ */
+class EntityJsonTest {
+    private static final String[] STRINGS = {
+            "plain", "quote \" and \\ slash / tab\t", "line\nbreak \u0001 \u00e9 \u4e2d \ud83d\ude00"};
+
+    // What Spring Boot builds for the app: Jackson2ObjectMapperBuilder defaults plus application.yml.
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @ParameterizedTest
+    @ValueSource(classes = {Patient.class, PatientSummary.class, Appointment.class, AppointmentSummary.class,
+            Prescription.class, Document.class})
+    void writesTheSameBytesAsTheObjectMapper(Class<?> type) throws Exception {
+        List<Object> rows = new ArrayList<>();
+        rows.add(instance(type, -1));
+        for (int variant = 0; variant < STRINGS.length; variant++) rows.add(instance(type, variant));
+
+        for (Object row : rows) {
+            // Bytes, not strings: responses go through Jackson's UTF-8 generator, which escapes surrogates.
+            String expected = utf8(objectMapper.writeValueAsBytes(row));
+            assertEquals(expected, utf8(entityJson(type, row)), type.getSimpleName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> byte[] entityJson(Class<T> type, Object row) {
+        EntityJson.Writer<T> writer = EntityJson.writerFor(type);
+        assertNotNull(writer, type.getSimpleName());
+        return JsonOutput.toBytes(out -> writer.write((T) row, out));
+    }
+
+    private static String utf8(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** An instance with every property set from {@code variant}, or every property null when it is negative. */
+    private static Object instance(Class<?> type, int variant) throws Exception {
+        if (type.isRecord()) {
+            RecordComponent[] components = type.getRecordComponents();
+            Object[] args = new Object[components.length];
+            for (int i = 0; i < components.length; i++) args[i] = value(components[i].getType(), variant, i);
+            Class<?>[] types = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+            Constructor<?> canonical = type.getDeclaredConstructor(types);
+            return canonical.newInstance(args);
+        }
+        Object instance = type.getDeclaredConstructor().newInstance();
+        Field[] fields = type.getDeclaredFields();
+        for (int i = 0; i < fields.length; i++) {
+            if (Modifier.isStatic(fields[i].getModifiers())) continue;
+            fields[i].setAccessible(true);
+            fields[i].set(instance, value(fields[i].getType(), variant, i));
+        }
+        return instance;
+    }
+
+    private static Object value(Class<?> type, int variant, int index) {
+        if (variant < 0) return null;
+        int n = variant * 100 + index;
+        if (type == String.class) return STRINGS[variant] + " " + index;
+        if (type == Integer.class) return variant == 1 ? -n : n;
+        if (type == Long.class) return variant == 2 ? Long.MAX_VALUE - n : (long) n;
+        if (type == LocalDate.class) return LocalDate.of(2024, 1 + variant, 1 + index);
+        // Whole minutes, whole seconds and nanoseconds print differently in ISO form.
+        int nanos = variant == 2 ? 123_456_789 + index : 0;
+        int seconds = variant == 0 ? 0 : index % 60;
+        if (type == LocalTime.class) return LocalTime.of(8 + variant, index % 60, seconds, nanos);
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.of(2024, 1 + variant, 1 + index, 9, index % 60, seconds, nanos);
+        }
+        throw new IllegalArgumentException("No test value for " + type);
+    }
+}
@@ -0,0 +1,129 @@
+package com.pmsmanus.oauth;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies tokens signed with generated keys against a JWKS served from a
+ * local stub, through the application's own key set and HTTP client.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:google-id-token;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pms.storage.root=${java.io.tmpdir}/pms-google-id-token-test",
+        "GOOGLE_CLIENT_ID=" + GoogleIdTokenVerifierTest.CLIENT_ID,
+        "pms.oauth.google.jwks-min-refresh-interval=" + GoogleIdTokenVerifierTest.MIN_REFRESH_MILLIS + "ms"
+})
+class GoogleIdTokenVerifierTest {
+    static final String CLIENT_ID = "test-client.apps.googleusercontent.com";
+    static final long MIN_REFRESH_MILLIS = 2000;
+    private static final JwksStub JWKS = new JwksStub();
+
+    static {
+        JWKS.publish("current");
+    }
+
+    @Autowired
+    private GoogleIdTokenVerifier verifier;
+
+    @DynamicPropertySource
+    static void jwks(DynamicPropertyRegistry registry) {
+        registry.add("pms.oauth.google.jwks-uri", JWKS::uri);
+    }
+
+    @AfterAll
+    static void stop() {
+        JWKS.close();
+    }
+
+    @Test
+    void acceptsATokenSignedWithAPublishedKey() {
+        Map<String, Object> claims = verifier.verify(
+                JWKS.sign("current", "RS256", claims(CLIENT_ID, "https://accounts.google.com", 600)));
+
+        assertEquals("user-1", claims.get("sub"));
+        assertEquals("user@example.com", claims.get("email"));
+        verifier.verify(JWKS.sign("current", "RS256", claims(CLIENT_ID, "accounts.google.com", 600)));
+    }
+
+    @Test
+    void rejectsABadSignature() {
+        String token = JWKS.signWithOtherKey("current", claims(CLIENT_ID, "https://accounts.google.com", 600));
+        assertRejected(token, "Invalid ID token signature");
+
+        // A valid signature over different claims.
+        String valid = JWKS.sign("current", "RS256", claims(CLIENT_ID, "https://accounts.google.com", 600));
+        String other = JWKS.sign("current", "RS256", claims("someone-else", "https://accounts.google.com", 600));
+        String[] a = valid.split("\\.");
+        String[] b = other.split("\\.");
+        assertRejected(a[0] + "." + b[1] + "." + a[2], "Invalid ID token signature");
+    }
+
+    @Test
+    void rejectsAnotherAudienceOrIssuer() {
+        assertRejected(JWKS.sign("current", "RS256", claims("someone-else", "https://accounts.google.com", 600)),
+                "ID token was issued for another client");
+        assertRejected(JWKS.sign("current", "RS256", claims(CLIENT_ID, "https://evil.example.com", 600)),
+                "Unexpected ID token issuer https://evil.example.com");
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        // Beyond the default 60 s clock skew.
+        assertRejected(JWKS.sign("current", "RS256", claims(CLIENT_ID, "https://accounts.google.com", -120)),
+                "ID token has expired");
+        verifier.verify(JWKS.sign("current", "RS256", claims(CLIENT_ID, "https://accounts.google.com", -30)));
+    }
+
+    @Test
+    void rejectsAlgorithmsOtherThanRs256BeforeLookingUpTheKey() {
+        int fetches = JWKS.fetches();
+        for (String alg : new String[]{"HS256", "none", "RS512"}) {
+            assertRejected(JWKS.sign("unseen-" + alg, alg, claims(CLIENT_ID, "https://accounts.google.com", 600)),
+                    "Unsupported ID token algorithm " + alg);
+        }
+        assertEquals(fetches, JWKS.fetches());
+    }
+
+    @Test
+    void anUnknownKeyIdTriggersExactlyOneRefetch() throws InterruptedException {
+        verifier.verify(JWKS.sign("current", "RS256", claims(CLIENT_ID, "https://accounts.google.com", 600)));
+        Thread.sleep(MIN_REFRESH_MILLIS + 200);
+        int fetches = JWKS.fetches();
+
+        JWKS.publish("current", "rotated");
+        verifier.verify(JWKS.sign("rotated", "RS256", claims(CLIENT_ID, "https://accounts.google.com", 600)));
+        assertEquals(fetches + 1, JWKS.fetches());
+        verifier.verify(JWKS.sign("rotated", "RS256", claims(CLIENT_ID, "https://accounts.google.com", 600)));
+
+        // Another unknown key within the minimum interval is rejected without a fetch.
+        assertRejected(JWKS.sign("never-published", "RS256", claims(CLIENT_ID, "https://accounts.google.com", 600)),
+                "Unknown signing key never-published");
+        assertEquals(fetches + 1, JWKS.fetches());
+    }
+
+    private void assertRejected(String token, String message) {
+        IdTokenException rejected = assertThrows(IdTokenException.class, () -> verifier.verify(token));
+        assertTrue(rejected.getMessage().startsWith(message), rejected.getMessage());
+    }
+
+    private static String claims(String audience, String issuer, long expiresInSeconds) {
+        long now = System.currentTimeMillis() / 1000;
+        return "{\"iss\":\"" + issuer + "\",\"aud\":\"" + audience + "\",\"sub\":\"user-1\","
+                + "\"email\":\"user@example.com\",\"email_verified\":true,"
+                + "\"iat\":" + (now - 60) + ",\"exp\":" + (now + expiresInSeconds) + "}";
+    }
+}
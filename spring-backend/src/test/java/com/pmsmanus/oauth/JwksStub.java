@@ -0,0 +1,127 @@
+package com.pmsmanus.oauth;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Publishes generated RSA keys as a JWKS on a local port and signs ID tokens with them. */
+final class JwksStub implements AutoCloseable {
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final HttpServer server;
+    private final Map<String, KeyPair> keys = new ConcurrentHashMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile List<String> published = List.of();
+
+    JwksStub() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 16);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.createContext("/certs", exchange -> {
+            fetches.incrementAndGet();
+            byte[] body = jwks().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    String uri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/certs";
+    }
+
+    /** Replaces the published key ids; keys are generated on first use. */
+    void publish(String... kids) {
+        for (String kid : kids) key(kid);
+        published = List.of(kids);
+    }
+
+    int fetches() {
+        return fetches.get();
+    }
+
+    /** A token whose header names {@code kid} and {@code alg}, signed with {@code kid}'s private key. */
+    String sign(String kid, String alg, String claims) {
+        return sign(kid, alg, claims, key(kid).getPrivate());
+    }
+
+    /** A token whose header names {@code kid} but which is signed with an unrelated key. */
+    String signWithOtherKey(String kid, String claims) {
+        return sign(kid, "RS256", claims, generate().getPrivate());
+    }
+
+    private String sign(String kid, String alg, String claims, PrivateKey key) {
+        String header = "{\"alg\":\"" + alg + "\",\"kid\":\"" + kid + "\",\"typ\":\"JWT\"}";
+        String signingInput = encode(header) + "." + encode(claims);
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(key);
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + BASE64URL.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private KeyPair key(String kid) {
+        return keys.computeIfAbsent(kid, k -> generate());
+    }
+
+    private String jwks() {
+        List<String> jwks = new ArrayList<>();
+        for (String kid : published) {
+            RSAPublicKey key = (RSAPublicKey) keys.get(kid).getPublic();
+            jwks.add("{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"" + kid + "\",\"n\":\""
+                    + unsigned(key.getModulus()) + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}");
+        }
+        return "{\"keys\":[" + String.join(",", jwks) + "]}";
+    }
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String json) {
+        return BASE64URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        return BASE64URL.encodeToString(bytes);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
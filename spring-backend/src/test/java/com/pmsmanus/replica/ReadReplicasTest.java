@@ -0,0 +1,141 @@
+package com.pmsmanus.replica;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Routes through the application's datasource to two in-memory H2 databases,
+ * each holding a {@code whoami} row that names it. The replica's heartbeat row
+ * is written by the test, so its lag is whatever the test sets.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-primary;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pms.storage.root=${java.io.tmpdir}/pms-read-replicas-test",
+        "pms.datasource.replica.urls=" + ReadReplicasTest.REPLICA_URL,
+        "pms.datasource.replica.max-lag=2s",
+        // Checks are run by the tests; the scheduled one only runs at startup.
+        "pms.datasource.replica.check-interval=1h"
+})
+class ReadReplicasTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-copy;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    private final JdbcTemplate replicaAdmin = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private ReadReplicas replicas;
+    @Autowired
+    private ReadYourWritesFilter filter;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(replicas.primary()).execute("create table if not exists whoami (name varchar(20))");
+        new JdbcTemplate(replicas.primary()).update("merge into whoami key (name) values ('primary')");
+        replicaAdmin.execute("create table if not exists whoami (name varchar(20))");
+        replicaAdmin.update("merge into whoami key (name) values ('replica')");
+        replicaAdmin.execute("create table if not exists replica_heartbeat (id int primary key, beat_at bigint)");
+        replicaBeat(System.currentTimeMillis());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsReachTheReplica() {
+        assertEquals("replica", read(true));
+    }
+
+    @Test
+    void writesUseThePrimary() {
+        assertEquals("primary", read(false));
+    }
+
+    @Test
+    void requestsPinnedByTheFilterUseThePrimary() throws Exception {
+        assertEquals("replica", throughFilter(new MockHttpServletRequest("GET", "/api/patients")));
+
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/patients");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertEquals("primary", throughFilter(write, response));
+        Cookie pin = response.getCookie("pms_primary");
+        assertTrue(pin != null && Long.parseLong(pin.getValue()) > System.currentTimeMillis());
+
+        MockHttpServletRequest pinned = new MockHttpServletRequest("GET", "/api/patients");
+        pinned.setCookies(pin);
+        assertEquals("primary", throughFilter(pinned));
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/patients");
+        expired.setCookies(new Cookie("pms_primary", Long.toString(System.currentTimeMillis() - 1)));
+        assertEquals("replica", throughFilter(expired));
+    }
+
+    @Test
+    void aReplicaBehindTheLagLimitFailsOverToThePrimary() {
+        replicaBeat(System.currentTimeMillis() - 10_000);
+        assertEquals("primary", read(true));
+
+        replicaBeat(System.currentTimeMillis());
+        assertEquals("replica", read(true));
+    }
+
+    @Test
+    void aReplicaThatFailsItsCheckFailsOverToThePrimary() {
+        // Like a replica restored empty: the heartbeat query fails, so it is marked unreachable.
+        replicaAdmin.execute("drop all objects");
+        replicas.check();
+        assertEquals("primary", read(true));
+
+        setUp();
+        assertEquals("replica", read(true));
+    }
+
+    private void replicaBeat(long at) {
+        replicaAdmin.update("merge into replica_heartbeat key (id) values (1, ?)", at);
+        replicas.check();
+    }
+
+    /** The database a transaction's first statement ran on. */
+    private String read(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> new JdbcTemplate(dataSource).queryForObject("select name from whoami", String.class));
+    }
+
+    private String throughFilter(MockHttpServletRequest request) throws Exception {
+        return throughFilter(request, new MockHttpServletResponse());
+    }
+
+    private String throughFilter(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        AtomicReference<String> database = new AtomicReference<>();
+        filter.doFilter(request, response, (req, res) -> database.set(read(true)));
+        return database.get();
+    }
+}
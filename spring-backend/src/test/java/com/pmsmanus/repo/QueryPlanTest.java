@@ -0,0 +1,419 @@
+package com.pmsmanus.repo;
+
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.archive.Archiver;
+import com.pmsmanus.audit.AuditLog;
+import com.pmsmanus.cluster.ChangeLog;
+import com.pmsmanus.dto.AppointmentSummary;
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.StatRollup;
+import com.pmsmanus.schedule.ScheduleIndex;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs every indexed repository query against the migrated schema, records the
+ * SQL it actually sends, and runs EXPLAIN on that statement with the same
+ * parameters. Fails when a query that should use an index falls back to a full
+ * scan or uses a different one, so a schema or repository change that loses an
+ * index fails the build.
+ *
+ * <p>Runs on in-memory H2. To check against MySQL, point it at an empty schema
+ * with {@code -Dpms.test.jdbc-url=jdbc:mysql://...}, {@code -Dpms.test.jdbc-user},
+ * {@code -Dpms.test.jdbc-password} and
+ * {@code -Dpms.test.dialect=org.hibernate.dialect.MySQLDialect}. Only MySQL runs
+ * also fail on a filesort where the index should give the order, as H2 reports
+ * an index-ordered scan only when the ORDER BY columns are a prefix of the index.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${pms.test.jdbc-url:jdbc:h2:mem:plans;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE}",
+        "spring.datasource.username=${pms.test.jdbc-user:sa}",
+        "spring.datasource.password=${pms.test.jdbc-password:}",
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.properties.hibernate.dialect=${pms.test.dialect:org.hibernate.dialect.H2Dialect}",
+        "pms.storage.root=${java.io.tmpdir}/pms-query-plan-test"
+})
+class QueryPlanTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int ROWS = Integer.getInteger("pms.test.plan-rows", 10000);
+
+    @TestConfiguration
+    static class Recording {
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ds && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(ds) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private AppointmentRepository appointments;
+    @Autowired
+    private PatientRepository patients;
+    @Autowired
+    private PrescriptionRepository prescriptions;
+    @Autowired
+    private DocumentRepository documents;
+    @Autowired
+    private StatRollupRepository statRollups;
+    @Autowired
+    private ImportJobRepository importJobs;
+    @Autowired
+    private AuditLog auditLog;
+    @Autowired
+    private ArchiveStore archiveStore;
+    @Autowired
+    private Archiver archiver;
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+    @Autowired
+    private ChangeLog changeLog;
+
+    /**
+     * {@code statement} picks the statement to explain: the last one the call
+     * ran whose lower-cased SQL it finds. {@code index} is the index its plan
+     * must use. {@code sorted} means the ORDER BY must come from the index,
+     * which is only checked on MySQL.
+     */
+    private record Check(String query, Pattern statement, String index, boolean sorted, Runnable call) {
+    }
+
+    private static Pattern reads(String table) {
+        return Pattern.compile("^select .*\\bfrom " + table + "\\b");
+    }
+
+    private List<Check> checks() {
+        LocalDate from = TODAY.minusDays(30);
+        return List.of(
+                new Check("AppointmentRepository.findByAppointmentDateOrderByAppointmentTime", reads("appointments"),
+                        "idx_appointments_date_time", true,
+                        () -> appointments.findByAppointmentDateOrderByAppointmentTime(TODAY, AppointmentSummary.class)),
+                new Check("AppointmentRepository.findByPatientIdOrderByAppointmentDateDesc", reads("appointments"),
+                        "idx_appointments_patient_date", true,
+                        () -> appointments.findByPatientIdOrderByAppointmentDateDesc(42, AppointmentSummary.class)),
+                new Check("AppointmentRepository.findByPatientIdOrderByAppointmentDateDescAppointmentTimeDesc",
+                        reads("appointments"), "idx_appointments_patient_date", true,
+                        () -> appointments.findByPatientIdOrderByAppointmentDateDescAppointmentTimeDesc(42,
+                                Limit.of(20), AppointmentSummary.class)),
+                new Check("AppointmentRepository.findExistingAppointmentIds", reads("appointments"),
+                        "uk_appointments_appointment_id", false,
+                        () -> appointments.findExistingAppointmentIds(List.of("A-1", "A-2", "A-3"))),
+                new Check("AppointmentRepository.findByDoctorIdAndAppointmentDate", reads("appointments"),
+                        "idx_appointments_doctor_date", false,
+                        () -> appointments.findByDoctorIdAndAppointmentDate(3, TODAY, AppointmentSummary.class)),
+                new Check("AppointmentRepository.countByDayDoctorAndStatus", reads("appointments"),
+                        "idx_appointments_date_time", false,
+                        () -> appointments.countByDayDoctorAndStatus(TODAY.minusDays(7), TODAY)),
+                new Check("AppointmentRepository.findFirstAppointmentDate", reads("appointments"),
+                        "idx_appointments_date_time", false, appointments::findFirstAppointmentDate),
+                new Check("AppointmentRepository.findLastAppointmentDate", reads("appointments"),
+                        "idx_appointments_date_time", false, appointments::findLastAppointmentDate),
+                new Check("AppointmentRepository.findByIdLessThanOrderByIdDesc", reads("appointments"), "primary", true,
+                        () -> appointments.findByIdLessThanOrderByIdDesc(5000, Limit.of(101), AppointmentSummary.class)),
+                new Check("PrescriptionRepository.findByPatientIdOrderByCreatedAtDesc", reads("prescriptions"),
+                        "idx_prescriptions_patient_created", true,
+                        () -> prescriptions.findByPatientIdOrderByCreatedAtDesc(42, Limit.of(20))),
+                new Check("DocumentRepository.findByPatientIdOrderByCreatedAtDesc", reads("documents"),
+                        "idx_documents_patient_created", true,
+                        () -> documents.findByPatientIdOrderByCreatedAtDesc(42, Limit.of(20))),
+                new Check("DocumentRepository.countByFileKey", reads("documents"), "idx_documents_file_key", false,
+                        () -> documents.countByFileKey("k-42")),
+                new Check("PatientRepository.findByPatientId", reads("patients"), "uk_patients_patient_id", false,
+                        () -> patients.findByPatientId("P-42")),
+                new Check("PatientRepository.findExistingPatientIds", reads("patients"),
+                        "uk_patients_patient_id", false,
+                        () -> patients.findExistingPatientIds(List.of("P-1", "P-2", "P-3"))),
+                new Check("PatientRepository.findByIdIn", reads("patients"), "primary", false,
+                        () -> patients.findByIdIn(List.of(1, 2, 3), PatientSummary.class)),
+                new Check("PatientRepository.findByIdLessThanOrderByIdDesc", reads("patients"), "primary", true,
+                        () -> patients.findByIdLessThanOrderByIdDesc(500, Limit.of(101), PatientSummary.class)),
+                new Check("PatientRepository.countCreatedByDay", reads("patients"), "idx_patients_created", false,
+                        () -> patients.countCreatedByDay(from.atStartOfDay(), TODAY.atStartOfDay())),
+                new Check("PatientRepository.findFirstCreatedAt", reads("patients"), "idx_patients_created", false,
+                        patients::findFirstCreatedAt),
+                new Check("StatRollupRepository.findByStatDateBetween", reads("stat_rollups"),
+                        "uk_stat_rollups_key", false,
+                        () -> statRollups.findByStatDateBetween(from, TODAY)),
+                new Check("StatRollupRepository.sumByMetric", reads("stat_rollups"),
+                        "idx_stat_rollups_metric_date", false,
+                        () -> statRollups.sumByMetric(StatRollup.NEW_PATIENTS)),
+                new Check("StatRollupRepository.increment", Pattern.compile("^update stat_rollups\\b"),
+                        "uk_stat_rollups_key", false,
+                        () -> statRollups.increment(TODAY, StatRollup.APPOINTMENTS, 1, "scheduled", 1)),
+                new Check("StatRollupRepository.deleteWindow", Pattern.compile("^delete from stat_rollups\\b"),
+                        "idx_stat_rollups_metric_date", false,
+                        () -> statRollups.deleteWindow(StatRollup.APPOINTMENTS, from, TODAY)),
+                new Check("ImportJobRepository.findByImportKey", reads("import_jobs"),
+                        "uk_import_jobs_import_key", false,
+                        () -> importJobs.findByImportKey("import-42")),
+                new Check("AuditLog.forEntity", reads("audit_log"), "idx_audit_log_entity", true,
+                        () -> auditLog.forEntity("patient", 42, null, 100)),
+                new Check("AuditLog.byActor", reads("audit_log"), "idx_audit_log_actor", true,
+                        () -> auditLog.byActor("user7@example.com", null, 100)),
+                new Check("ArchiveStore.appointmentsForPatient", reads("appointments_archive"),
+                        "idx_appointments_archive_patient_date", true,
+                        () -> archiveStore.appointmentsForPatient(42, List.of(), 20)),
+                new Check("ArchiveStore.appointmentsOn", reads("appointments_archive"),
+                        "idx_appointments_archive_date_time", true,
+                        () -> archiveStore.appointmentsOn(TODAY.minusYears(2), List.of())),
+                new Check("ArchiveStore.appointmentCounts", reads("appointments_archive"),
+                        "idx_appointments_archive_date_time", false,
+                        () -> archiveStore.appointmentCounts(TODAY.minusYears(2).minusDays(35), TODAY.minusYears(2))),
+                new Check("ArchiveStore.existingAppointmentIds", reads("appointments_archive"),
+                        "uk_appointments_archive_appointment_id", false,
+                        () -> archiveStore.existingAppointmentIds(List.of("AA-1", "AA-2"))),
+                new Check("ArchiveStore.prescriptionsForPatient", reads("prescriptions_archive"),
+                        "idx_prescriptions_archive_patient_created", true,
+                        () -> archiveStore.prescriptionsForPatient(42, List.of(), 20)),
+                new Check("Archiver.archive", Pattern.compile("^select id from appointments\\b"),
+                        "idx_appointments_date_time", false, archiver::archive),
+                new Check("ScheduleIndex.book", reads("doctor_day_locks"), "primary", false,
+                        () -> scheduleIndex.book(booking(), this::booking)),
+                new Check("ChangeLog.poll", reads("change_log"), "primary", true, changeLog::poll),
+                new Check("ChangeLog.prune", Pattern.compile("^delete from change_log\\b"),
+                        "idx_change_log_recorded", false, changeLog::prune));
+    }
+
+    private Appointment booking() {
+        Appointment a = new Appointment();
+        a.setDoctorId(3);
+        a.setAppointmentDate(TODAY.plusYears(1));
+        a.setAppointmentTime(LocalTime.of(7, 0));
+        a.setDuration(15);
+        return a;
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesUseTheirIndexes() {
+        seed();
+        archiveStore.refreshBounds();
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        return checks().stream().map(check -> DynamicTest.dynamicTest(check.query(), () -> {
+            List<RecordingDataSource.Executed> executed = RecordingDataSource.record(() ->
+                    rollback.executeWithoutResult(status -> {
+                        check.call().run();
+                        status.setRollbackOnly();
+                    }));
+            RecordingDataSource.Executed statement = executed.stream()
+                    .filter(e -> check.statement().matcher(e.sql().strip().toLowerCase(Locale.ROOT)).find())
+                    .reduce((first, second) -> second)
+                    .orElse(null);
+            assertFalse(statement == null, () -> check.query() + " ran no statement matching " + check.statement()
+                    + ": " + executed);
+            String plan = explain(statement);
+            String problem = problem(check, plan);
+            assertNull(problem, () -> check.query() + ": " + problem + "\n" + statement.sql() + "\n" + plan);
+        }));
+    }
+
+    private boolean mysql() {
+        return Boolean.TRUE.equals(jdbc.execute((java.sql.Connection c) ->
+                c.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")));
+    }
+
+    private String problem(Check check, String plan) {
+        String p = plan.toLowerCase(Locale.ROOT);
+        String index = check.index().toLowerCase(Locale.ROOT);
+        if (mysql()) {
+            if (p.contains("type=all")) return "full table scan";
+            if (!p.contains("key=" + index)) return "expected index " + check.index();
+            if (check.sorted() && p.contains("filesort")) return "sorted with a filesort instead of the index";
+            return null;
+        }
+        if (p.contains("tablescan")) return "full table scan";
+        boolean usesIndex = index.equals("primary") ? p.contains("primary_key") : p.contains("." + index);
+        return usesIndex ? null : "expected index " + check.index();
+    }
+
+    private String explain(RecordingDataSource.Executed statement) {
+        return jdbc.execute("explain " + statement.sql(), (PreparedStatement ps) -> {
+            for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+                ps.setObject(parameter.getKey(), parameter.getValue());
+            }
+            StringBuilder plan = new StringBuilder();
+            try (var rs = ps.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    if (!plan.isEmpty()) plan.append('\n');
+                    if (columns == 1) {
+                        plan.append(rs.getString(1));
+                        continue;
+                    }
+                    for (int i = 1; i <= columns; i++) {
+                        if (i > 1) plan.append(' ');
+                        plan.append(rs.getMetaData().getColumnLabel(i)).append('=').append(rs.getString(i));
+                    }
+                }
+            }
+            return plan.toString();
+        });
+    }
+
+    /** Spreads rows over many patients and days so selective predicates have something to select. */
+    private void seed() {
+        Long existing = jdbc.queryForObject("select count(*) from patients", Long.class);
+        if (existing != null && existing > 0) return;
+        int patientCount = Math.max(ROWS / 10, 100);
+        LocalDateTime created = TODAY.atStartOfDay().minusDays(365);
+        batch("insert into patients (patient_id, first_name, last_name, phone, created_at, updated_at) "
+                + "values (?, ?, ?, ?, ?, ?)", patientCount, (ps, i) -> {
+            ps.setString(1, "P-" + i);
+            ps.setString(2, "First" + i);
+            ps.setString(3, "Last" + i);
+            ps.setString(4, "555" + i);
+            ps.setTimestamp(5, Timestamp.valueOf(created.plusMinutes(i * 7L)));
+            ps.setTimestamp(6, Timestamp.valueOf(created.plusMinutes(i * 7L)));
+        });
+        batch("insert into appointments (appointment_id, patient_id, doctor_id, appointment_date, "
+                + "appointment_time, duration, status, created_at) values (?, ?, ?, ?, ?, ?, ?, ?)", ROWS, (ps, i) -> {
+            ps.setString(1, "A-" + i);
+            ps.setInt(2, 1 + i % patientCount);
+            ps.setInt(3, 1 + i % 12);
+            ps.setDate(4, Date.valueOf(TODAY.minusDays(i % 400)));
+            ps.setTime(5, Time.valueOf(LocalTime.of(8 + i % 10, (i % 4) * 15)));
+            ps.setInt(6, 30);
+            ps.setString(7, i % 5 == 0 ? "completed" : "scheduled");
+            ps.setTimestamp(8, Timestamp.valueOf(created.plusMinutes(i)));
+        });
+        batch("insert into prescriptions (prescription_id, visit_id, patient_id, medication_name, dosage, "
+                + "frequency, start_date, created_at) values (?, ?, ?, ?, ?, ?, ?, ?)", ROWS, (ps, i) -> {
+            ps.setString(1, "RX-" + i);
+            ps.setInt(2, 1 + i);
+            ps.setInt(3, 1 + i % patientCount);
+            ps.setString(4, "Medication " + i % 50);
+            ps.setString(5, "10mg");
+            ps.setString(6, "daily");
+            ps.setDate(7, Date.valueOf(TODAY.minusDays(i % 400)));
+            ps.setTimestamp(8, Timestamp.valueOf(created.plusMinutes(i)));
+        });
+        batch("insert into documents (patient_id, document_type, document_name, file_url, file_key, created_at) "
+                + "values (?, ?, ?, ?, ?, ?)", ROWS, (ps, i) -> {
+            ps.setInt(1, 1 + i % patientCount);
+            ps.setString(2, "lab");
+            ps.setString(3, "doc-" + i + ".pdf");
+            ps.setString(4, "/api/documents/" + (i + 1) + "/content");
+            ps.setString(5, "k-" + i);
+            ps.setTimestamp(6, Timestamp.valueOf(created.plusMinutes(i)));
+        });
+        batch("insert into stat_rollups (stat_date, metric, doctor_id, status, total) values (?, ?, ?, ?, ?)",
+                ROWS, (ps, i) -> {
+            int slot = i % 24;
+            ps.setDate(1, Date.valueOf(TODAY.minusDays(i / 24)));
+            ps.setString(2, slot == 0 ? StatRollup.NEW_PATIENTS : StatRollup.APPOINTMENTS);
+            ps.setInt(3, slot == 0 ? StatRollup.NO_DOCTOR : 1 + slot / 2);
+            ps.setString(4, slot == 0 ? StatRollup.NO_STATUS : slot % 2 == 0 ? "scheduled" : "completed");
+            ps.setLong(5, 1 + i % 9);
+        });
+        batch("insert into import_jobs (import_key, kind, status, records_committed, imported, rejected) "
+                + "values (?, ?, ?, 0, 0, 0)", Math.max(ROWS / 100, 100), (ps, i) -> {
+            ps.setString(1, "import-" + i);
+            ps.setString(2, "patients");
+            ps.setString(3, "completed");
+        });
+        batch("insert into audit_log (occurred_at, actor, action, entity_type, entity_id, changes) "
+                + "values (?, ?, ?, ?, ?, ?)", ROWS, (ps, i) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(created.plusMinutes(i)));
+            ps.setString(2, "user" + i % 40 + "@example.com");
+            ps.setString(3, i % 3 == 0 ? "CREATED" : "UPDATED");
+            ps.setString(4, i % 2 == 0 ? "patient" : "appointment");
+            ps.setInt(5, 1 + i % patientCount);
+            ps.setString(6, "{}");
+        });
+        LocalDateTime archived = TODAY.atStartOfDay().minusYears(2);
+        batch("insert into appointments_archive (id, appointment_id, patient_id, doctor_id, appointment_date, "
+                + "appointment_time, duration, status, created_at, archived_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", ROWS, (ps, i) -> {
+            ps.setInt(1, 10_000_000 + i);
+            ps.setString(2, "AA-" + i);
+            ps.setInt(3, 1 + i % patientCount);
+            ps.setInt(4, 1 + i % 12);
+            ps.setDate(5, Date.valueOf(archived.toLocalDate().minusDays(i % 400)));
+            ps.setTime(6, Time.valueOf(LocalTime.of(8 + i % 10, (i % 4) * 15)));
+            ps.setInt(7, 30);
+            ps.setString(8, "completed");
+            ps.setTimestamp(9, Timestamp.valueOf(archived.minusMinutes(i)));
+            ps.setTimestamp(10, Timestamp.valueOf(archived));
+        });
+        batch("insert into prescriptions_archive (id, prescription_id, visit_id, patient_id, medication_name, dosage, "
+                + "frequency, start_date, status, created_at, archived_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", ROWS, (ps, i) -> {
+            ps.setInt(1, 10_000_000 + i);
+            ps.setString(2, "ARX-" + i);
+            ps.setInt(3, 1 + i);
+            ps.setInt(4, 1 + i % patientCount);
+            ps.setString(5, "Medication " + i % 50);
+            ps.setString(6, "10mg");
+            ps.setString(7, "daily");
+            ps.setDate(8, Date.valueOf(archived.toLocalDate().minusDays(i % 400)));
+            ps.setString(9, "completed");
+            ps.setTimestamp(10, Timestamp.valueOf(archived.minusMinutes(i)));
+            ps.setTimestamp(11, Timestamp.valueOf(archived));
+        });
+        if (mysql()) {
+            jdbc.execute("analyze table patients, appointments, prescriptions, documents, stat_rollups, import_jobs, "
+                    + "audit_log, appointments_archive, prescriptions_archive");
+        } else {
+            jdbc.execute("analyze");
+        }
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private void batch(String sql, int count, Binder binder) {
+        for (int start = 0; start < count; start += 1000) {
+            int offset = start;
+            int size = Math.min(1000, count - start);
+            jdbc.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    binder.bind(ps, offset + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.pmsmanus.repo;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the SQL and bound parameters of every statement executed on the
+ * calling thread while {@link #record} runs, so a test can look at exactly
+ * what a repository method sent to the database.
+ */
+class RecordingDataSource extends DelegatingDataSource {
+    private static final ThreadLocal<List<Executed>> RECORDING = new ThreadLocal<>();
+
+    /** A statement as executed; {@code parameters} maps 1-based positions to bound values. */
+    record Executed(String sql, Map<Integer, Object> parameters) {
+    }
+
+    RecordingDataSource(DataSource target) {
+        super(target);
+    }
+
+    /** Runs {@code call} and returns the statements it executed, in order. */
+    static List<Executed> record(Runnable call) {
+        List<Executed> executed = new ArrayList<>();
+        RECORDING.set(executed);
+        try {
+            call.run();
+        } finally {
+            RECORDING.remove();
+        }
+        return executed;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, target, (method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof PreparedStatement ps && method.getName().equals("prepareStatement")) {
+                return statement(ps, (String) args[0]);
+            }
+            if (result instanceof Statement st && method.getName().equals("createStatement")) {
+                return statement(st, null);
+            }
+            return result;
+        });
+    }
+
+    private static Statement statement(Statement target, String preparedSql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        Class<? extends Statement> type = target instanceof PreparedStatement
+                ? PreparedStatement.class : Statement.class;
+        return proxy(type, target, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                List<Executed> executed = RECORDING.get();
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                if (executed != null && sql != null) executed.add(new Executed(sql, new TreeMap<>(parameters)));
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        InvocationHandler h = (p, method, args) -> switch (method.getName()) {
+            case "unwrap" -> ((Class<?>) args[0]).isInstance(target) ? target : invoke(target, method, args);
+            case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(target) || (boolean) invoke(target, method, args);
+            default -> handler.handle(method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(), new Class<?>[]{type}, h));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
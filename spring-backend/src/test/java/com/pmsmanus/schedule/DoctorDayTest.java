@@ -0,0 +1,66 @@
+package com.pmsmanus.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoctorDayTest {
+    // 09:00-09:30, 10:00-11:00 and 13:00-13:15, in minutes since midnight.
+    private final DoctorDay day = DoctorDay.EMPTY.with(2, 600, 660).with(1, 540, 570).with(3, 780, 795);
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        assertFalse(day.overlaps(570, 600));
+        assertFalse(day.overlaps(480, 540));
+        assertFalse(day.overlaps(795, 900));
+        assertEquals(List.of(), day.overlapping(660, 780));
+    }
+
+    @Test
+    void findsEveryBookingAnIntervalOverlaps() {
+        assertTrue(day.overlaps(569, 571));
+        assertTrue(day.overlaps(615, 630));
+        assertEquals(List.of(1, 2), day.overlapping(560, 610));
+        assertEquals(List.of(2, 3), day.overlapping(650, 790));
+        assertEquals(List.of(1, 2, 3), day.overlapping(0, 24 * 60));
+    }
+
+    @Test
+    void aLongEarlierBookingStillCountsForLaterIntervals() {
+        // Legacy rows may overlap each other; the 08:00-12:00 row must not be
+        // hidden by the shorter ones that start after it.
+        DoctorDay legacy = day.with(4, 480, 720);
+        assertTrue(legacy.overlaps(690, 700));
+        assertEquals(List.of(4), legacy.overlapping(690, 700));
+        assertFalse(legacy.overlaps(720, 780));
+    }
+
+    @Test
+    void withReplacesAnExistingBookingAndWithoutRemovesIt() {
+        DoctorDay moved = day.with(1, 720, 750);
+        assertEquals(3, moved.size());
+        assertFalse(moved.overlaps(540, 570));
+        assertTrue(moved.holds(1, 720, 750));
+        assertFalse(moved.holds(1, 540, 570));
+
+        DoctorDay removed = moved.without(2);
+        assertEquals(2, removed.size());
+        assertFalse(removed.overlaps(600, 660));
+        assertSame(removed, removed.without(99));
+        assertSame(DoctorDay.EMPTY, DoctorDay.EMPTY.with(5, 0, 10).without(5));
+    }
+
+    @Test
+    void snapshotsAreNotChangedByLaterEdits() {
+        day.with(5, 700, 710);
+        day.without(1);
+        assertEquals(3, day.size());
+        assertTrue(day.holds(1, 540, 570));
+        assertFalse(day.overlaps(700, 710));
+    }
+}
@@ -0,0 +1,150 @@
+package com.pmsmanus.schedule;
+
+import com.pmsmanus.dto.FreeSlot;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.repo.AppointmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Books against the migrated schema on in-memory H2, through the same path the controller uses. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schedule;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pms.storage.root=${java.io.tmpdir}/pms-schedule-index-test"
+})
+class ScheduleIndexTest {
+    private static final AtomicInteger DOCTORS = new AtomicInteger(100);
+    private static final LocalDate DAY = LocalDate.now().plusYears(2);
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+    @Autowired
+    private AppointmentRepository appointments;
+
+    @Test
+    void concurrentOverlappingBookingsBookTheSlotOnce() throws Exception {
+        int doctor = DOCTORS.incrementAndGet();
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<Appointment>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // 10:00, 10:05, ... 10:35, 30 minutes each: every booking overlaps its neighbours.
+                LocalTime time = LocalTime.of(10, 0).plusMinutes(5L * i);
+                results.add(pool.submit(() -> {
+                    go.await();
+                    return book(doctor, time, 30);
+                }));
+            }
+            go.countDown();
+
+            int booked = 0;
+            int conflicts = 0;
+            for (Future<Appointment> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                    booked++;
+                } catch (ExecutionException e) {
+                    ResponseStatusException rejected = (ResponseStatusException) e.getCause();
+                    assertEquals(HttpStatus.CONFLICT, rejected.getStatusCode());
+                    conflicts++;
+                }
+            }
+            List<Appointment> stored = appointments.findByDoctorIdAndAppointmentDate(doctor, DAY, Appointment.class);
+            for (int i = 0; i < stored.size(); i++) {
+                for (int j = i + 1; j < stored.size(); j++) {
+                    assertFalse(overlap(stored.get(i), stored.get(j)), "stored bookings overlap");
+                }
+            }
+            assertEquals(stored.size(), booked);
+            assertEquals(threads, booked + conflicts);
+            assertTrue(booked >= 1 && booked <= 2, "10:00 and 10:30 are the most that fit");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsAnOverlapAndAllowsTheAdjacentSlot() {
+        int doctor = DOCTORS.incrementAndGet();
+        Appointment first = book(doctor, LocalTime.of(9, 0), 30);
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> book(doctor, LocalTime.of(9, 15), 30));
+        assertEquals(HttpStatus.CONFLICT, rejected.getStatusCode());
+        book(doctor, LocalTime.of(9, 30), 30);
+        book(DOCTORS.incrementAndGet(), LocalTime.of(9, 0), 30);
+
+        assertEquals(List.of(first.getId()),
+                scheduleIndex.check(doctor, DAY, LocalTime.of(9, 10), 10).appointmentIds());
+        assertFalse(scheduleIndex.check(doctor, DAY, LocalTime.of(10, 0), 15).conflict());
+    }
+
+    @Test
+    void freeSlotsSkipBookedTime() {
+        int doctor = DOCTORS.incrementAndGet();
+        book(doctor, LocalTime.of(8, 30), 60);
+
+        List<LocalTime> starts = scheduleIndex.freeSlots(doctor, DAY, 30).stream().map(FreeSlot::start).toList();
+
+        assertEquals(LocalTime.of(8, 0), starts.get(0));
+        assertFalse(starts.contains(LocalTime.of(8, 15)));
+        assertFalse(starts.contains(LocalTime.of(9, 15)));
+        assertEquals(LocalTime.of(9, 30), starts.get(1));
+        assertEquals(LocalTime.of(17, 30), starts.get(starts.size() - 1));
+    }
+
+    @Test
+    void rebookingAnAppointmentIntoItsOwnSlotIsAllowed() {
+        int doctor = DOCTORS.incrementAndGet();
+        Appointment a = book(doctor, LocalTime.of(11, 0), 30);
+        a.setStatus("confirmed");
+
+        Appointment saved = scheduleIndex.book(a, () -> appointments.save(a));
+
+        assertEquals("confirmed", saved.getStatus());
+    }
+
+    private Appointment book(int doctor, LocalTime time, int duration) {
+        Appointment a = new Appointment();
+        a.setAppointmentId("T-" + UUID.randomUUID());
+        a.setPatientId(1);
+        a.setDoctorId(doctor);
+        a.setAppointmentDate(DAY);
+        a.setAppointmentTime(time);
+        a.setDuration(duration);
+        a.setStatus("scheduled");
+        return scheduleIndex.book(a, () -> appointments.save(a));
+    }
+
+    private static boolean overlap(Appointment a, Appointment b) {
+        LocalTime aEnd = a.getAppointmentTime().plusMinutes(a.getDuration());
+        LocalTime bEnd = b.getAppointmentTime().plusMinutes(b.getDuration());
+        return a.getAppointmentTime().isBefore(bEnd) && b.getAppointmentTime().isBefore(aEnd);
+    }
+}
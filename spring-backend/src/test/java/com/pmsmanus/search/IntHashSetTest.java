@@ -0,0 +1,90 @@
+package com.pmsmanus.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntHashSetTest {
+
+    @Test
+    void addsEachIdOnce() {
+        IntHashSet set = new IntHashSet();
+        set.add(7);
+        set.add(7);
+        set.add(3);
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(4));
+        assertArrayEquals(new int[]{3, 7}, sorted(set));
+    }
+
+    @Test
+    void rejectsIdsThatCollideWithTheFreeMarker() {
+        IntHashSet set = new IntHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void growsAndShrinksWithoutLosingIds() {
+        IntHashSet set = new IntHashSet();
+        for (int id = 1; id <= 10_000; id++) set.add(id);
+        assertEquals(10_000, set.size());
+        for (int id = 1; id <= 9_990; id++) set.remove(id);
+
+        assertEquals(10, set.size());
+        assertArrayEquals(new int[]{9991, 9992, 9993, 9994, 9995, 9996, 9997, 9998, 9999, 10_000}, sorted(set));
+        assertFalse(set.contains(5));
+    }
+
+    @Test
+    void removalKeepsTheRestOfAProbeRunReachable() {
+        // Random adds and removes against a HashSet; a removal that did not
+        // shift later entries back would hide them from contains().
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            int id = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                set.remove(id);
+                expected.remove(id);
+            } else {
+                set.add(id);
+                expected.add(id);
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (int id = 1; id <= 2_000; id++) assertEquals(expected.contains(id), set.contains(id), "id " + id);
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), sorted(set));
+    }
+
+    @Test
+    void removingAMissingIdChangesNothing() {
+        IntHashSet set = new IntHashSet();
+        set.add(1);
+        set.remove(2);
+        set.remove(1);
+        set.remove(1);
+        assertTrue(set.isEmpty());
+    }
+
+    private static int[] sorted(IntHashSet set) {
+        int[] ids = set.toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+}
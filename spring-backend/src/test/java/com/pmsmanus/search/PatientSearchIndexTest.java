@@ -0,0 +1,113 @@
+package com.pmsmanus.search;
+
+import com.pmsmanus.dto.PatientSummary;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.repo.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSearchIndexTest {
+    private final PatientRepository patientRepository = mock(PatientRepository.class);
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        index = new PatientSearchIndex(patientRepository, transactionManager);
+        index.index(patient(1, "Ann", "Lee", "ann.lee@example.com", "(555) 123-4567", 1));
+        index.index(patient(2, "Annabel", "Smith", "bel@example.com", "555 987 0000", 2));
+        index.index(patient(3, "Joanne", "Ward", null, "555 222 3333", 3));
+        index.index(patient(4, "Ann", "Brown", null, "555 444 5555", 4));
+    }
+
+    @Test
+    void ranksExactTokensThenPrefixesThenSubstrings() {
+        // 4 and 1 are exact, newest first; Annabel is a prefix; Joanne only contains it.
+        assertEquals(List.of(4, 1, 2, 3), index.search("ann", 10));
+        assertEquals(List.of(4, 1), index.search("ANN ", 2));
+        assertEquals(List.of(2), index.search("annab", 10));
+        assertEquals(List.of(3), index.search("oann", 10));
+        assertEquals(List.of(), index.search("annex", 10));
+    }
+
+    @Test
+    void shortQueriesMatchTokenPrefixesOnly() {
+        assertEquals(List.of(4, 2, 1), index.search("an", 10));
+        assertEquals(List.of(3), index.search("j", 10));
+        // "nn" is inside Ann and Joanne, but starts no token.
+        assertEquals(List.of(), index.search("nn", 10));
+    }
+
+    @Test
+    void matchesPhoneNumbersByTheirDigits() {
+        assertEquals(List.of(1), index.search("555-123", 10));
+        assertEquals(List.of(1), index.search("4567", 10));
+        assertEquals(List.of(1), index.search("5551234567", 10));
+    }
+
+    @Test
+    void removedPatientsAreNoLongerFound() {
+        index.remove(1);
+        assertEquals(List.of(4, 2, 3), index.search("ann", 10));
+        assertEquals(List.of(), index.search("555-123", 10));
+
+        index.onEntityChanged(EntityChangedEvent.deleted(patient(4, "Ann", "Brown", null, "555 444 5555", 4)));
+        assertEquals(List.of(2, 3), index.search("ann", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void anUpdateReplacesTheOldTokens() {
+        index.onEntityChanged(EntityChangedEvent.updated(
+                patient(2, "Bella", "Smith", "bel@example.com", "555 987 0000", 2),
+                patient(2, "Annabel", "Smith", "bel@example.com", "555 987 0000", 2)));
+
+        assertEquals(List.of(4, 1, 3), index.search("ann", 10));
+        assertEquals(List.of(2), index.search("bella", 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void isNotReadyUntilBuiltFromTheDatabase() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        PatientSearchIndex fresh = new PatientSearchIndex(patientRepository, transactionManager);
+        when(patientRepository.findAllBy(any(Pageable.class), eq(PatientSummary.class))).thenAnswer(call ->
+                new SliceImpl<>(List.of(PatientSummary.of(patient(9, "Zoe", "Quinn", null, "555 000 1111", 9))),
+                        call.getArgument(0), false));
+
+        assertFalse(fresh.isReady());
+        fresh.rebuild();
+
+        assertTrue(fresh.isReady());
+        assertEquals(List.of(9), fresh.search("zoe", 10));
+    }
+
+    private static Patient patient(int id, String firstName, String lastName, String email, String phone, int month) {
+        Patient p = new Patient();
+        p.setId(id);
+        p.setFirstName(firstName);
+        p.setLastName(lastName);
+        p.setEmail(email);
+        p.setPhone(phone);
+        p.setCreatedAt(LocalDateTime.of(2024, month, 1, 9, 0));
+        return p;
+    }
+}
@@ -0,0 +1,135 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.dto.ImportReport;
+import com.pmsmanus.entity.Appointment;
+import com.pmsmanus.entity.ImportJob;
+import com.pmsmanus.importer.ImportFormat;
+import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.repo.ImportJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Imports into the migrated schema on in-memory H2. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-import;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "pms.storage.root=${java.io.tmpdir}/pms-bulk-import-test",
+        "pms.import.chunk-size=3"
+})
+class BulkImportServiceTest {
+    private static final AtomicInteger DOCTORS = new AtomicInteger(500);
+    private static final LocalDate DAY = LocalDate.now().plusYears(2);
+
+    @Autowired
+    private BulkImportService importService;
+    @Autowired
+    private AppointmentRepository appointments;
+    @Autowired
+    private ImportJobRepository jobs;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void rejectsAppointmentsThatOverlapStoredOrEarlierRecords() {
+        int doctor = DOCTORS.incrementAndGet();
+        String key = "overlap-" + UUID.randomUUID();
+        // Records 1-3 form the first chunk, 4-5 the second.
+        ImportReport first = importAppointments(key + "-a",
+                appointment(key, 1, doctor, "09:00", 30),
+                appointment(key, 2, doctor, "09:15", 30),
+                appointment(key, 3, doctor, "09:30", 30),
+                appointment(key, 4, doctor, "09:45", 30),
+                appointment(key, 5, null, "09:00", 30));
+
+        assertEquals(3, first.imported());
+        assertEquals(List.of(2L, 4L), first.errors().stream().map(ImportReport.RowError::record).toList());
+        assertTrue(first.errors().get(0).message().contains("already booked at 09:15"));
+
+        ImportReport second = importAppointments(key + "-b",
+                appointment(key, 6, doctor, "09:10", 10),
+                appointment(key, 7, doctor, "10:00", 30));
+        assertEquals(1, second.imported());
+        assertEquals(List.of(1L), second.errors().stream().map(ImportReport.RowError::record).toList());
+
+        List<Appointment> stored = appointments.findByDoctorIdAndAppointmentDate(doctor, DAY, Appointment.class);
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(9, 30), LocalTime.of(10, 0)),
+                stored.stream().map(Appointment::getAppointmentTime).sorted().toList());
+    }
+
+    @Test
+    void writesAnAuditRowForEveryImportedRecord() {
+        int doctor = DOCTORS.incrementAndGet();
+        String key = "audit-" + UUID.randomUUID();
+        importAppointments(key,
+                appointment(key, 1, doctor, "08:00", 15),
+                appointment(key, 2, doctor, "08:15", 15),
+                appointment(key, 3, doctor, "08:30", 15),
+                appointment(key, 4, doctor, "08:45", 15));
+
+        List<Integer> ids = appointments.findByDoctorIdAndAppointmentDate(doctor, DAY, Appointment.class).stream()
+                .map(Appointment::getId).toList();
+        assertEquals(4, ids.size());
+        for (Integer id : ids) {
+            assertEquals(1, jdbc.queryForObject("select count(*) from audit_log where entity_type = 'appointment' "
+                    + "and entity_id = ? and action = 'CREATED'", Integer.class, id));
+        }
+    }
+
+    @Test
+    void aRunningImportCannotBeResumedTwice() {
+        int doctor = DOCTORS.incrementAndGet();
+        String key = "running-" + UUID.randomUUID();
+        importAppointments(key, appointment(key, 1, doctor, "11:00", 15));
+        ImportJob job = jobs.findByImportKey(key).orElseThrow();
+        job.setStatus("running");
+        job.setUpdatedAt(LocalDateTime.now());
+        jobs.save(job);
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> importAppointments(key, appointment(key, 2, doctor, "11:15", 15)));
+        assertEquals(HttpStatus.CONFLICT, rejected.getStatusCode());
+
+        // A job whose request died stops blocking once its last checkpoint is stale.
+        job = jobs.findByImportKey(key).orElseThrow();
+        job.setUpdatedAt(LocalDateTime.now().minusHours(1));
+        jobs.save(job);
+        ImportReport resumed = importAppointments(key,
+                appointment(key, 1, doctor, "11:00", 15),
+                appointment(key, 2, doctor, "11:15", 15));
+        assertEquals(1, resumed.resumedAfter());
+        assertEquals(1, resumed.imported());
+        assertEquals("completed", jobs.findByImportKey(key).orElseThrow().getStatus());
+    }
+
+    private ImportReport importAppointments(String key, String... records) {
+        String ndjson = String.join("\n", records) + "\n";
+        return importService.importRecords(BulkImportService.APPOINTMENTS, key, ImportFormat.NDJSON,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String appointment(String key, int n, Integer doctor, String time, int duration) {
+        return String.format("{\"appointmentId\":\"%s-%d\",\"patientId\":1,\"doctorId\":%s,"
+                        + "\"appointmentDate\":\"%s\",\"appointmentTime\":\"%s:00\",\"duration\":%d}",
+                key, n, doctor, DAY, time, duration);
+    }
+}
@@ -0,0 +1,111 @@
+package com.pmsmanus.service;
+
+import com.pmsmanus.archive.ArchiveStore;
+import com.pmsmanus.config.CacheConfig;
+import com.pmsmanus.entity.Patient;
+import com.pmsmanus.event.ChangeTracker;
+import com.pmsmanus.event.EntityChangedEvent;
+import com.pmsmanus.event.RemoteChangeEvent;
+import com.pmsmanus.repo.AppointmentRepository;
+import com.pmsmanus.repo.DocumentRepository;
+import com.pmsmanus.repo.PatientRepository;
+import com.pmsmanus.repo.PrescriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachedLookupServiceTest {
+    private final PatientRepository patients = mock(PatientRepository.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PATIENTS);
+    private CachedLookupService service;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new CachedLookupService(patients, mock(AppointmentRepository.class), mock(DocumentRepository.class),
+                mock(PrescriptionRepository.class), cacheManager, mock(ArchiveStore.class), transactionManager);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        when(patients.findById(1)).thenReturn(Optional.of(patient(1, "Ada")));
+
+        assertEquals("Ada", service.patient(1).orElseThrow().getFirstName());
+        assertEquals("Ada", service.patient(1).orElseThrow().getFirstName());
+
+        verify(patients, times(1)).findById(1);
+    }
+
+    @Test
+    void doesNotCacheARowEvictedWhileItWasLoading() {
+        Patient before = patient(1, "Ada");
+        Patient after = patient(1, "Grace");
+        when(patients.findById(1)).thenAnswer(invocation -> {
+            // The change commits and evicts after this read saw the old row.
+            service.onEntityChanged(EntityChangedEvent.updated(after, before));
+            return Optional.of(before);
+        });
+
+        assertEquals("Ada", service.patient(1).orElseThrow().getFirstName());
+
+        assertNull(cacheManager.getCache(CacheConfig.PATIENTS).get(1));
+    }
+
+    @Test
+    void doesNotCacheMisses() {
+        when(patients.findById(2)).thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), service.patient(2));
+
+        assertNull(cacheManager.getCache(CacheConfig.PATIENTS).get(2));
+        when(patients.findById(2)).thenReturn(Optional.of(patient(2, "Alan")));
+        assertNotNull(service.patient(2).orElse(null));
+    }
+
+    @Test
+    void anotherNodesChangeEvictsTheRowsItNames() {
+        when(patients.findById(1)).thenReturn(Optional.of(patient(1, "Ada")), Optional.of(patient(1, "Grace")));
+        when(patients.findById(2)).thenReturn(Optional.of(patient(2, "Alan")));
+        service.patient(1);
+        service.patient(2);
+
+        service.onRemoteChange(new RemoteChangeEvent(ChangeTracker.Kind.PATIENTS, List.of(1), Set.of(1), Set.of()));
+
+        assertNull(cacheManager.getCache(CacheConfig.PATIENTS).get(1));
+        assertNotNull(cacheManager.getCache(CacheConfig.PATIENTS).get(2));
+        assertEquals("Grace", service.patient(1).orElseThrow().getFirstName());
+    }
+
+    @Test
+    void anotherNodesChangeWithoutIdsClearsTheCache() {
+        when(patients.findById(1)).thenReturn(Optional.of(patient(1, "Ada")));
+        service.patient(1);
+
+        service.onRemoteChange(new RemoteChangeEvent(ChangeTracker.Kind.PATIENTS, List.of(), Set.of(), Set.of()));
+
+        assertNull(cacheManager.getCache(CacheConfig.PATIENTS).get(1));
+    }
+
+    private static Patient patient(int id, String firstName) {
+        Patient p = new Patient();
+        p.setId(id);
+        p.setFirstName(firstName);
+        return p;
+    }
+}